@@ -0,0 +1,32 @@
+package com.stadvdb.group22.mco2.config;
+
+public class CacheConfig {
+
+    // CHANGE MAXIMUM NUMBER OF CACHED MOVIES HERE
+    public static final int MOVIE_CACHE_MAX_SIZE = 10000;
+
+    // CHANGE SHARE OF THE MOVIE CACHE KEPT FOR MOVIES THAT WERE READ MORE THAN ONCE HERE
+    public static final double MOVIE_CACHE_PROTECTED_RATIO = 0.8;
+
+    // CHANGE HOW LONG (IN MILLISECONDS) A MOVIE STAYS CACHED HERE
+    public static final long MOVIE_CACHE_TTL = 60000;
+
+    // CHANGE MAXIMUM NUMBER OF CACHED STATISTICS PAGES HERE
+    public static final int STATISTICS_CACHE_MAX_SIZE = 1000;
+
+    // CHANGE MAXIMUM NUMBER OF CACHED TOTALS OF THE PAGED QUERIES HERE
+    public static final int COUNT_CACHE_MAX_SIZE = 10000;
+
+    // CHANGE MAXIMUM NUMBER OF CACHED SEARCH RESULT PAGES HERE
+    public static final int SEARCH_CACHE_MAX_SIZE = 1000;
+
+    // CHANGE HOW LONG (IN SECONDS) BROWSERS AND PROXIES MAY REUSE A SEARCH RESULT PAGE WITHOUT REVALIDATING IT HERE
+    public static final long SEARCH_PAGE_MAX_AGE = 0;
+
+    // CHANGE TO TRUE TO KEEP THE RENDERED HTML OF THE LISTING, SEARCH AND STATISTICS PAGES HERE
+    public static final boolean RENDER_CACHE_ENABLED = false;
+
+    // CHANGE MAXIMUM TOTAL SIZE (IN BYTES) OF THE RENDERED PAGES KEPT HERE
+    public static final long RENDER_CACHE_MAX_BYTES = 16 * 1024 * 1024;
+
+}
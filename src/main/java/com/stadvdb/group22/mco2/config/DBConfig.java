@@ -17,6 +17,7 @@ import org.springframework.core.env.Environment;
 import org.springframework.data.domain.Pageable;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.TransactionManager;
@@ -26,6 +27,7 @@ import org.springframework.web.context.WebApplicationContext;
 
 import javax.sql.DataSource;
 import javax.transaction.UserTransaction;
+import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -42,6 +44,35 @@ public class DBConfig {
     // CHANGE TRANSACTION TIMEOUT VALUE HERE
     public static final int T_TIME_OUT = 30;
 
+    // CHANGE NODE HEALTH PROBE INTERVAL (IN MILLISECONDS) HERE
+    public static final long HEALTH_PROBE_INTERVAL = 3000;
+
+    // CHANGE NUMBER OF CONSECUTIVE FAILED PROBES BEFORE A NODE IS CONSIDERED DOWN HERE
+    // (a single lost probe does not take a node out, queries that fail still fail over on their own)
+    public static final int HEALTH_FAILURE_THRESHOLD = 2;
+
+    // CHANGE INITIAL AND MAXIMUM RE-PROBE BACKOFF (IN MILLISECONDS) OF A DOWN NODE HERE
+    public static final long HEALTH_MIN_BACKOFF = 2000;
+    public static final long HEALTH_MAX_BACKOFF = 30000;
+
+    // CHANGE NUMBER OF THREADS AND QUEUED QUERIES PER NODE FOR PARALLEL FRAGMENT (NODE 2 & 3) QUERIES HERE
+    public static final int FRAGMENT_POOL_SIZE = 8;
+    public static final int FRAGMENT_QUEUE_CAPACITY = 64;
+
+    // CHANGE PARALLEL FRAGMENT QUERY TIMEOUT VALUE (IN SECONDS) HERE
+    public static final int FRAGMENT_TIME_OUT = 10;
+
+    // CHANGE NUMBER OF LOGS REPLAYED PER BATCH DURING RE-SYNC HERE (ONE LOOKUP AND ONE TRANSACTION PER BATCH)
+    public static final int REPLAY_BATCH_SIZE = 500;
+
+    // CHANGE NUMBER OF LOGS READ PER RANGE SCAN DURING RE-SYNC HERE (EACH CHUNK IS COMPACTED AND REPLAYED ON ITS OWN)
+    public static final int REPLAY_CHUNK_SIZE = 5000;
+
+    // CHANGE NUMBER OF ATTEMPTS PER NODE RECOVERY AND INITIAL AND MAXIMUM BACKOFF (IN MILLISECONDS) BETWEEN ATTEMPTS HERE
+    public static final int RECOVERY_MAX_ATTEMPTS = 5;
+    public static final long RECOVERY_MIN_BACKOFF = 1000;
+    public static final long RECOVERY_MAX_BACKOFF = 16000;
+
 
     // NODE 1 (CENTRAL NODE) CONNECTION DETAILS
     public static final String node1Url = "jdbc:mysql://stadvdb-mco2-group22-1.mysql.database.azure.com:3306/movies_all";
@@ -58,20 +89,34 @@ public class DBConfig {
     public static final String node3Username = "lopez";
     public static final String node3Password = "password12!";
 
+    // CHANGE JDBC CONNECTION PROPERTIES HERE (server-side prepared statements, cached per connection, and batched
+    // inserts sent as multi-row statements)
+    public static final String connectionProperties = "?useServerPrepStmts=true&cachePrepStmts=true&prepStmtCacheSize=250&prepStmtCacheSqlLimit=2048&rewriteBatchedStatements=true";
+
     // JDBC CONNECTOR DRIVER CLASS
     public static final String driverClassName = "com.mysql.cj.jdbc.Driver";
 
+    // defer getting a physical connection until the first statement is executed, so that starting a transaction
+    // does not connect to the node (node availability is checked beforehand by the NodeHealthMonitor)
+    private DataSource lazyDataSource(DataSource datasource) {
+        LazyConnectionDataSourceProxy lazyDatasource = new LazyConnectionDataSourceProxy();
+        lazyDatasource.setTargetDataSource(datasource);
+        lazyDatasource.setDefaultAutoCommit(true);
+        lazyDatasource.setDefaultTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+        return lazyDatasource;
+    }
+
     /***** NODE 1 / CENTRAL NODE CONFIGURATIONS *****/
     @Bean(name="node1")
     public DataSource node1() {
         // setup datasource
         DataSourceBuilder dataSourceBuilder = DataSourceBuilder.create();
         dataSourceBuilder.driverClassName(driverClassName);
-        dataSourceBuilder.url(node1Url);
+        dataSourceBuilder.url(node1Url + connectionProperties);
         dataSourceBuilder.username(node1Username);
         dataSourceBuilder.password(node1Password);
         DataSource datasource = dataSourceBuilder.build();
-        return datasource;
+        return lazyDataSource(datasource);
     }
 
     @Bean(name="node1TxManager")
@@ -98,11 +143,11 @@ public class DBConfig {
         // setup datasource
         DataSourceBuilder dataSourceBuilder = DataSourceBuilder.create();
         dataSourceBuilder.driverClassName(driverClassName);
-        dataSourceBuilder.url(node2Url);
+        dataSourceBuilder.url(node2Url + connectionProperties);
         dataSourceBuilder.username(node2Username);
         dataSourceBuilder.password(node2Password);
         DataSource datasource = dataSourceBuilder.build();
-        return datasource;
+        return lazyDataSource(datasource);
     }
 
     @Bean(name="node2Jdbc")
@@ -129,11 +174,11 @@ public class DBConfig {
         // setup datasource
         DataSourceBuilder dataSourceBuilder = DataSourceBuilder.create();
         dataSourceBuilder.driverClassName(driverClassName);
-        dataSourceBuilder.url(node3Url);
+        dataSourceBuilder.url(node3Url + connectionProperties);
         dataSourceBuilder.username(node3Username);
         dataSourceBuilder.password(node3Password);
         DataSource datasource = dataSourceBuilder.build();
-        return datasource;
+        return lazyDataSource(datasource);
     }
 
     @Bean(name="node3Jdbc")
@@ -160,29 +205,4 @@ public class DBConfig {
         return lock;
     }
 
-    @Bean(name="resyncEnabled")
-    public Boolean resyncEnabled() {
-        return true;
-    }
-
-    @Bean(name="node1Down")
-    public Boolean node1Down() {
-        return false;
-    }
-
-    @Bean(name="node2Down")
-    public Boolean node2Down() {
-        return false;
-    }
-
-    @Bean(name="node3Down")
-    public Boolean node3Down() {
-        return false;
-    }
-
-    @Bean(name="maintenance")
-    public Boolean maintenance() {
-        return false;
-    }
-
 }
@@ -0,0 +1,11 @@
+package com.stadvdb.group22.mco2.config;
+
+public class SearchConfig {
+
+    // CHANGE DEFAULT NUMBER OF SUGGESTIONS RETURNED PER PREFIX HERE
+    public static final int SUGGEST_DEFAULT_LIMIT = 10;
+
+    // CHANGE MAXIMUM NUMBER OF SUGGESTIONS A CLIENT CAN ASK FOR HERE
+    public static final int SUGGEST_MAX_LIMIT = 50;
+
+}
@@ -0,0 +1,112 @@
+package com.stadvdb.group22.mco2.controller;
+
+import com.stadvdb.group22.mco2.repository.CountCache;
+import com.stadvdb.group22.mco2.service.MovieCache;
+import com.stadvdb.group22.mco2.service.RequestCoalescer;
+import com.stadvdb.group22.mco2.service.SearchResultCache;
+import com.stadvdb.group22.mco2.service.StatisticsCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// cache statistics, for sizing the caches
+@RestController
+public class CacheController {
+
+    @Autowired
+    private MovieCache movieCache;
+
+    @Autowired
+    private StatisticsCache statisticsCache;
+
+    @Autowired
+    private SearchResultCache searchResultCache;
+
+    @Autowired
+    private RenderedPageCache renderedPageCache;
+
+    @Autowired
+    private RequestCoalescer coalescer;
+
+    @Autowired
+    private CountCache countCache;
+
+    @GetMapping("/api/cache/movies")
+    public Map<String, Object> getMovieCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long hits = movieCache.getHits();
+        long misses = movieCache.getMisses();
+        stats.put("size", movieCache.size());
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hitRate", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        stats.put("evictions", movieCache.getEvictions());
+        stats.put("expirations", movieCache.getExpirations());
+        return stats;
+    }
+
+    @GetMapping("/api/cache/statistics")
+    public Map<String, Object> getStatisticsCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long hits = statisticsCache.getHits();
+        long misses = statisticsCache.getMisses();
+        stats.put("size", statisticsCache.size());
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hitRate", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        return stats;
+    }
+
+    @GetMapping("/api/cache/search")
+    public Map<String, Object> getSearchCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long hits = searchResultCache.getHits();
+        long misses = searchResultCache.getMisses();
+        stats.put("size", searchResultCache.size());
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hitRate", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        return stats;
+    }
+
+    @GetMapping("/api/cache/pages")
+    public Map<String, Object> getRenderedPageCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long hits = renderedPageCache.getHits();
+        long misses = renderedPageCache.getMisses();
+        stats.put("size", renderedPageCache.size());
+        stats.put("bytes", renderedPageCache.getBytes());
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hitRate", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        return stats;
+    }
+
+    @GetMapping("/api/cache/coalescing")
+    public Map<String, Object> getCoalescingStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long reads = coalescer.getReads();
+        long coalesced = coalescer.getCoalesced();
+        stats.put("inFlight", coalescer.getInFlight());
+        stats.put("reads", reads);
+        stats.put("coalesced", coalesced);
+        stats.put("coalescedRate", reads + coalesced == 0 ? 0.0 : (double) coalesced / (reads + coalesced));
+        stats.put("cancelled", coalescer.getCancelled());
+        return stats;
+    }
+
+    @GetMapping("/api/cache/counts")
+    public Map<String, Object> getCountCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long hits = countCache.getHits();
+        long misses = countCache.getMisses();
+        stats.put("size", countCache.size());
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hitRate", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        return stats;
+    }
+}
@@ -0,0 +1,86 @@
+package com.stadvdb.group22.mco2.controller;
+
+import com.stadvdb.group22.mco2.service.CatalogVersion;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+
+import javax.servlet.http.HttpServletResponse;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+// conditional GET for the pages rendered from the movies
+// such a page only changes when the catalog version changes, so its validators (weak ETag and Last-Modified) are
+// derived from the version, and a client that already has the page of the current version gets a 304 before the nodes
+// are read or the template is rendered
+@Component
+public class ConditionalGet {
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    // validators of the pages at the current catalog version, to be read before the page is computed
+    public Validators validators() {
+        CatalogVersion.Stamp stamp = catalogVersion.stamp();
+        return new Validators("W/\"" + catalogVersion.getBootId() + "-" + stamp.getVersion() + "\"", stamp.getLastModified());
+    }
+
+    public static final class Validators {
+
+        private final String etag;
+        private final long lastModified;
+
+        private Validators(String etag, long lastModified) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+        // answers 304 if the client has the page of this version (If-None-Match, or If-Modified-Since if no ETag is given)
+        public boolean isNotModified(WebRequest request, HttpServletResponse response, CacheControl cacheControl) {
+            boolean notModified;
+            String ifNoneMatch = request.getHeader("If-None-Match");
+            if (ifNoneMatch != null) {
+                notModified = matches(ifNoneMatch);
+            } else {
+                notModified = lastModified / 1000 <= parseDate(request.getHeader("If-Modified-Since")) / 1000;
+            }
+            if (notModified) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                apply(response, cacheControl);
+            }
+            return notModified;
+        }
+
+        // to be called only for pages that were rendered successfully, error pages must not be revalidated
+        public void apply(HttpServletResponse response, CacheControl cacheControl) {
+            response.setHeader("ETag", etag);
+            response.setDateHeader("Last-Modified", lastModified);
+            response.setHeader("Cache-Control", cacheControl.getHeaderValue());
+        }
+
+        private boolean matches(String ifNoneMatch) {
+            // weak comparison, W/"x" matches "x"
+            String opaque = etag.substring(2);
+            for (String tag : ifNoneMatch.split(",")) {
+                tag = tag.trim();
+                if (tag.equals("*") || tag.equals(etag) || tag.equals(opaque)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static long parseDate(String date) {
+            if (date == null) {
+                return -1;
+            }
+            try {
+                return ZonedDateTime.parse(date, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            } catch (DateTimeParseException e) {
+                return -1;
+            }
+        }
+    }
+}
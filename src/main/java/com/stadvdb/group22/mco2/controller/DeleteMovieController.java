@@ -23,6 +23,18 @@ public class DeleteMovieController {
         Movie movie = new Movie ();
         movie.setUuid(movieUUID);
         movie.setYear(movieYear);
+        return deleteMovie(movie);
+    }
+
+    // the year (and so the node that has the movie) is looked up by the uuid
+    @RequestMapping(value = "/delete/{movieUUID}/", method = RequestMethod.GET)
+    public RedirectView deleteMovie(@PathVariable String movieUUID) {
+        Movie movie = new Movie ();
+        movie.setUuid(movieUUID);
+        return deleteMovie(movie);
+    }
+
+    private RedirectView deleteMovie(Movie movie) {
         try {
             distributedDBService.deleteMovie(movie);
             return new RedirectView ("/");
@@ -4,10 +4,12 @@ import com.stadvdb.group22.mco2.config.ErrorMessageConfig;
 import com.stadvdb.group22.mco2.exception.ServerMaintenanceException;
 import com.stadvdb.group22.mco2.exception.TransactionErrorException;
 import com.stadvdb.group22.mco2.model.Movie;
+import com.stadvdb.group22.mco2.model.MovieKey;
 import com.stadvdb.group22.mco2.model.Report;
 import com.stadvdb.group22.mco2.service.DistributedDBService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.http.CacheControl;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.web.bind.annotation.*;
@@ -19,29 +21,50 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.view.RedirectView;
 
+import javax.servlet.http.HttpServletResponse;
+
 @Controller
 public class HomeController {
 
     @Autowired
     private DistributedDBService distributedDBService;
 
+    @Autowired
+    private ConditionalGet conditionalGet;
+
     @RequestMapping(value = {"/", ""}, method = RequestMethod.GET)
     public RedirectView home() {
         return new RedirectView("/movies/p/1");
     }
 
     @RequestMapping(value = {"/movies/p/{pageNum}", ""}, method = RequestMethod.GET)
-    public String getHomePage(Model model, @PathVariable int pageNum, @RequestParam(defaultValue = "5") int size) {
+    public String getHomePage(Model model, @PathVariable int pageNum, @RequestParam(defaultValue = "5") int size,
+                              @RequestParam(required = false) String after, WebRequest webRequest, HttpServletResponse response) {
+        // the listing only changes when the movies change
+        ConditionalGet.Validators validators = conditionalGet.validators();
+        if (validators.isNotModified(webRequest, response, CacheControl.noCache())) {
+            return null;
+        }
+
         try {
-            Page<Movie> movies = distributedDBService.getMoviesByPage(pageNum - 1, size);
+            Page<Movie> movies;
+            // continue from the last movie of the previous page if given, else look up the page by its number
+            if (after != null && !after.isEmpty()) {
+                movies = distributedDBService.getMoviesAfter(MovieKey.decode(after), pageNum - 1, size);
+            } else {
+                movies = distributedDBService.getMoviesByPage(pageNum - 1, size);
+            }
             int totalPages = movies.getTotalPages();
 
             // if valid page
             if (pageNum >= 0 && pageNum <= totalPages) {
+                validators.apply(response, CacheControl.noCache());
                 model.addAttribute("page", movies);
                 model.addAttribute("pageNum", pageNum);
+                model.addAttribute("nextToken", nextToken(movies));
                 model.addAttribute("movie", new Movie());
                 return "index";
                 // if invalid page
@@ -51,6 +74,12 @@ public class HomeController {
                 model.addAttribute("subText", ErrorMessageConfig.SUB_TEXT);
                 return "err_page";
             }
+        // if invalid continuation token
+        } catch (IllegalArgumentException e) {
+            model.addAttribute("tabTitle", ErrorMessageConfig.TITLE_PAGE_NOT_FOUND);
+            model.addAttribute("mainText", ErrorMessageConfig.PAGE_NOT_FOUND);
+            model.addAttribute("subText", ErrorMessageConfig.SUB_TEXT);
+            return "err_page";
         // if error occurred during query
         } catch (TransactionErrorException e) {
             model.addAttribute("tabTitle", ErrorMessageConfig.TITLE_TRANS_ERROR);
@@ -71,4 +100,12 @@ public class HomeController {
             return "err_page";
         }
     }
+
+    // continuation token of the next page (key of the last movie in this page), or null if this is the last page
+    private String nextToken(Page<Movie> movies) {
+        if (!movies.hasNext() || movies.getContent().isEmpty()) {
+            return null;
+        }
+        return MovieKey.of(movies.getContent().get(movies.getContent().size() - 1)).encode();
+    }
 }
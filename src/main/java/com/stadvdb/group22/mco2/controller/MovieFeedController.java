@@ -0,0 +1,47 @@
+package com.stadvdb.group22.mco2.controller;
+
+import com.stadvdb.group22.mco2.model.Movie;
+import com.stadvdb.group22.mco2.model.MovieKey;
+import com.stadvdb.group22.mco2.service.DistributedDBService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// movie listing for infinite scrolling, each response gives the token of the next part instead of the number of pages,
+// so the movies are never counted
+@RestController
+public class MovieFeedController {
+
+    @Autowired
+    private DistributedDBService distributedDBService;
+
+    @GetMapping("/api/movies")
+    public ResponseEntity<Map<String, Object>> getMovies(@RequestParam(required = false) String after,
+                                                         @RequestParam(defaultValue = "10") int size) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        try {
+            MovieKey afterKey = after == null || after.isEmpty() ? null : MovieKey.decode(after);
+            Slice<Movie> movies = distributedDBService.getMoviesSlice(afterKey, Math.max(1, Math.min(size, 100)));
+            List<Movie> content = movies.getContent();
+            body.put("movies", content);
+            body.put("hasNext", movies.hasNext());
+            body.put("next", movies.hasNext() ? MovieKey.of(content.get(content.size() - 1)).encode() : null);
+            return ResponseEntity.ok().body(body);
+        // if invalid continuation token
+        } catch (IllegalArgumentException e) {
+            body.put("error", "Invalid continuation token");
+            return ResponseEntity.badRequest().body(body);
+        // if database is down or error occurred during query
+        } catch (Exception e) {
+            body.put("error", "Cannot retrieve movies");
+            return ResponseEntity.status(503).body(body);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.stadvdb.group22.mco2.controller;
+
+import com.stadvdb.group22.mco2.service.RecoveryCoordinator;
+import com.stadvdb.group22.mco2.service.RecoveryProgress;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// re-sync progress of every node, for following a recovery
+@RestController
+public class RecoveryController {
+
+    @Autowired
+    private RecoveryCoordinator recoveryCoordinator;
+
+    @GetMapping("/api/recovery")
+    public List<Map<String, Object>> getRecoveryProgress() {
+        List<Map<String, Object>> nodes = new ArrayList<>();
+        for (RecoveryProgress progress : recoveryCoordinator.getProgress()) {
+            Map<String, Object> node = new LinkedHashMap<>();
+            node.put("node", progress.getNode().getLabel());
+            node.put("state", progress.getState());
+            node.put("attempts", progress.getAttempts());
+            node.put("replayed", progress.getReplayed());
+            node.put("lastError", progress.getLastError());
+            node.put("startTime", progress.getStartTime());
+            node.put("endTime", progress.getEndTime());
+            node.put("nextAttemptTime", progress.getNextAttemptTime());
+            nodes.add(node);
+        }
+        return nodes;
+    }
+}
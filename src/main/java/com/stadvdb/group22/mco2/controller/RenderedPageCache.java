@@ -0,0 +1,160 @@
+package com.stadvdb.group22.mco2.controller;
+
+import com.stadvdb.group22.mco2.config.CacheConfig;
+import com.stadvdb.group22.mco2.service.CatalogVersion;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// keeps the rendered HTML of the movie listing, search results and statistics pages by URL (which holds the view, page,
+// size and search) and catalog version, so that a page that was already rendered at the current version is written
+// out as is, without running the controller and the template again
+// only successful pages are kept (the ones with validators, see ConditionalGet), least recently used pages are dropped
+// once the kept pages exceed the maximum size, disabled unless CacheConfig.RENDER_CACHE_ENABLED
+@Component
+public class RenderedPageCache extends OncePerRequestFilter {
+
+    // headers of the rendered page that are sent again with the kept page
+    private static final String[] HEADERS = { "ETag", "Last-Modified", "Cache-Control" };
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    private final LinkedHashMap<String, RenderedPage> pages = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long bytes = 0;
+    private long hits = 0;
+    private long misses = 0;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) throws ServletException {
+        if (!CacheConfig.RENDER_CACHE_ENABLED || !"GET".equals(request.getMethod())) {
+            return true;
+        }
+        // conditional requests are answered by the controllers with a 304, without rendering
+        if (request.getHeader("If-None-Match") != null || request.getHeader("If-Modified-Since") != null) {
+            return true;
+        }
+        String uri = request.getRequestURI();
+        return !(uri.startsWith("/movies/p/") || uri.startsWith("/search/p/") ||
+                (uri.startsWith("/statistics/movies_per_") && uri.contains("/p/")));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String key = request.getQueryString() == null ? request.getRequestURI() : request.getRequestURI() + "?" + request.getQueryString();
+        long version = catalogVersion.current();
+
+        RenderedPage page;
+        synchronized (this) {
+            page = pages.get(key);
+            if (page != null && page.version == version) {
+                hits++;
+            } else {
+                page = null;
+                misses++;
+            }
+        }
+        if (page != null) {
+            page.writeTo(response);
+            return;
+        }
+
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        chain.doFilter(request, wrapper);
+        if (wrapper.getStatus() == HttpServletResponse.SC_OK && wrapper.getHeader("ETag") != null) {
+            String[] headers = new String[HEADERS.length];
+            for (int i = 0; i < HEADERS.length; i++) {
+                headers[i] = wrapper.getHeader(HEADERS[i]);
+            }
+            store(key, new RenderedPage(version, wrapper.getContentType(), headers, wrapper.getContentAsByteArray()));
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    public synchronized int size() {
+        return pages.size();
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    private synchronized void store(String key, RenderedPage page) {
+        if (page.body.length > CacheConfig.RENDER_CACHE_MAX_BYTES) {
+            return;
+        }
+        RenderedPage previous = pages.get(key);
+        if (previous != null && previous.version > page.version) {
+            // a newer rendering was stored in the meantime
+            return;
+        }
+        if (previous != null) {
+            bytes -= previous.body.length;
+        }
+        pages.put(key, page);
+        bytes += page.body.length;
+
+        // drop the stale pages first, then the least recently used ones
+        long current = catalogVersion.current();
+        Iterator<RenderedPage> stale = pages.values().iterator();
+        while (bytes > CacheConfig.RENDER_CACHE_MAX_BYTES && stale.hasNext()) {
+            RenderedPage cached = stale.next();
+            if (cached.version != current) {
+                bytes -= cached.body.length;
+                stale.remove();
+            }
+        }
+        Iterator<Map.Entry<String, RenderedPage>> eldest = pages.entrySet().iterator();
+        while (bytes > CacheConfig.RENDER_CACHE_MAX_BYTES && eldest.hasNext()) {
+            Map.Entry<String, RenderedPage> cached = eldest.next();
+            bytes -= cached.getValue().body.length;
+            eldest.remove();
+        }
+    }
+
+    private static final class RenderedPage {
+        private final long version;
+        private final String contentType;
+        private final String[] headers;
+        private final byte[] body;
+
+        private RenderedPage(long version, String contentType, String[] headers, byte[] body) {
+            this.version = version;
+            this.contentType = contentType;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        private void writeTo(HttpServletResponse response) throws IOException {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType(contentType);
+            for (int i = 0; i < HEADERS.length; i++) {
+                if (headers[i] != null) {
+                    response.setHeader(HEADERS[i], headers[i]);
+                }
+            }
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+        }
+    }
+}
@@ -1,10 +1,12 @@
 package com.stadvdb.group22.mco2.controller;
 
+import com.stadvdb.group22.mco2.config.CacheConfig;
 import com.stadvdb.group22.mco2.config.ErrorMessageConfig;
 import com.stadvdb.group22.mco2.exception.ServerMaintenanceException;
 import com.stadvdb.group22.mco2.exception.TransactionErrorException;
 import com.stadvdb.group22.mco2.model.Movie;
 import com.stadvdb.group22.mco2.model.Report;
+import com.stadvdb.group22.mco2.model.SearchCriteria;
 import com.stadvdb.group22.mco2.service.DistributedDBService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -12,6 +14,7 @@ import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.context.annotation.Scope;
 import org.springframework.context.annotation.ScopedProxyMode;
 import org.springframework.data.domain.Page;
+import org.springframework.http.CacheControl;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.web.bind.annotation.*;
@@ -23,8 +26,14 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import org.springframework.web.servlet.view.RedirectView;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import javax.servlet.http.HttpServletResponse;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @Controller
 public class SearchController {
@@ -32,43 +41,55 @@ public class SearchController {
     @Autowired
     private DistributedDBService distributedDBService;
 
-    private String titleQuery;
-    private String genreQuery;
-    private String actorQuery;
-    private String directorQuery;
-    private String yearQuery;
+    @Autowired
+    private ConditionalGet conditionalGet;
+
+    private static final CacheControl CACHE_CONTROL = CacheControl.maxAge(CacheConfig.SEARCH_PAGE_MAX_AGE, TimeUnit.SECONDS).cachePublic().mustRevalidate();
 
+    // the search is kept in the URL (not in the controller, which is shared by all users) so that every search has its
+    // own URL and its pages can be cached by the server, the browser and proxies
     @RequestMapping(value = "/search", method = RequestMethod.POST)
-    public RedirectView redirectSearch (@ModelAttribute Movie movie) {
-        this.yearQuery = movie.getYear() == null ? null : movie.getYear().toString();
-        this.titleQuery = movie.getTitle().equalsIgnoreCase("") ? null : "'" + movie.getTitle() + "'";
-        this.genreQuery = movie.getGenre().equalsIgnoreCase("") ? null : "'" + movie.getGenre() + "'";
-        this.actorQuery = movie.getActor1().equalsIgnoreCase("") ? null : "'" + movie.getActor1() + "'";
-        this.directorQuery = movie.getDirector().equalsIgnoreCase("") ? null : "'" + movie.getDirector() + "'";
-        return new RedirectView("/search/p/1");
+    public RedirectView redirectSearch (@ModelAttribute Movie movie,
+                                        @RequestParam(value = "yearFrom", required = false) Integer yearFrom,
+                                        @RequestParam(value = "yearTo", required = false) Integer yearTo,
+                                        @RequestParam(value = "decade", required = false) Integer decade) {
+        SearchCriteria criteria = criteria(movie.getTitle(), movie.getGenre(), movie.getActor1(), movie.getDirector(),
+                movie.getYear(), yearFrom, yearTo, decade);
+        return new RedirectView(searchUrl(criteria, 1));
     }
 
     @RequestMapping(value = "/search/p/{pageNum}", method = RequestMethod.GET)
-    public String searchMovies(@PathVariable int pageNum, @RequestParam(defaultValue = "5") int size, Model model) {
-        // create movie object
-        Movie movieToInsert = new Movie();
-        movieToInsert.setYear(yearQuery != null ? Integer.parseInt(yearQuery) : null);
-        movieToInsert.setTitle(titleQuery);
-        movieToInsert.setGenre(genreQuery);
-        movieToInsert.setActor1(actorQuery);
-        movieToInsert.setDirector(directorQuery);
+    public String searchMovies(@PathVariable int pageNum, @RequestParam(defaultValue = "5") int size,
+                               @RequestParam(value = "title", required = false) String title,
+                               @RequestParam(value = "genre", required = false) String genre,
+                               @RequestParam(value = "actor", required = false) String actor,
+                               @RequestParam(value = "director", required = false) String director,
+                               @RequestParam(value = "year", required = false) Integer year,
+                               @RequestParam(value = "yearFrom", required = false) Integer yearFrom,
+                               @RequestParam(value = "yearTo", required = false) Integer yearTo,
+                               @RequestParam(value = "decade", required = false) Integer decade,
+                               WebRequest webRequest, HttpServletResponse response, Model model) {
+        SearchCriteria criteria = criteria(title, genre, actor, director, year, yearFrom, yearTo, decade);
+
+        // results only change when the movies change
+        ConditionalGet.Validators validators = conditionalGet.validators();
+        if (validators.isNotModified(webRequest, response, CACHE_CONTROL)) {
+            return null;
+        }
 
         try {
-            Page<Movie> movies = distributedDBService.searchMoviesByPage(movieToInsert, pageNum - 1, size);
+            Page<Movie> movies = distributedDBService.searchMoviesByPage(criteria, pageNum - 1, size);
             int totalPages = movies.getTotalPages();
 
             if (pageNum >= 0 && pageNum <= totalPages) {
+                validators.apply(response, CACHE_CONTROL);
                 model.addAttribute("page", movies);
                 model.addAttribute("pageNum", pageNum);
                 model.addAttribute("movie", new Movie());
                 model.addAttribute("hasResults", "TRUE");
                 return "search_results";
             } else if (totalPages == 0) {
+                validators.apply(response, CACHE_CONTROL);
                 model.addAttribute("page", movies);
                 model.addAttribute("pageNum", pageNum);
                 model.addAttribute("movie", new Movie());
@@ -101,4 +122,29 @@ public class SearchController {
             return "err_page";
         }
     }
+
+    // the year, the year range and the decade all narrow the searched years
+    private static SearchCriteria criteria(String title, String genre, String actor, String director,
+                                           Integer year, Integer yearFrom, Integer yearTo, Integer decade) {
+        SearchCriteria criteria = new SearchCriteria();
+        criteria.setTitle(title == null || title.trim().isEmpty() ? null : title.trim());
+        criteria.setGenre(genre == null || genre.trim().isEmpty() ? null : genre.trim());
+        criteria.setActor(actor == null || actor.trim().isEmpty() ? null : actor.trim());
+        criteria.setDirector(director == null || director.trim().isEmpty() ? null : director.trim());
+        criteria.narrowYears(year, year);
+        criteria.narrowYears(yearFrom, yearTo);
+        if (decade != null) {
+            criteria.narrowToDecade(decade);
+        }
+        return criteria;
+    }
+
+    // same search always gives the same URL
+    private static String searchUrl(SearchCriteria criteria, int pageNum) {
+        UriComponentsBuilder url = UriComponentsBuilder.fromPath("/search/p/" + pageNum);
+        for (Map.Entry<String, Object> param : criteria.toQueryParams().entrySet()) {
+            url.queryParam(param.getKey(), param.getValue());
+        }
+        return url.encode().toUriString();
+    }
 }
@@ -8,20 +8,27 @@ import com.stadvdb.group22.mco2.model.Report;
 import com.stadvdb.group22.mco2.service.DistributedDBService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.http.CacheControl;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.view.RedirectView;
 
+import javax.servlet.http.HttpServletResponse;
+
 @Controller
 public class StatisticsController {
 
     @Autowired
     private DistributedDBService distributedDBService;
 
+    @Autowired
+    private ConditionalGet conditionalGet;
+
     @RequestMapping(value = "/statistics", method = RequestMethod.GET)
     public String getStatisticsMenuPage() {
         return "statistics_menu";
@@ -48,12 +55,19 @@ public class StatisticsController {
     }
 
     @RequestMapping(value = "/statistics/movies_per_genre/p/{pageNum}", method = RequestMethod.GET)
-    public String getMoviesPerGenre(Model model, @PathVariable int pageNum, @RequestParam(defaultValue = "10") int size) {
+    public String getMoviesPerGenre(Model model, @PathVariable int pageNum, @RequestParam(defaultValue = "10") int size, WebRequest webRequest, HttpServletResponse response) {
+        // the statistics only change when the movies change
+        ConditionalGet.Validators validators = conditionalGet.validators();
+        if (validators.isNotModified(webRequest, response, CacheControl.noCache())) {
+            return null;
+        }
+
         try {
             Page<Report> reports = distributedDBService.getMoviesPerGenreByPage(pageNum - 1, size);
             int totalPages = reports.getTotalPages();
 
             if (pageNum > 0 && pageNum <= totalPages) {
+                validators.apply(response, CacheControl.noCache());
                 model.addAttribute("page", reports);
                 model.addAttribute("pageNum", pageNum);
                 model.addAttribute("pageTitle", "No. of Movies Per Genre:");
@@ -87,12 +101,19 @@ public class StatisticsController {
     }
 
     @RequestMapping(value = "/statistics/movies_per_director/p/{pageNum}", method = RequestMethod.GET)
-    public String getMoviesPerDirector(Model model, @PathVariable int pageNum, @RequestParam(defaultValue = "10") int size) {
+    public String getMoviesPerDirector(Model model, @PathVariable int pageNum, @RequestParam(defaultValue = "10") int size, WebRequest webRequest, HttpServletResponse response) {
+        // the statistics only change when the movies change
+        ConditionalGet.Validators validators = conditionalGet.validators();
+        if (validators.isNotModified(webRequest, response, CacheControl.noCache())) {
+            return null;
+        }
+
         try {
             Page<Report> reports = distributedDBService.getMoviesPerDirectorByPage(pageNum - 1, size);
             int totalPages = reports.getTotalPages();
 
             if (pageNum > 0 && pageNum <= totalPages) {
+                validators.apply(response, CacheControl.noCache());
                 model.addAttribute("page", reports);
                 model.addAttribute("pageNum", pageNum);
                 model.addAttribute("pageTitle", "No. of Movies Per Director:");
@@ -126,12 +147,19 @@ public class StatisticsController {
     }
 
     @RequestMapping(value = "/statistics/movies_per_actor/p/{pageNum}", method = RequestMethod.GET)
-    public String getMoviesPerActor(Model model, @PathVariable int pageNum, @RequestParam(defaultValue = "10") int size) {
+    public String getMoviesPerActor(Model model, @PathVariable int pageNum, @RequestParam(defaultValue = "10") int size, WebRequest webRequest, HttpServletResponse response) {
+        // the statistics only change when the movies change
+        ConditionalGet.Validators validators = conditionalGet.validators();
+        if (validators.isNotModified(webRequest, response, CacheControl.noCache())) {
+            return null;
+        }
+
         try {
             Page<Report> reports = distributedDBService.getMoviesPerActorByPage(pageNum - 1, size);
             int totalPages = reports.getTotalPages();
 
             if (pageNum > 0 && pageNum <= totalPages) {
+                validators.apply(response, CacheControl.noCache());
                 model.addAttribute("page", reports);
                 model.addAttribute("pageNum", pageNum);
                 model.addAttribute("pageTitle", "No. of Movies Per Actor:");
@@ -165,12 +193,19 @@ public class StatisticsController {
     }
 
     @RequestMapping(value = "/statistics/movies_per_year/p/{pageNum}", method = RequestMethod.GET)
-    public String getMoviesPerYear(Model model, @PathVariable int pageNum, @RequestParam(defaultValue = "10") int size) {
+    public String getMoviesPerYear(Model model, @PathVariable int pageNum, @RequestParam(defaultValue = "10") int size, WebRequest webRequest, HttpServletResponse response) {
+        // the statistics only change when the movies change
+        ConditionalGet.Validators validators = conditionalGet.validators();
+        if (validators.isNotModified(webRequest, response, CacheControl.noCache())) {
+            return null;
+        }
+
         try {
             Page<Report> reports = distributedDBService.getMoviesPerYearByPage(pageNum - 1, size);
             int totalPages = reports.getTotalPages();
 
             if (pageNum > 0 && pageNum <= totalPages) {
+                validators.apply(response, CacheControl.noCache());
                 model.addAttribute("page", reports);
                 model.addAttribute("pageNum", pageNum);
                 model.addAttribute("pageTitle", "No. of Movies Per year:");
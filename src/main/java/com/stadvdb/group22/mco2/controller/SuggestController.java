@@ -0,0 +1,46 @@
+package com.stadvdb.group22.mco2.controller;
+
+import com.stadvdb.group22.mco2.config.SearchConfig;
+import com.stadvdb.group22.mco2.service.SearchIndex;
+import com.stadvdb.group22.mco2.service.SuggestionIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// completions for the search form, answered from memory without reading the nodes
+@RestController
+public class SuggestController {
+
+    @Autowired
+    private SuggestionIndex suggestionIndex;
+
+    @GetMapping("/api/suggest")
+    public ResponseEntity<List<Map<String, Object>>> suggest(@RequestParam(value = "field") String field,
+                                                             @RequestParam(value = "prefix", defaultValue = "") String prefix,
+                                                             @RequestParam(value = "limit", defaultValue = "" + SearchConfig.SUGGEST_DEFAULT_LIMIT) int limit) {
+        SearchIndex.Field searchField;
+        try {
+            searchField = SearchIndex.Field.valueOf(field.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ArrayList<>());
+        }
+        limit = Math.max(1, Math.min(limit, SearchConfig.SUGGEST_MAX_LIMIT));
+
+        List<Map<String, Object>> suggestions = new ArrayList<>();
+        for (SuggestionIndex.Suggestion suggestion : suggestionIndex.suggest(searchField, prefix, limit)) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("value", suggestion.getValue());
+            entry.put("count", suggestion.getCount());
+            suggestions.add(entry);
+        }
+        return ResponseEntity.ok().body(suggestions);
+    }
+}
@@ -26,13 +26,24 @@ public class UpdateMovieController {
 
     @RequestMapping(value = {"movies/y/{movieYear}/m/{movieUUID}", ""}, method = RequestMethod.GET)
     public String getMovie(Model model, @PathVariable String movieUUID, @PathVariable int movieYear) {
+        return getMovie(model, movieUUID, (Integer) movieYear);
+    }
+
+    // the node that has the movie is found by its uuid, no year needed
+    @RequestMapping(value = "movies/m/{movieUUID}", method = RequestMethod.GET)
+    public String getMovie(Model model, @PathVariable String movieUUID) {
+        return getMovie(model, movieUUID, (Integer) null);
+    }
+
+    private String getMovie(Model model, String movieUUID, Integer movieYear) {
         try {
-            Movie movie = distributedDBService.getMovieByUUID(movieUUID, movieYear);
+            Movie movie = movieYear != null ? distributedDBService.getMovieByUUID(movieUUID, movieYear) :
+                    distributedDBService.getMovieByUUID(movieUUID);
 
             if (movie != null) {
                 model.addAttribute("movie", movie);
                 this.movieUUID = movieUUID;
-                this.movieYear = movieYear;
+                this.movieYear = movie.getYear();
 
                 return "update_movie";
             } else {
@@ -103,12 +114,12 @@ public class UpdateMovieController {
     @ExceptionHandler(NullPointerException.class)
     public RedirectView handleNullPointerException (RedirectAttributes redirectAttrs) {
         redirectAttrs.addFlashAttribute("errorMsg", "Please fill up all required fields!");
-        return new RedirectView("/movies/m/" + this.movieUUID + "/" + this.movieYear);
+        return new RedirectView("/movies/m/" + this.movieUUID);
     }
 
     @ExceptionHandler(IllegalArgumentException.class)
     public RedirectView handleIllegalArgumentException (RedirectAttributes redirectAttrs) {
         redirectAttrs.addFlashAttribute("errorMsg", "Please fill up all required fields!");
-        return new RedirectView("/movies/m/" + this.movieUUID + "/" + this.movieYear);
+        return new RedirectView("/movies/m/" + this.movieUUID);
     }
 }
@@ -0,0 +1,72 @@
+package com.stadvdb.group22.mco2.model;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+// immutable snapshot of the distributed database status, every change creates a new snapshot with a higher epoch
+public final class ClusterState {
+
+    public static final ClusterState INITIAL = new ClusterState(0, EnumSet.noneOf(Node.class), true);
+
+    private final long epoch;
+    private final Set<Node> downNodes;
+    private final boolean resyncEnabled;
+
+    private ClusterState(long epoch, Set<Node> downNodes, boolean resyncEnabled) {
+        this.epoch = epoch;
+        this.downNodes = downNodes;
+        this.resyncEnabled = resyncEnabled;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    // node was down during a transaction and may have inconsistent data until it is re-synced
+    public boolean isDown(Node node) {
+        return downNodes.contains(node);
+    }
+
+    public boolean isAnyDown(Node... nodes) {
+        for (Node node : nodes) {
+            if (downNodes.contains(node)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isAllDown() {
+        return downNodes.size() == Node.values().length;
+    }
+
+    public boolean isResyncEnabled() {
+        return resyncEnabled;
+    }
+
+    public ClusterState withDown(Node node, boolean down) {
+        if (isDown(node) == down) {
+            return this;
+        }
+        EnumSet<Node> nodes = downNodes.isEmpty() ? EnumSet.noneOf(Node.class) : EnumSet.copyOf(downNodes);
+        if (down) {
+            nodes.add(node);
+        } else {
+            nodes.remove(node);
+        }
+        return new ClusterState(epoch + 1, nodes, resyncEnabled);
+    }
+
+    public ClusterState withAllUp() {
+        return downNodes.isEmpty() ? this : new ClusterState(epoch + 1, EnumSet.noneOf(Node.class), resyncEnabled);
+    }
+
+    public ClusterState withResyncEnabled(boolean resyncEnabled) {
+        return this.resyncEnabled == resyncEnabled ? this : new ClusterState(epoch + 1, downNodes, resyncEnabled);
+    }
+
+    @Override
+    public String toString () {
+        return "ClusterState(epoch=" + epoch + ", down=" + downNodes + ", resyncEnabled=" + resyncEnabled + ")";
+    }
+}
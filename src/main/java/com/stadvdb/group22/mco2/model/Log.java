@@ -10,6 +10,11 @@ public class Log {
     private String movieUuid;
     private Integer movieYear;
     private Timestamp ts;
+    // node that numbered the log, node of the years of the movie, and number of the log among the logs of that node
+    // for those years (dense, starting from 1)
+    private Node origin;
+    private Node shard;
+    private long lsn;
 
     public Log() {}
 
@@ -21,6 +26,13 @@ public class Log {
         this.ts = ts;
     }
 
+    public Log(String uuid, String op, String movieUuid, Integer movieYear, Timestamp ts, Node origin, Node shard, long lsn) {
+        this(uuid, op, movieUuid, movieYear, ts);
+        this.origin = origin;
+        this.shard = shard;
+        this.lsn = lsn;
+    }
+
     public Log(String uuid, String op, Timestamp timestamp) {
         this.uuid = uuid;
         this.op = op;
@@ -66,4 +78,28 @@ public class Log {
     public void setTs(Timestamp ts) {
         this.ts = ts;
     }
+
+    public Node getOrigin() {
+        return origin;
+    }
+
+    public void setOrigin(Node origin) {
+        this.origin = origin;
+    }
+
+    public Node getShard() {
+        return shard;
+    }
+
+    public void setShard(Node shard) {
+        this.shard = shard;
+    }
+
+    public long getLsn() {
+        return lsn;
+    }
+
+    public void setLsn(long lsn) {
+        this.lsn = lsn;
+    }
 }
@@ -0,0 +1,71 @@
+package com.stadvdb.group22.mco2.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// position of a movie in the (yr, uuid) ordering of the movie listing, used for seek pagination
+public final class MovieKey implements Comparable<MovieKey> {
+
+    private final int year;
+    private final String uuid;
+
+    public MovieKey(int year, String uuid) {
+        this.year = year;
+        this.uuid = uuid;
+    }
+
+    public static MovieKey of(Movie movie) {
+        return new MovieKey(movie.getYear(), movie.getUuid());
+    }
+
+    // decodes a continuation token, throws IllegalArgumentException if the token is invalid
+    public static MovieKey decode(String token) {
+        String key = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        int separator = key.indexOf(':');
+        if (separator <= 0 || separator == key.length() - 1) {
+            throw new IllegalArgumentException("Invalid continuation token: " + token);
+        }
+        return new MovieKey(Integer.parseInt(key.substring(0, separator)), key.substring(separator + 1));
+    }
+
+    // opaque continuation token to be given to the client
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString((year + ":" + uuid).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    public String getUuid() {
+        return uuid;
+    }
+
+    @Override
+    public int compareTo(MovieKey other) {
+        int result = Integer.compare(year, other.year);
+        return result != 0 ? result : uuid.compareTo(other.uuid);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof MovieKey)) {
+            return false;
+        }
+        MovieKey other = (MovieKey) o;
+        return year == other.year && uuid.equals(other.uuid);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * year + uuid.hashCode();
+    }
+
+    @Override
+    public String toString () {
+        return "(" + year + ", " + uuid + ")";
+    }
+}
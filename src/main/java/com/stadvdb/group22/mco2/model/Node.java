@@ -0,0 +1,23 @@
+package com.stadvdb.group22.mco2.model;
+
+public enum Node {
+
+    NODE1("node 1"),
+    NODE2("node 2"),
+    NODE3("node 3");
+
+    private final String label;
+
+    Node(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    @Override
+    public String toString () {
+        return this.label;
+    }
+}
@@ -0,0 +1,178 @@
+package com.stadvdb.group22.mco2.model;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// fields of a search, a movie matches if it matches every given field and its year is in the given range
+// (both ends inclusive, a missing end leaves the range open on that side)
+public class SearchCriteria {
+
+    private String title;
+    private String genre;
+    private String director;
+    private String actor;
+    private Integer yearFrom;
+    private Integer yearTo;
+
+    public SearchCriteria() {
+    }
+
+    // searches the title, genre, director and actor (actor1) of the movie, and its year if given
+    public static SearchCriteria of(Movie movie) {
+        SearchCriteria criteria = new SearchCriteria();
+        criteria.setTitle(movie.getTitle());
+        criteria.setGenre(movie.getGenre());
+        criteria.setDirector(movie.getDirector());
+        criteria.setActor(movie.getActor1());
+        criteria.setYearFrom(movie.getYear());
+        criteria.setYearTo(movie.getYear());
+        return criteria;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getGenre() {
+        return genre;
+    }
+
+    public void setGenre(String genre) {
+        this.genre = genre;
+    }
+
+    public String getDirector() {
+        return director;
+    }
+
+    public void setDirector(String director) {
+        this.director = director;
+    }
+
+    public String getActor() {
+        return actor;
+    }
+
+    public void setActor(String actor) {
+        this.actor = actor;
+    }
+
+    public Integer getYearFrom() {
+        return yearFrom;
+    }
+
+    public void setYearFrom(Integer yearFrom) {
+        this.yearFrom = yearFrom;
+    }
+
+    public Integer getYearTo() {
+        return yearTo;
+    }
+
+    public void setYearTo(Integer yearTo) {
+        this.yearTo = yearTo;
+    }
+
+    // narrows the range to the given years, null ends do not narrow it
+    public void narrowYears(Integer from, Integer to) {
+        if (from != null) {
+            yearFrom = yearFrom == null ? from : Math.max(yearFrom, from);
+        }
+        if (to != null) {
+            yearTo = yearTo == null ? to : Math.min(yearTo, to);
+        }
+    }
+
+    // narrows the range to the decade of the year, e.g. 1994 -> 1990 to 1999
+    public void narrowToDecade(int year) {
+        int start = year - Math.floorMod(year, 10);
+        narrowYears(start, start + 9);
+    }
+
+    // whether the range has a year in [from, to]
+    public boolean overlapsYears(int from, int to) {
+        return (yearFrom == null || yearFrom <= to) && (yearTo == null || yearTo >= from) && !hasNoYears();
+    }
+
+    // whether the range is empty, so nothing can match
+    public boolean hasNoYears() {
+        return yearFrom != null && yearTo != null && yearFrom > yearTo;
+    }
+
+    public boolean matchesYear(int year) {
+        return (yearFrom == null || year >= yearFrom) && (yearTo == null || year <= yearTo);
+    }
+
+    // words searched by a title, genre, director or actor value, both by the search index and by the full-text
+    // predicates of the nodes: a field matches if it has all the words, the last word ends with * if the value ends with
+    // a word followed by * and then matches any word starting with it, e.g. "Star Wa*" -> [star, wa*]
+    // empty if the value has no words (e.g. only punctuation), such a value is compared as a whole
+    public static List<String> searchWords(String value) {
+        List<String> words = new ArrayList<>();
+        if (value == null || value.trim().isEmpty()) {
+            return words;
+        }
+        boolean prefix = false;
+        for (String part : value.trim().split("\\s+")) {
+            List<String> tokens = words(part);
+            words.addAll(tokens);
+            prefix = part.endsWith("*") && !tokens.isEmpty();
+        }
+        if (prefix) {
+            words.set(words.size() - 1, words.get(words.size() - 1) + "*");
+        }
+        return words;
+    }
+
+    // lower case words of the value, without accents and punctuation
+    public static List<String> words(String value) {
+        List<String> words = new ArrayList<>();
+        if (value == null) {
+            return words;
+        }
+        String normalized = Normalizer.normalize(value, Normalizer.Form.NFD).replaceAll("\\p{M}", "").toLowerCase(Locale.ROOT);
+        for (String word : normalized.split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    // search fields in a fixed order, without the blank ones and with the text trimmed, so that the same search always
+    // gives the same parameters (and so the same URL and cache key)
+    public Map<String, Object> toQueryParams() {
+        Map<String, Object> params = new LinkedHashMap<>();
+        putText(params, "title", title);
+        putText(params, "genre", genre);
+        putText(params, "director", director);
+        putText(params, "actor", actor);
+        if (yearFrom != null) {
+            params.put("yearFrom", yearFrom);
+        }
+        if (yearTo != null) {
+            params.put("yearTo", yearTo);
+        }
+        return params;
+    }
+
+    private static void putText(Map<String, Object> params, String name, String value) {
+        if (value != null && !value.trim().isEmpty()) {
+            params.put(name, value.trim());
+        }
+    }
+
+    @Override
+    public String toString () {
+        return "SearchCriteria(title=" + title + ", genre=" + genre + ", director=" + director + ", actor=" + actor +
+                ", years=" + yearFrom + ".." + yearTo + ")";
+    }
+}
@@ -0,0 +1,67 @@
+package com.stadvdb.group22.mco2.repository;
+
+import com.stadvdb.group22.mco2.config.CacheConfig;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// totals of the paged queries (COUNT(*) and COUNT(DISTINCT ...) of the movies) by node and statement, so that a page
+// only needs the round trip of its own SELECT ... LIMIT
+// cleared by every write to the movies, and again once the write is committed, as a total read by another transaction
+// in between would not include the write
+@Component
+public class CountCache {
+
+    private final Map<String, Integer> counts = new HashMap<>();
+
+    // incremented by every clear, a total read before a clear is not stored after it
+    private long generation = 0;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public int count(String node, JdbcTemplate jdbc, String sql, Object... params) throws DataAccessException {
+        String key = node + ":" + sql + ":" + Arrays.toString(params);
+        long readGeneration;
+        synchronized (this) {
+            Integer count = counts.get(key);
+            if (count != null) {
+                hits.incrementAndGet();
+                return count;
+            }
+            readGeneration = generation;
+        }
+        misses.incrementAndGet();
+
+        Integer count = jdbc.queryForObject(sql, Integer.class, params);
+        int total = count == null ? 0 : count;
+        synchronized (this) {
+            if (generation == readGeneration && counts.size() < CacheConfig.COUNT_CACHE_MAX_SIZE) {
+                counts.put(key, total);
+            }
+        }
+        return total;
+    }
+
+    public synchronized void clear() {
+        generation++;
+        counts.clear();
+    }
+
+    public synchronized int size() {
+        return counts.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+}
@@ -1,13 +1,24 @@
 package com.stadvdb.group22.mco2.repository;
 
 import com.stadvdb.group22.mco2.model.Log;
+import com.stadvdb.group22.mco2.model.Node;
 
 import org.springframework.jdbc.core.RowMapper;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 
+// maps the columns by name, every log query selects LogRowMapper.COLUMNS
 public class LogRowMapper implements RowMapper<Log> {
 
+    // columns of a log
+    public static final String COLUMNS = "t_uuid, t_op, movie_uuid, movie_yr, ts, origin, shard, lsn";
+
+    // the mapper holds no state, so a single instance is shared by every query
+    public static final LogRowMapper INSTANCE = new LogRowMapper();
+
+    private LogRowMapper() {
+    }
+
     @Override
     public Log mapRow(ResultSet rs, int rowNum) throws SQLException {
         Log log = new Log();
@@ -16,6 +27,9 @@ public class LogRowMapper implements RowMapper<Log> {
         log.setMovieUuid(rs.getString("movie_uuid"));
         log.setMovieYear(rs.getInt("movie_yr"));
         log.setTs(rs.getTimestamp("ts"));
+        log.setOrigin(Node.valueOf(rs.getString("origin")));
+        log.setShard(Node.valueOf(rs.getString("shard")));
+        log.setLsn(rs.getLong("lsn"));
         return log;
     }
 
@@ -6,18 +6,28 @@ import org.springframework.jdbc.core.RowMapper;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 
+// maps the columns by position, so every query using this mapper must select exactly COLUMNS in this order
 public class MovieRowMapper implements RowMapper<Movie> {
 
+    // columns needed to render a movie (listing, search results, details), never use SELECT * with this mapper
+    public static final String COLUMNS = "title, yr, genre, director, actor1, actor2, uuid";
+
+    // the mapper holds no state, so a single instance is shared by every query
+    public static final MovieRowMapper INSTANCE = new MovieRowMapper();
+
+    private MovieRowMapper() {
+    }
+
     @Override
     public Movie mapRow(ResultSet rs, int rowNum) throws SQLException {
         Movie movie = new Movie();
-        movie.setTitle(rs.getString("title"));
-        movie.setYear(rs.getInt("yr"));
-        movie.setGenre(rs.getString("genre"));
-        movie.setDirector(rs.getString("director"));
-        movie.setActor1(rs.getString("actor1"));
-        movie.setActor2(rs.getString("actor2"));
-        movie.setUuid(rs.getString("uuid"));
+        movie.setTitle(rs.getString(1));
+        movie.setYear(rs.getInt(2));
+        movie.setGenre(rs.getString(3));
+        movie.setDirector(rs.getString(4));
+        movie.setActor1(rs.getString(5));
+        movie.setActor2(rs.getString(6));
+        movie.setUuid(rs.getString(7));
         return movie;
     }
 
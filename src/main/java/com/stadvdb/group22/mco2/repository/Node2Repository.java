@@ -3,14 +3,19 @@ package com.stadvdb.group22.mco2.repository;
 import com.stadvdb.group22.mco2.config.DBConfig;
 import com.stadvdb.group22.mco2.model.Log;
 import com.stadvdb.group22.mco2.model.Movie;
+import com.stadvdb.group22.mco2.model.MovieKey;
+import com.stadvdb.group22.mco2.model.Node;
 import com.stadvdb.group22.mco2.model.Report;
+import com.stadvdb.group22.mco2.model.SearchCriteria;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.JdbcUpdateAffectedIncorrectNumberOfRowsException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.PreparedStatementCallback;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.TransactionException;
@@ -19,6 +24,8 @@ import org.springframework.transaction.support.TransactionCallbackWithoutResult;
 import org.springframework.transaction.support.TransactionTemplate;
 
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 @Repository
@@ -29,6 +36,10 @@ public class Node2Repository {
     @Qualifier("node2Jdbc")
     private JdbcTemplate node2;
 
+    // totals of the paged queries
+    @Autowired
+    private CountCache countCache;
+
     public void tryConnection() throws SQLException {
         // try connection to database, if database is down then throw SQLException
         DriverManager.setLoginTimeout(DBConfig.LOGIN_TIME_OUT);
@@ -42,104 +53,151 @@ public class Node2Repository {
     }
 
     public Movie getMovieByUUID(String uuid) throws DataAccessException {
-        String sqlQuery = "SELECT * FROM movies WHERE uuid=?";
-        List<Movie> movies = node2.query (sqlQuery, new MovieRowMapper(), uuid);
+        String sqlQuery = "SELECT " + MovieRowMapper.COLUMNS + " FROM movies WHERE uuid=?";
+        List<Movie> movies = node2.query (sqlQuery, MovieRowMapper.INSTANCE, uuid);
         return movies.size () > 0 ? movies.get(0) : null;
     }
 
+    // returns the movies with the given uuids, in no particular order (missing movies are left out)
+    public List<Movie> getMoviesByUUIDs(List<String> uuids) throws DataAccessException {
+        if (uuids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String sqlQuery = "SELECT " + MovieRowMapper.COLUMNS + " FROM movies WHERE uuid IN (" + String.join(", ", Collections.nCopies(uuids.size(), "?")) + ")";
+        return node2.query (sqlQuery, MovieRowMapper.INSTANCE, uuids.toArray());
+    }
+
+    // streams every movie to the handler, without loading all movies into memory
+    public void scanMovies(RowCallbackHandler handler) throws DataAccessException {
+        node2.query("SELECT " + MovieRowMapper.COLUMNS + " FROM movies", handler);
+    }
+
+    // locks the movie until the end of the transaction, returns its latest committed data
+    public Movie getMovieByUUIDForUpdate(String uuid) throws DataAccessException {
+        String sqlQuery = "SELECT " + MovieRowMapper.COLUMNS + " FROM movies WHERE uuid=? FOR UPDATE";
+        List<Movie> movies = node2.query (sqlQuery, MovieRowMapper.INSTANCE, uuid);
+        return movies.size () > 0 ? movies.get(0) : null;
+    }
+
+    // streams the statistics columns (and uuid) of every movie to the handler, without loading all movies into memory
+    public void scanMovieLabels(RowCallbackHandler handler) throws DataAccessException {
+        node2.query("SELECT genre, director, actor1, yr, uuid FROM movies", handler);
+    }
+
     public Page<Movie> getMoviesByPage(Pageable pageable) throws DataAccessException {
-        int total = node2.queryForObject("SELECT COUNT(*) FROM movies", Integer.class);
-        String sqlQuery = "SELECT * FROM movies LIMIT " + pageable.getPageSize() + " OFFSET " + pageable.getOffset();
-        List<Movie> movies = node2.query(sqlQuery, new MovieRowMapper());
+        int total = countCache.count("node2", node2, "SELECT COUNT(*) FROM movies");
+        String sqlQuery = "SELECT " + MovieRowMapper.COLUMNS + " FROM movies ORDER BY yr, uuid LIMIT " + pageable.getPageSize() + " OFFSET " + pageable.getOffset();
+        List<Movie> movies = node2.query(sqlQuery, MovieRowMapper.INSTANCE);
         return new PageImpl<>(movies, pageable, total);
     }
 
+    // seek pagination, returns up to limit movies that come after the given movie (or from the start if null)
+    public List<Movie> getMoviesAfter(MovieKey after, int limit) throws DataAccessException {
+        if (after == null) {
+            return node2.query("SELECT " + MovieRowMapper.COLUMNS + " FROM movies ORDER BY yr, uuid LIMIT " + limit, MovieRowMapper.INSTANCE);
+        }
+        String sqlQuery = "SELECT " + MovieRowMapper.COLUMNS + " FROM movies WHERE yr > ? OR (yr = ? AND uuid > ?) ORDER BY yr, uuid LIMIT " + limit;
+        return node2.query(sqlQuery, MovieRowMapper.INSTANCE, after.getYear(), after.getYear(), after.getUuid());
+    }
+
     public List<Movie> getMovies() throws DataAccessException {
-        return node2.query("SELECT * FROM movies", new MovieRowMapper());
+        return node2.query("SELECT " + MovieRowMapper.COLUMNS + " FROM movies ORDER BY yr, uuid", MovieRowMapper.INSTANCE);
+    }
+
+    // returns a window of the movies in (yr, uuid) order, used when merging pages from node 2 and 3
+    public List<Movie> getMovies(long offset, int limit) throws DataAccessException {
+        return node2.query("SELECT " + MovieRowMapper.COLUMNS + " FROM movies ORDER BY yr, uuid LIMIT " + limit + " OFFSET " + offset, MovieRowMapper.INSTANCE);
+    }
+
+    // streams the uuid and year of every movie to the handler, without loading all movies into memory
+    public void scanMovieYears(RowCallbackHandler handler) throws DataAccessException {
+        node2.query("SELECT uuid, yr FROM movies", handler);
     }
 
     public int getNumOfMovies() throws DataAccessException {
-        return node2.queryForObject("SELECT COUNT(*) FROM movies", Integer.class);
-    }
-
-    public Page<Movie> searchMoviesByPage(Movie movie, Pageable pageable) throws DataAccessException {
-        StringBuilder sqlQuery = new StringBuilder();
-        sqlQuery.
-                append(" FROM movies WHERE ").
-                append("yr = COALESCE(" + movie.getYear() + ", yr) AND ").
-                append("title = COALESCE(" + movie.getTitle() + ", title) AND ").
-                append("genre = COALESCE(" + movie.getGenre() + ", genre) AND ").
-                append("((actor1 = COALESCE(" + movie.getActor1() +  ", actor1)) OR (actor2 = COALESCE(" + movie.getActor1() + ", actor2))) AND ").
-                append("director = COALESCE(" + movie.getDirector() + ", director)");
-        int total = node2.queryForObject("SELECT COUNT(*)" + sqlQuery.toString(), Integer.class);
-        List<Movie> movies = node2.query(
-                "SELECT *" + sqlQuery.toString() + " LIMIT " + pageable.getPageSize() + " OFFSET " + pageable.getOffset(),
-                new MovieRowMapper()
-        );
+        return countCache.count("node2", node2, "SELECT COUNT(*) FROM movies");
+    }
+
+    public Page<Movie> searchMoviesByPage(SearchCriteria criteria, Pageable pageable) throws DataAccessException {
+        SearchQuery query = SearchQuery.compile(criteria);
+        int total = countCache.count("node2", node2, query.getCountSql(), query.getCountParams());
+        List<Movie> movies = node2.query(query.getSelectSql(), MovieRowMapper.INSTANCE, query.getSelectParams(pageable));
         return new PageImpl<>(movies, pageable, total);
     }
 
+    public int countSearchMovies(SearchCriteria criteria) throws DataAccessException {
+        SearchQuery query = SearchQuery.compile(criteria);
+        return countCache.count("node2", node2, query.getCountSql(), query.getCountParams());
+    }
+
+    // matches at the given position of the (yr, uuid) ordering, for merging with the matches of the other fragment
+    public List<Movie> searchMovies(SearchCriteria criteria, long offset, int limit) throws DataAccessException {
+        SearchQuery query = SearchQuery.compile(criteria);
+        return node2.query(query.getSelectSql(), MovieRowMapper.INSTANCE, query.getSelectParams(offset, limit));
+    }
+
     public Page<Report> getMoviesPerGenreByPage(Pageable pageable) throws DataAccessException {
-        int total = node2.queryForObject("SELECT COUNT(DISTINCT genre) FROM movies", Integer.class);
+        int total = countCache.count("node2", node2, "SELECT COUNT(DISTINCT genre) FROM movies");
         String sqlQuery = "SELECT genre AS label, COUNT(*) AS count FROM movies GROUP BY genre LIMIT " + pageable.getPageSize() + " OFFSET " + pageable.getOffset();
-        List<Report> reports = node2.query(sqlQuery, new ReportRowMapper());
+        List<Report> reports = node2.query(sqlQuery, ReportRowMapper.INSTANCE);
         return new PageImpl<>(reports, pageable, total);
     }
 
     public List<Report> getMoviesPerGenre() throws DataAccessException {
-        return node2.query("SELECT genre AS label, COUNT(*) AS count FROM movies GROUP BY genre", new ReportRowMapper());
+        return node2.query("SELECT genre AS label, COUNT(*) AS count FROM movies GROUP BY genre", ReportRowMapper.INSTANCE);
     }
 
     public int getNumOfGenres() throws DataAccessException {
-        return node2.queryForObject("SELECT COUNT(DISTINCT genre) FROM movies", Integer.class);
+        return countCache.count("node2", node2, "SELECT COUNT(DISTINCT genre) FROM movies");
     }
 
     public Page<Report> getMoviesPerDirectorByPage(Pageable pageable) throws DataAccessException {
-        int total = node2.queryForObject("SELECT COUNT(DISTINCT director) FROM movies", Integer.class);
+        int total = countCache.count("node2", node2, "SELECT COUNT(DISTINCT director) FROM movies");
         String sqlQuery = "SELECT director AS label, COUNT(*) AS count FROM movies GROUP BY director LIMIT " + pageable.getPageSize() + " OFFSET " + pageable.getOffset();
-        List<Report> reports = node2.query(sqlQuery, new ReportRowMapper());
+        List<Report> reports = node2.query(sqlQuery, ReportRowMapper.INSTANCE);
         return new PageImpl<>(reports, pageable, total);
     }
 
     public List<Report> getMoviesPerDirector() throws DataAccessException {
-        return node2.query("SELECT director AS label, COUNT(*) AS count FROM movies GROUP BY director", new ReportRowMapper());
+        return node2.query("SELECT director AS label, COUNT(*) AS count FROM movies GROUP BY director", ReportRowMapper.INSTANCE);
     }
 
     public int getNumOfDirectors() throws DataAccessException {
-        return node2.queryForObject("SELECT COUNT(DISTINCT director) FROM movies", Integer.class);
+        return countCache.count("node2", node2, "SELECT COUNT(DISTINCT director) FROM movies");
     }
 
     public Page<Report> getMoviesPerActorByPage(Pageable pageable) throws DataAccessException {
-        int total = node2.queryForObject("SELECT COUNT(DISTINCT actor1) FROM movies", Integer.class);
+        int total = countCache.count("node2", node2, "SELECT COUNT(DISTINCT actor1) FROM movies");
         String sqlQuery = "SELECT actor1 AS label, COUNT(*) AS count FROM movies GROUP BY actor1 LIMIT " + pageable.getPageSize() + " OFFSET " + pageable.getOffset();
-        List<Report> reports = node2.query(sqlQuery, new ReportRowMapper());
+        List<Report> reports = node2.query(sqlQuery, ReportRowMapper.INSTANCE);
         return new PageImpl<>(reports, pageable, total);
     }
 
     public List<Report> getMoviesPerActor() throws DataAccessException {
-        return node2.query("SELECT actor1 AS label, COUNT(*) AS count FROM movies GROUP BY actor1", new ReportRowMapper());
+        return node2.query("SELECT actor1 AS label, COUNT(*) AS count FROM movies GROUP BY actor1", ReportRowMapper.INSTANCE);
     }
 
     public int getNumOfActors() throws DataAccessException {
-        return node2.queryForObject("SELECT COUNT(DISTINCT actor1) FROM movies", Integer.class);
+        return countCache.count("node2", node2, "SELECT COUNT(DISTINCT actor1) FROM movies");
     }
 
     public Page<Report> getMoviesPerYearByPage(Pageable pageable) throws DataAccessException {
-        int total = node2.queryForObject("SELECT COUNT(DISTINCT yr) FROM movies", Integer.class);
+        int total = countCache.count("node2", node2, "SELECT COUNT(DISTINCT yr) FROM movies");
         String sqlQuery = "SELECT yr AS label, COUNT(*) AS count FROM movies GROUP BY yr LIMIT " + pageable.getPageSize() + " OFFSET " + pageable.getOffset();
-        List<Report> reports = node2.query(sqlQuery, new ReportRowMapper());
+        List<Report> reports = node2.query(sqlQuery, ReportRowMapper.INSTANCE);
         return new PageImpl<>(reports, pageable, total);
     }
 
     public List<Report> getMoviesPerYear() throws DataAccessException {
-        return node2.query("SELECT yr AS label, COUNT(*) AS count FROM movies GROUP BY yr", new ReportRowMapper());
+        return node2.query("SELECT yr AS label, COUNT(*) AS count FROM movies GROUP BY yr", ReportRowMapper.INSTANCE);
     }
 
     public int getNumOfYears() throws DataAccessException {
-        return node2.queryForObject("SELECT COUNT(DISTINCT yr) FROM movies", Integer.class);
+        return countCache.count("node2", node2, "SELECT COUNT(DISTINCT yr) FROM movies");
     }
 
     public void addMovie(Movie movie) throws DataAccessException {
+        countCache.clear();
         String sqlQuery = "INSERT INTO movies (title, yr, genre, actor1, actor2, director, uuid) VALUES (?, ?, ?, ?, ?, ?, ?)";
         node2.execute(sqlQuery, new PreparedStatementCallback<Boolean>() {
             @Override
@@ -161,6 +219,7 @@ public class Node2Repository {
     }
 
     public void updateMovie(Movie movie) throws DataAccessException {
+        countCache.clear();
         String sqlQuery = "UPDATE movies SET title=?, yr=?, genre=?, actor1=?, actor2=?, director=? WHERE uuid=?";
         node2.execute(sqlQuery, new PreparedStatementCallback<Boolean>() {
             @Override
@@ -182,31 +241,100 @@ public class Node2Repository {
     }
 
     public void deleteMovie(Movie movie) throws DataAccessException {
+        deleteMovieByUUID(movie.getUuid());
+    }
+
+    // deletes by key only, so callers that only know the uuid (e.g. re-sync) do not need to read the movie first
+    public void deleteMovieByUUID(String uuid) throws DataAccessException {
+        countCache.clear();
         String sqlQuery = "DELETE FROM movies WHERE uuid=?";
-        node2.update(sqlQuery, movie.getUuid());
+        node2.update(sqlQuery, uuid);
+    }
+
+    // applies a batch of re-synced changes (after-images to write, uuids to delete and their logs, in order and all of
+    // one origin and shard) with one statement per kind of change, to be called inside a transaction so that the whole
+    // batch is applied or none of it
+    public void replayBatch(List<Movie> movies, List<String> deletedUuids, List<Log> logs) throws DataAccessException {
+        countCache.clear();
+        if (!movies.isEmpty()) {
+            // after-image of the source node, so the movie is written whether or not this node still has it
+            String sqlQuery = "INSERT INTO movies (title, yr, genre, actor1, actor2, director, uuid) VALUES (?, ?, ?, ?, ?, ?, ?) " +
+                    "ON DUPLICATE KEY UPDATE title=VALUES(title), yr=VALUES(yr), genre=VALUES(genre), actor1=VALUES(actor1), " +
+                    "actor2=VALUES(actor2), director=VALUES(director)";
+            List<Object[]> rows = new ArrayList<>(movies.size());
+            for (Movie movie : movies) {
+                String actor2 = movie.getActor2() == null || movie.getActor2().equalsIgnoreCase("") ? null : movie.getActor2();
+                rows.add(new Object[] {movie.getTitle(), movie.getYear(), movie.getGenre(), movie.getActor1(), actor2, movie.getDirector(), movie.getUuid()});
+            }
+            node2.batchUpdate(sqlQuery, rows);
+        }
+        if (!deletedUuids.isEmpty()) {
+            String sqlQuery = "DELETE FROM movies WHERE uuid IN (" + String.join(", ", Collections.nCopies(deletedUuids.size(), "?")) + ")";
+            node2.update(sqlQuery, deletedUuids.toArray());
+        }
+        if (!logs.isEmpty()) {
+            // logs of writes this node already took part in are kept as they are
+            List<Object[]> rows = new ArrayList<>(logs.size());
+            for (Log log : logs) {
+                rows.add(new Object[] {log.getUuid(), log.getOp(), log.getMovieUuid(), log.getMovieYear(), log.getTs(),
+                        log.getOrigin().name(), log.getShard().name(), log.getLsn()});
+            }
+            node2.batchUpdate("INSERT IGNORE INTO t_log(" + LogRowMapper.COLUMNS + ") VALUES (?,?,?,?,?,?,?,?)", rows);
+
+            // the logs are in order and follow the watermark, so the last one is the new watermark
+            Log last = logs.get(logs.size() - 1);
+            String sqlQuery = "UPDATE t_log_watermark SET applied_lsn=GREATEST(applied_lsn, ?) WHERE origin=? AND shard=?";
+            int updated = node2.update(sqlQuery, last.getLsn(), last.getOrigin().name(), last.getShard().name());
+            // without its watermark row the node would replay the same logs on every re-sync
+            if (updated != 1) {
+                throw new JdbcUpdateAffectedIncorrectNumberOfRowsException(sqlQuery, 1, updated);
+            }
+        }
     }
 
+    // adds the log of a write this node took part in, in the transaction of the write
+    // a log numbered by another node also moves this node's watermark for that node, unless this node missed an earlier
+    // log of it (the watermark then stays until re-sync ships the missed logs)
     public void addLog(Log log) {
-        String sqlQuery = "INSERT INTO t_log(t_uuid,t_op,movie_uuid,movie_yr,ts) VALUES (?,?,?,?,?)";
-        node2.update(sqlQuery, log.getUuid(), log.getOp(), log.getMovieUuid(), log.getMovieYear(), log.getTs());
+        String sqlQuery = "INSERT INTO t_log(" + LogRowMapper.COLUMNS + ") VALUES (?,?,?,?,?,?,?,?)";
+        node2.update(sqlQuery, log.getUuid(), log.getOp(), log.getMovieUuid(), log.getMovieYear(), log.getTs(),
+                log.getOrigin().name(), log.getShard().name(), log.getLsn());
+        if (log.getOrigin() != Node.NODE2) {
+            sqlQuery = "UPDATE t_log_watermark SET applied_lsn=? WHERE origin=? AND shard=? AND applied_lsn=?";
+            node2.update(sqlQuery, log.getLsn(), log.getOrigin().name(), log.getShard().name(), log.getLsn() - 1);
+        }
     }
 
-    public Log getRecentLog() {
-        List<Log> logs = node2.query("SELECT * FROM t_log ORDER BY ts DESC LIMIT 1", new LogRowMapper());
-        return logs.size() > 0 ? logs.get(0) : null;
+    // numbers the next log of this node for the years of the shard, to be called in the transaction of the write: the
+    // sequence row stays locked until the write commits or rolls back, so the numbers have no gaps
+    // throws if the node has no sequence row for the shard, as LAST_INSERT_ID() would then return the value left on the
+    // connection by an earlier statement
+    public long nextLsn(Node shard) throws DataAccessException {
+        String sqlQuery = "UPDATE t_log_sequence SET last_lsn=LAST_INSERT_ID(last_lsn + 1) WHERE shard=?";
+        int updated = node2.update(sqlQuery, shard.name());
+        if (updated != 1) {
+            throw new JdbcUpdateAffectedIncorrectNumberOfRowsException(sqlQuery, 1, updated);
+        }
+        return node2.queryForObject("SELECT LAST_INSERT_ID()", Long.class);
     }
 
-    public List<Log> getAllLogs() {
-        return node2.query("SELECT * FROM t_log", new LogRowMapper());
+    // number of the last log of this node for the years of the shard
+    // throws EmptyResultDataAccessException if the node has no sequence row for the shard
+    public long getLastLsn(Node shard) throws DataAccessException {
+        return node2.queryForObject("SELECT last_lsn FROM t_log_sequence WHERE shard=?", Long.class, shard.name());
     }
 
-    public List<Log> getLogs(Log log) {
-        return node2.query("SELECT * FROM t_log WHERE ts > ?", new LogRowMapper(), log.getTs());
+    // number of the last log of the origin for the years of the shard that this node has applied, with no gaps before it
+    // throws EmptyResultDataAccessException if the node has no watermark row for the origin and shard
+    public long getAppliedLsn(Node origin, Node shard) throws DataAccessException {
+        String sqlQuery = "SELECT applied_lsn FROM t_log_watermark WHERE origin=? AND shard=?";
+        return node2.queryForObject(sqlQuery, Long.class, origin.name(), shard.name());
     }
 
-    public int getLogsCount() {
-        Integer count = node2.queryForObject("SELECT COUNT(*) FROM t_log", Integer.class);
-        return count == null ? 0 : count;
+    // next logs of the origin for the years of the shard after the given number, in order (a range scan of the log index)
+    public List<Log> getLogsAfter(Node origin, Node shard, long lsn, int limit) throws DataAccessException {
+        String sqlQuery = "SELECT " + LogRowMapper.COLUMNS + " FROM t_log WHERE origin=? AND shard=? AND lsn > ? ORDER BY lsn LIMIT " + limit;
+        return node2.query(sqlQuery, LogRowMapper.INSTANCE, origin.name(), shard.name(), lsn);
     }
 
     public void deleteLogs() {
@@ -1,19 +1,25 @@
 package com.stadvdb.group22.mco2.repository;
 
-import com.stadvdb.group22.mco2.model.Movie;
 import com.stadvdb.group22.mco2.model.Report;
 import org.springframework.jdbc.core.RowMapper;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
 
+// maps the columns by position, every statistics query selects "<column> AS label, COUNT(*) AS count" in this order
 public class ReportRowMapper implements RowMapper<Report> {
 
+    // the mapper holds no state, so a single instance is shared by every query
+    public static final ReportRowMapper INSTANCE = new ReportRowMapper();
+
+    private ReportRowMapper() {
+    }
+
     @Override
     public Report mapRow(ResultSet rs, int rowNum) throws SQLException {
         Report report = new Report();
-        report.setLabel(rs.getString("label"));
-        report.setCount(rs.getInt("count"));
+        report.setLabel(rs.getString(1));
+        report.setCount(rs.getInt(2));
         return report;
     }
 
@@ -0,0 +1,155 @@
+package com.stadvdb.group22.mco2.repository;
+
+import com.stadvdb.group22.mco2.model.SearchCriteria;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// compiles the fields of a search into a parameterized query with a predicate for each given field only
+// the SQL of each combination of fields is built once and reused, so the prepared statements can be cached, and every
+// predicate is answered by an index (see db/indexes.sql) so that MySQL can look up the matches instead of scanning the
+// whole table:
+// - a value with words searches its words, as the search index does (see SearchCriteria.searchWords), with a full-text
+//   predicate (MATCH ... AGAINST in boolean mode, every word required)
+// - a value without words (e.g. only punctuation) is compared as a whole, with an equality
+public final class SearchQuery {
+
+    // predicates, in the order they appear in the WHERE clause (most selective index first)
+    private static final int TITLE = 1;
+    private static final int TITLE_WORDS = 1 << 1;
+    private static final int DIRECTOR = 1 << 2;
+    private static final int DIRECTOR_WORDS = 1 << 3;
+    private static final int ACTOR = 1 << 4;
+    private static final int ACTOR_WORDS = 1 << 5;
+    private static final int GENRE = 1 << 6;
+    private static final int GENRE_WORDS = 1 << 7;
+    private static final int YEAR_FROM = 1 << 8;
+    private static final int YEAR_TO = 1 << 9;
+
+    // statement shapes by combination of predicates
+    private static final String[] COUNT_SQL = new String[1 << 10];
+    private static final String[] SELECT_SQL = new String[1 << 10];
+
+    static {
+        for (int predicates = 0; predicates < COUNT_SQL.length; predicates++) {
+            String where = where(predicates);
+            COUNT_SQL[predicates] = "SELECT COUNT(*) FROM movies" + where;
+            SELECT_SQL[predicates] = "SELECT " + MovieRowMapper.COLUMNS + " FROM movies" + where + " ORDER BY yr, uuid LIMIT ? OFFSET ?";
+        }
+    }
+
+    private final int predicates;
+    private final Object[] params;
+
+    private SearchQuery(int predicates, Object[] params) {
+        this.predicates = predicates;
+        this.params = params;
+    }
+
+    // fields that are null or blank are not searched
+    public static SearchQuery compile(SearchCriteria criteria) {
+        int predicates = 0;
+        List<Object> params = new ArrayList<>();
+        predicates |= text(criteria.getTitle(), TITLE, TITLE_WORDS, params);
+        predicates |= text(criteria.getDirector(), DIRECTOR, DIRECTOR_WORDS, params);
+        int actor = text(criteria.getActor(), ACTOR, ACTOR_WORDS, params);
+        if (actor == ACTOR) {
+            // compared with both actor1 and actor2
+            params.add(criteria.getActor().trim());
+        }
+        predicates |= actor;
+        predicates |= text(criteria.getGenre(), GENRE, GENRE_WORDS, params);
+        if (criteria.getYearFrom() != null) {
+            predicates |= YEAR_FROM;
+            params.add(criteria.getYearFrom());
+        }
+        if (criteria.getYearTo() != null) {
+            predicates |= YEAR_TO;
+            params.add(criteria.getYearTo());
+        }
+        return new SearchQuery(predicates, params.toArray());
+    }
+
+    // adds the parameter of a searched text field and returns its predicate, none if the field is blank
+    // the words are all required (+), and only have letters and digits, so they cannot be read as other operators
+    private static int text(String value, int wholeValue, int words, List<Object> params) {
+        if (isBlank(value)) {
+            return 0;
+        }
+        List<String> searchWords = SearchCriteria.searchWords(value);
+        if (searchWords.isEmpty()) {
+            params.add(value.trim());
+            return wholeValue;
+        }
+        params.add("+" + String.join(" +", searchWords));
+        return words;
+    }
+
+    public String getCountSql() {
+        return COUNT_SQL[predicates];
+    }
+
+    public Object[] getCountParams() {
+        return params.clone();
+    }
+
+    public String getSelectSql() {
+        return SELECT_SQL[predicates];
+    }
+
+    public Object[] getSelectParams(Pageable pageable) {
+        return getSelectParams(pageable.getOffset(), pageable.getPageSize());
+    }
+
+    public Object[] getSelectParams(long offset, int limit) {
+        Object[] selectParams = Arrays.copyOf(params, params.length + 2);
+        selectParams[params.length] = limit;
+        selectParams[params.length + 1] = offset;
+        return selectParams;
+    }
+
+    private static String where(int predicates) {
+        List<String> conditions = new ArrayList<>();
+        if ((predicates & TITLE) != 0) {
+            conditions.add("title = ?");
+        } else if ((predicates & TITLE_WORDS) != 0) {
+            conditions.add("MATCH(title) AGAINST (? IN BOOLEAN MODE)");
+        }
+        if ((predicates & DIRECTOR) != 0) {
+            conditions.add("director = ?");
+        } else if ((predicates & DIRECTOR_WORDS) != 0) {
+            conditions.add("MATCH(director) AGAINST (? IN BOOLEAN MODE)");
+        }
+        if ((predicates & ACTOR) != 0) {
+            // index merge of the actor1 and actor2 indexes
+            conditions.add("(actor1 = ? OR actor2 = ?)");
+        } else if ((predicates & ACTOR_WORDS) != 0) {
+            // the words of both actors, as the search index has them in one field
+            conditions.add("MATCH(actor1, actor2) AGAINST (? IN BOOLEAN MODE)");
+        }
+        if ((predicates & GENRE) != 0) {
+            conditions.add("genre = ?");
+        } else if ((predicates & GENRE_WORDS) != 0) {
+            conditions.add("MATCH(genre) AGAINST (? IN BOOLEAN MODE)");
+        }
+        if ((predicates & YEAR_FROM) != 0 && (predicates & YEAR_TO) != 0) {
+            conditions.add("yr BETWEEN ? AND ?");
+        } else if ((predicates & YEAR_FROM) != 0) {
+            conditions.add("yr >= ?");
+        } else if ((predicates & YEAR_TO) != 0) {
+            conditions.add("yr <= ?");
+        }
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    @Override
+    public String toString () {
+        return getSelectSql() + " " + Arrays.toString(params);
+    }
+}
@@ -0,0 +1,19 @@
+package com.stadvdb.group22.mco2.service;
+
+import com.stadvdb.group22.mco2.model.Movie;
+
+// notified after a movie was written to at least one node, and after a re-sync, on the thread that made the change
+public interface CatalogListener {
+
+    default void onInsert(Movie movie) {}
+
+    // previous is the data of the movie before the update
+    default void onUpdate(Movie previous, Movie movie) {}
+
+    // movie is the data of the movie before it was deleted
+    default void onDelete(Movie movie) {}
+
+    // any movie may have changed (e.g. after a re-sync), anything derived from the movies should be rebuilt
+    default void onReload() {}
+
+}
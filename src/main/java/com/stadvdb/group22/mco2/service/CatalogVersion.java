@@ -0,0 +1,77 @@
+package com.stadvdb.group22.mco2.service;
+
+import com.stadvdb.group22.mco2.model.Movie;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+// version of the movies, incremented after every committed write and re-sync
+// results computed from the movies are tagged with the version read before computing them, and are stale once it changed
+@Component
+public class CatalogVersion implements CatalogListener {
+
+    // versions restart from 0 with the application, the boot id tells the versions of different runs apart
+    private final String bootId = UUID.randomUUID().toString().substring(0, 8);
+
+    private final AtomicReference<Stamp> stamp = new AtomicReference<>(new Stamp(0, System.currentTimeMillis()));
+
+    public long current() {
+        return stamp.get().version;
+    }
+
+    // version and time of the last change, read together
+    public Stamp stamp() {
+        return stamp.get();
+    }
+
+    public String getBootId() {
+        return bootId;
+    }
+
+    @Override
+    public void onInsert(Movie movie) {
+        advance();
+    }
+
+    @Override
+    public void onUpdate(Movie previous, Movie movie) {
+        advance();
+    }
+
+    @Override
+    public void onDelete(Movie movie) {
+        advance();
+    }
+
+    @Override
+    public void onReload() {
+        advance();
+    }
+
+    private void advance() {
+        // every change gets a later second than the previous one, as HTTP dates only have seconds
+        stamp.updateAndGet(previous -> new Stamp(previous.version + 1,
+                Math.max(System.currentTimeMillis(), previous.lastModified - previous.lastModified % 1000 + 1000)));
+    }
+
+    public static final class Stamp {
+
+        private final long version;
+        private final long lastModified;
+
+        private Stamp(long version, long lastModified) {
+            this.version = version;
+            this.lastModified = lastModified;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        // in milliseconds since the epoch
+        public long getLastModified() {
+            return lastModified;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.stadvdb.group22.mco2.service;
+
+import com.stadvdb.group22.mco2.model.ClusterState;
+
+// notified after every cluster state transition, on the thread that made the change (implementations should not block)
+public interface ClusterStateListener {
+
+    void onTransition(ClusterState previous, ClusterState current);
+
+}
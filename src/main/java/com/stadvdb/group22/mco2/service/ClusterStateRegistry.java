@@ -0,0 +1,65 @@
+package com.stadvdb.group22.mco2.service;
+
+import com.stadvdb.group22.mco2.model.ClusterState;
+import com.stadvdb.group22.mco2.model.Node;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+// holds the current cluster state, shared by the request threads and the re-sync thread
+// reads are lock-free, changes are applied by swapping in a new immutable snapshot (compare-and-set)
+@Component
+public class ClusterStateRegistry {
+
+    private final AtomicReference<ClusterState> state = new AtomicReference<>(ClusterState.INITIAL);
+    private final List<ClusterStateListener> listeners = new CopyOnWriteArrayList<>();
+
+    public ClusterState current() {
+        return state.get();
+    }
+
+    public void addListener(ClusterStateListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(ClusterStateListener listener) {
+        listeners.remove(listener);
+    }
+
+    // applies the change to the latest snapshot, retrying if another thread changed the state in between
+    public ClusterState update(UnaryOperator<ClusterState> change) {
+        ClusterState previous;
+        ClusterState next;
+        do {
+            previous = state.get();
+            next = change.apply(previous);
+        } while (next != previous && !state.compareAndSet(previous, next));
+
+        if (next != previous) {
+            for (ClusterStateListener listener : listeners) {
+                listener.onTransition(previous, next);
+            }
+        }
+        return next;
+    }
+
+    public void markDown(Node node) {
+        update(state -> state.withDown(node, true));
+    }
+
+    // indicate that the node is down and needs to be re-synced once it is back online
+    public void markDownForResync(Node node) {
+        update(state -> state.withDown(node, true).withResyncEnabled(true));
+    }
+
+    public void markUp(Node node) {
+        update(state -> state.withDown(node, false));
+    }
+
+    public void setResyncEnabled(boolean resyncEnabled) {
+        update(state -> state.withResyncEnabled(resyncEnabled));
+    }
+}
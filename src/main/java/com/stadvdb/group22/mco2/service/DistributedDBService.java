@@ -1,20 +1,27 @@
 package com.stadvdb.group22.mco2.service;
 
 import com.stadvdb.group22.mco2.config.DBConfig;
-import com.stadvdb.group22.mco2.exception.ServerMaintenanceException;
 import com.stadvdb.group22.mco2.exception.TransactionErrorException;
+import com.stadvdb.group22.mco2.model.ClusterState;
 import com.stadvdb.group22.mco2.model.Log;
 import com.stadvdb.group22.mco2.model.Movie;
+import com.stadvdb.group22.mco2.model.MovieKey;
+import com.stadvdb.group22.mco2.model.Node;
 import com.stadvdb.group22.mco2.model.Report;
+import com.stadvdb.group22.mco2.model.SearchCriteria;
+import com.stadvdb.group22.mco2.repository.CountCache;
 import com.stadvdb.group22.mco2.repository.Node1Repository;
 import com.stadvdb.group22.mco2.repository.Node2Repository;
 import com.stadvdb.group22.mco2.repository.Node3Repository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.jdbc.datasource.DataSourceTransactionManager;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
@@ -24,11 +31,19 @@ import org.springframework.transaction.support.DefaultTransactionDefinition;
 import java.sql.SQLException;
 import java.sql.Savepoint;
 import java.sql.Timestamp;
+import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.function.IntSupplier;
 
 @Service
 public class DistributedDBService {
@@ -46,6 +61,10 @@ public class DistributedDBService {
     @Qualifier("node3TxManager")
     private DataSourceTransactionManager node3TxManager;
 
+    // NODE HEALTH MONITOR
+    @Autowired
+    private NodeHealthMonitor healthMonitor;
+
     // NODE REPOSITORIES
     @Autowired
     private Node1Repository node1Repo;
@@ -63,30 +82,69 @@ public class DistributedDBService {
     private final int ERROR = 3;
     private final int COMMIT_ERROR = 4;
 
-    // distributed database re-sync switch
+    // distributed database status (node statuses and re-sync switch)
+    @Autowired
+    private ClusterStateRegistry clusterState;
+
+    // runs the node 2 and node 3 queries of a fallback read at the same time
+    @Autowired
+    private ScatterGatherExecutor scatterGather;
+
+    // year (and so node) of every movie
+    @Autowired
+    private FragmentRoutingIndex routingIndex;
+
+    // notified of every movie change
+    @Autowired
+    private List<CatalogListener> catalogListeners;
+
+    // words of the title, actors, director and genre of every movie
+    @Autowired
+    private SearchIndex searchIndex;
+
+    // recently read movies
+    @Autowired
+    private MovieCache movieCache;
+
+    // computed pages of the statistics
+    @Autowired
+    private StatisticsCache statisticsCache;
+
+    // totals of the paged queries of the nodes
+    @Autowired
+    private CountCache countCache;
+
+    // shares the reads of identical requests made at the same time
+    @Autowired
+    private RequestCoalescer coalescer;
+
+    // version of the movies, part of the keys of the shared reads
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    // computed pages of the search results
+    @Autowired
+    private SearchResultCache searchResultCache;
+
+    // number of movies per genre, director, actor and year
     @Autowired
-    @Qualifier("resyncEnabled")
-    private Boolean resyncEnabled;
+    private StatisticsCounters statisticsCounters;
 
-    // distributed database maintenance status (if in maintenance or not)
+    // starting points of the pages of the movie listing
     @Autowired
-    @Qualifier("maintenance")
-    private Boolean maintenance;
+    private PageBoundaryIndex pageBoundaries;
 
-    // node 1 status (if down or not)
+    // replays the logs missed by a node during re-sync
     @Autowired
-    @Qualifier("node1Down")
-    private Boolean node1Down;
+    private LogReplayer logReplayer;
 
-    // node 2 status (if down or not)
+    // holds back the writes to a node during the final catch-up of its re-sync
     @Autowired
-    @Qualifier("node2Down")
-    private Boolean node2Down;
+    private WriteFence writeFence;
 
-    // node 3 status (if down or not)
+    // runs the recovery of the nodes, node 2 and node 3 at the same time
     @Autowired
-    @Qualifier("node3Down")
-    private Boolean node3Down;
+    private RecoveryCoordinator recoveryCoordinator;
 
     // temporary (not used), might be removed
     @Autowired
@@ -100,29 +158,51 @@ public class DistributedDBService {
         return definition;
     }
 
+    // the year is only needed to find the node of a movie that is not (yet) in the routing index
     public Movie getMovieByUUID (String uuid, int year) throws Exception {
-        // if at maintenance, cancel operation and inform user
-        if (maintenance) {
-            throw new ServerMaintenanceException("Server in maintenance...");
+        Node fragment = routingIndex.route(uuid);
+        return getMovie(uuid, fragment != null ? fragment : FragmentRoutingIndex.fragmentOf(year));
+    }
+
+    // reads the movie from the node given by the routing index, or from node 1 if the movie is not in the index
+    public Movie getMovieByUUID (String uuid) throws Exception {
+        return getMovie(uuid, routingIndex.route(uuid));
+    }
+
+    private Movie getMovie (String uuid, Node fragment) throws Exception {
+        Movie cached = movieCache.get(uuid);
+        if (cached != null) {
+            System.out.println("getMovieByUUID - Retrieved data of movie with ID " + uuid + " from cache...");
+            return cached;
+        }
+
+        // only cache the movie if it was not changed while it was being read
+        long stamp = movieCache.stamp();
+        Movie movie = readMovieByUUID(uuid, fragment);
+        if (movie != null) {
+            movieCache.putIfFresh(movie, stamp);
         }
+        return movie;
+    }
 
+    private Movie readMovieByUUID (String uuid, Node fragment) throws Exception {
         // disable distributed db re-sync before performing operation
-        resyncEnabled = false;
+        clusterState.setResyncEnabled(false);
 
         // initialize transaction definition
         DefaultTransactionDefinition definition = initTransactionDef();
 
         Movie movie = null;
-        // retrieve data from node 2 or 3 depending on year of movie, and node 2 or 3 is not down
-        if (year < 1980) {
+        // retrieve data from the node (2 or 3) that has the movie if known, and node 2 or 3 is not down
+        if (fragment == Node.NODE2) {
             TransactionStatus status = node2TxManager.getTransaction(definition);
             // try connection to node 2
             try {
-                if (node2Down) {
+                if (clusterState.current().isDown(Node.NODE2)) {
                     throw new SQLException ();
                 }
-                node2Repo.tryConnection();
-                System.out.println("getMovieByUUID - Reading and retrieving data of movie with ID " + uuid + " and year " + year + " from node 2...");
+                healthMonitor.checkAvailable(Node.NODE2);
+                System.out.println("getMovieByUUID - Reading and retrieving data of movie with ID " + uuid + " from node 2...");
                 movie = node2Repo.getMovieByUUID(uuid);
 
                 // TODO: [CONCURRENCY CONTROL CASE #2 - NON-REPEATABLE READ]
@@ -137,36 +217,40 @@ public class DistributedDBService {
                 node2TxManager.commit(status);
                 System.out.println("getMovieByUUID - Retrieved data from node 2 successfully...");
                 return movie;
-            } catch (SQLException e) {
+            } catch (SQLException | DataAccessResourceFailureException e) {
                 // node 2 is currently down
                 node2TxManager.rollback(status);
-                node2Down = true; // indicate to server that node 2 is down, to perform re-sync once it is back online
+                healthMonitor.reportFailure(Node.NODE2, e);
+                clusterState.markDown(Node.NODE2); // indicate to server that node 2 is down, to perform re-sync once it is back online
                 System.out.println("getMovieByUUID - Node 2 is currently down...");
             } catch (DataAccessException e) {
                 // error occurred during read query
                 node2TxManager.rollback(status);
+                healthMonitor.reportFailure(Node.NODE2, e);
                 System.out.println("getMovieByUUID - Unexpected error occurred in node 2 during query...");
             }
-        } else if (year >= 1980) {
+        } else if (fragment == Node.NODE3) {
             TransactionStatus status = node3TxManager.getTransaction(definition);
             // try connection to node 3
             try {
-                if (node3Down) {
+                if (clusterState.current().isDown(Node.NODE3)) {
                     throw new SQLException ();
                 }
-                node3Repo.tryConnection();
-                System.out.println("getMovieByUUID - Reading and retrieving data of movie with ID " + uuid + " and year " + year + " from node 3...");
+                healthMonitor.checkAvailable(Node.NODE3);
+                System.out.println("getMovieByUUID - Reading and retrieving data of movie with ID " + uuid + " from node 3...");
                 movie = node3Repo.getMovieByUUID(uuid);
                 node3TxManager.commit(status);
                 System.out.println("getMovieByUUID - Retrieved data from node 3 successfully...");
                 return movie;
-            } catch (SQLException e) {
+            } catch (SQLException | DataAccessResourceFailureException e) {
                 // node 3 is currently down
                 node3TxManager.rollback(status);
-                node3Down = true;
+                healthMonitor.reportFailure(Node.NODE3, e);
+                clusterState.markDown(Node.NODE3);
                 System.out.println("getMovieByUUID - Node 3 is currently down...");
             } catch (DataAccessException e) {
                 node3TxManager.rollback(status);
+                healthMonitor.reportFailure(Node.NODE3, e);
                 System.out.println("getMovieByUUID - Unexpected error occurred in node 3 during query...");
             }
         }
@@ -175,40 +259,42 @@ public class DistributedDBService {
         TransactionStatus status = node1TxManager.getTransaction(definition);
         try {
             // if node 1 was down before, do not retrieve data as it may have inconsistent data
-            if (node1Down) {
+            if (clusterState.current().isDown(Node.NODE1)) {
                 throw new SQLException();
             }
-            node1Repo.tryConnection();
-            System.out.println("getMovieByUUID - Reading and retrieving data of movie with ID " + uuid + " and year " + year + " from node 1...");
+            healthMonitor.checkAvailable(Node.NODE1);
+            System.out.println("getMovieByUUID - Reading and retrieving data of movie with ID " + uuid + " from node 1...");
             movie = node1Repo.getMovieByUUID(uuid);
             node1TxManager.commit(status);
             System.out.println("getMovieByUUID - Retrieved data from node 1 successfully...");
-            if (node2Down || node3Down) { // if node 2 or 3 down, enable db re-sync
-                resyncEnabled = true;
+            if (clusterState.current().isAnyDown(Node.NODE2, Node.NODE3)) { // if node 2 or 3 down, enable db re-sync
+                clusterState.setResyncEnabled(true);
             }
             return movie;
-        } catch (SQLException e) {
+        } catch (SQLException | DataAccessResourceFailureException e) {
             // node 1 is currently down
             node1TxManager.rollback(status);
-            node1Down = true;
-            resyncEnabled = true;
+            healthMonitor.reportFailure(Node.NODE1, e);
+            clusterState.markDownForResync(Node.NODE1);
             System.out.println("getMovieByUUID - Node 1 is currently down. Can't retrieve data, throwing exception...");
             throw new Exception ();
         } catch (DataAccessException e) {
             // error also occurred in retrieving data from node 1, can't retrieve data
             node1TxManager.rollback(status);
+            healthMonitor.reportFailure(Node.NODE1, e);
             System.out.println("getMovieByUUID - Unexpected error occurred in node 1 during query, throwing exception...");
             throw new TransactionErrorException ();
         }
     }
 
     public Page<Movie> getMoviesByPage(int page, int size) throws Exception {
-        if (maintenance) {
-            throw new ServerMaintenanceException("Server in maintenance...");
-        }
+        // identical requests at the same time share one read
+        return coalescer.execute("movies:" + page + ":" + size + "@" + catalogVersion.current(), () -> readMoviesByPage(page, size));
+    }
 
+    private Page<Movie> readMoviesByPage(int page, int size) throws Exception {
         // disable resync db
-        resyncEnabled = false;
+        clusterState.setResyncEnabled(false);
 
         // transaction definition
         DefaultTransactionDefinition definition = initTransactionDef();
@@ -216,189 +302,492 @@ public class DistributedDBService {
         // try connection to node 1 (central node)
         TransactionStatus status = node1TxManager.getTransaction(definition);
         try {
-            if (node1Down) {
+            if (clusterState.current().isDown(Node.NODE1)) {
                 throw new SQLException();
             }
             Page<Movie> movies = null;
-            node1Repo.tryConnection();
+            healthMonitor.checkAvailable(Node.NODE1);
             System.out.println("getMoviesByPage - Reading and retrieving data from node 1...");
-            movies = node1Repo.getMoviesByPage(PageRequest.of(page, size));
+            long boundaryGeneration = pageBoundaries.generation();
+            // seek from the nearest page whose starting point is already known instead of skipping all previous pages
+            Map.Entry<Integer, MovieKey> boundary = pageBoundaries.floor(size, page);
+            if (boundary == null) {
+                movies = node1Repo.getMoviesByPage(PageRequest.of(page, size));
+            } else {
+                movies = node1Repo.getMoviesByPage(boundary.getValue(), (page - boundary.getKey()) * size, PageRequest.of(page, size));
+            }
             node1TxManager.commit(status);
             System.out.println("getMoviesByPage - Retrieved data from node 1 successfully...");
+            recordNextPageBoundary(boundaryGeneration, movies);
             return movies;
-        } catch (SQLException e) {
+        } catch (SQLException | DataAccessResourceFailureException e) {
             // node 1 is currently down
             node1TxManager.rollback(status);
-            node1Down = true;
+            healthMonitor.reportFailure(Node.NODE1, e);
+            clusterState.markDown(Node.NODE1);
             System.out.println("getMoviesByPage - Node 1 is currently down...");
         } catch (DataAccessException e) {
             node1TxManager.rollback(status);
+            healthMonitor.reportFailure(Node.NODE1, e);
             System.out.println("getMoviesByPage - Unexpected error occurred in node 1 during query...");
         }
 
         // try connection to both node 2 and 3, if at least one is down then cannot perform data retrieval process and throw exception
         // both node 2 and 3 needs to be available to combine and replicate node 1 database for this specific query
-        TransactionStatus node2Status = node2TxManager.getTransaction(definition);
-        TransactionStatus node3Status = node3TxManager.getTransaction(definition);
         try {
             // if node 2 or 3 down from previous transactions, dont retrieve data as at least one node may contain inconsistent data
-            if (node2Down || node3Down) {
+            if (clusterState.current().isAnyDown(Node.NODE2, Node.NODE3)) {
                 throw new SQLException ();
             }
-            // try connection to both node 2 and 3
-            node2Repo.tryConnection();
-            node3Repo.tryConnection();
-            // both nodes are available, perform data retrieval process
-            int total = 0;
-            List<Movie> movies = null;
-            System.out.println("getMoviesByPage - Reading and retrieving data from node 2...");
-            total += node2Repo.getNumOfMovies();
-            movies = node2Repo.getMovies();
-            System.out.println("getMoviesByPage - Reading and retrieving data from node 3...");
-            total += node3Repo.getNumOfMovies();
-            movies.addAll(node3Repo.getMovies());
-            // get specific movies for page according to page number and size
-            List<Movie> moviesPage = new ArrayList<>();
-            for (int i = page * size; i < page * size + size; i++) {
-                moviesPage.add(movies.get(i));
-            }
-            node3TxManager.commit(node3Status);
-            node2TxManager.commit(node2Status);
-            System.out.println("getMoviesByPage - Retrieved data from node 2 successfully...");
-            System.out.println("getMoviesByPage - Retrieved data from node 3 successfully...");
-            if (node1Down) {
-                resyncEnabled = true;
+            // both nodes are available, read the movies of both nodes at the same time
+            System.out.println("getMoviesByPage - Reading and retrieving data from nodes 2 & 3...");
+            Page<Movie> movies = readFragmentPage(page, size, node2Repo::getNumOfMovies, node2Repo::getMovies,
+                    node3Repo::getNumOfMovies, node3Repo::getMovies);
+            if (clusterState.current().isDown(Node.NODE1)) {
+                clusterState.setResyncEnabled(true);
             }
             System.out.println("getMoviesByPage - Merged data from nodes 2 & 3 successfully...");
-            return new PageImpl<>(moviesPage, PageRequest.of(page, size), total);
-        } catch (SQLException e) {
-            // node 2 or 3 is down, cannot perform data retrieval so throw exception
-            node3TxManager.rollback(node3Status);
-            node2TxManager.rollback(node2Status);
-            try {
-                node2Repo.tryConnection();
-            } catch (Exception exception) {
-                node2Down = true;
+            return movies;
+        } catch (SQLException | DataAccessResourceFailureException e) {
+            // node 2 or 3 is down (or did not respond in time), cannot perform data retrieval so throw exception
+            if (!healthMonitor.isAvailable(Node.NODE2)) {
+                clusterState.markDown(Node.NODE2);
             }
-            try {
-                node3Repo.tryConnection();
-            } catch (Exception exception) {
-                node3Down = true;
+            if (!healthMonitor.isAvailable(Node.NODE3)) {
+                clusterState.markDown(Node.NODE3);
             }
-            resyncEnabled = true;
+            clusterState.setResyncEnabled(true);
             System.out.println("getMoviesByPage - Node 2 or 3 is currently down. Cannot retrieve data, exception thrown...");
             throw new Exception ();
         } catch (DataAccessException e) {
             // error occurred during read query in node 2 or 3, cannot retrieve data
-            node3TxManager.rollback(node3Status);
-            node2TxManager.rollback(node2Status);
             System.out.println("getMoviesByPage - Unexpected error occurred in node 2 or 3 during query, exception thrown...");
             throw new TransactionErrorException ();
         }
     }
 
-    public Page<Movie> searchMoviesByPage(Movie movie, int page, int size) throws Exception {
-        if (maintenance) {
-            throw new ServerMaintenanceException("Server in maintenance...");
-        }
+    // seek pagination, retrieves the page that starts after the given movie (continuation token of the previous page)
+    public Page<Movie> getMoviesAfter(MovieKey after, int page, int size) throws Exception {
+        // identical requests at the same time share one read
+        return coalescer.execute("movies-after:" + after.encode() + ":" + page + ":" + size + "@" + catalogVersion.current(),
+                () -> readMoviesAfter(after, page, size));
+    }
 
-        // disable db resync
-        resyncEnabled = false;
+    private Page<Movie> readMoviesAfter(MovieKey after, int page, int size) throws Exception {
+        // disable resync db
+        clusterState.setResyncEnabled(false);
 
         // transaction definition
         DefaultTransactionDefinition definition = initTransactionDef();
 
-        Page<Movie> movies = null;
-        // retrieve data from node 2 or 3 depending on year (if inputted)
-        if (movie.getYear() != null) {
-            // retrieve data from node 2 if year < 1980
-            if (movie.getYear() < 1980) {
-                TransactionStatus status = node2TxManager.getTransaction(definition);
-                // try connection to node 2
-                try {
-                    if (node2Down) {
-                        throw new SQLException ();
-                    }
-                    node2Repo.tryConnection();
-                    System.out.println("searchMoviesByPage - Reading and retrieving data from node 2...");
-                    movies = node2Repo.searchMoviesByPage(movie, PageRequest.of(page, size));
-                    node2TxManager.commit(status);
-                    System.out.println("searchMoviesByPage - Retrieved data from node 2 successfully...");
-                    return movies;
-                } catch (SQLException e) {
-                    // node 2 is currently down
-                    node2TxManager.rollback(status);
-                    node2Down = true;
-                    System.out.println("searchMoviesByPage - Node 2 is currently down...");
-                } catch (DataAccessException e) {
-                    // error in reading data, invalid search parameter
-                    node2TxManager.rollback(status);
-                    System.out.println("searchMoviesByPage - Error occurred, invalid search parameter...");
+        // try connection to node 1 (central node)
+        TransactionStatus status = node1TxManager.getTransaction(definition);
+        try {
+            if (clusterState.current().isDown(Node.NODE1)) {
+                throw new SQLException();
+            }
+            Page<Movie> movies = null;
+            healthMonitor.checkAvailable(Node.NODE1);
+            System.out.println("getMoviesAfter - Reading and retrieving data from node 1...");
+            movies = node1Repo.getMoviesByPage(after, 0, PageRequest.of(page, size));
+            node1TxManager.commit(status);
+            System.out.println("getMoviesAfter - Retrieved data from node 1 successfully...");
+            return movies;
+        } catch (SQLException | DataAccessResourceFailureException e) {
+            // node 1 is currently down
+            node1TxManager.rollback(status);
+            healthMonitor.reportFailure(Node.NODE1, e);
+            clusterState.markDown(Node.NODE1);
+            System.out.println("getMoviesAfter - Node 1 is currently down...");
+        } catch (DataAccessException e) {
+            node1TxManager.rollback(status);
+            healthMonitor.reportFailure(Node.NODE1, e);
+            System.out.println("getMoviesAfter - Unexpected error occurred in node 1 during query...");
+        }
+
+        // try connection to both node 2 and 3, if at least one is down then cannot perform data retrieval process and throw exception
+        // both node 2 and 3 needs to be available to combine and replicate node 1 database for this specific query
+        try {
+            // if node 2 or 3 down from previous transactions, dont retrieve data as at least one node may contain inconsistent data
+            if (clusterState.current().isAnyDown(Node.NODE2, Node.NODE3)) {
+                throw new SQLException ();
+            }
+            // both nodes are available, perform data retrieval process
+            // node 2 has all movies before 1980 and node 3 has the rest, so the listing continues from node 2 into node 3
+            // node 3 is read at the same time in case node 2 does not have enough movies left to fill the page
+            System.out.println("getMoviesAfter - Reading and retrieving data from nodes 2 & 3...");
+            boolean fromNode2 = after.getYear() < 1980;
+            Map<Node, Page<Movie>> fragments = new EnumMap<>(Node.class);
+            Map<Node, Callable<Page<Movie>>> queries = new EnumMap<>(Node.class);
+            queries.put(Node.NODE2, fragmentRead(Node.NODE2, () -> new PageImpl<>(
+                    fromNode2 ? node2Repo.getMoviesAfter(after, size) : new ArrayList<>(), PageRequest.of(0, size), node2Repo.getNumOfMovies())));
+            queries.put(Node.NODE3, fragmentRead(Node.NODE3, () -> new PageImpl<>(
+                    node3Repo.getMoviesAfter(fromNode2 ? null : after, size), PageRequest.of(0, size), node3Repo.getNumOfMovies())));
+            scatterGather.scatter(queries, fragments::put);
+            int total = 0;
+            List<Movie> movies = new ArrayList<>();
+            for (Page<Movie> fragment : fragments.values()) {
+                total += fragment.getTotalElements();
+                movies.addAll(fragment.getContent());
+            }
+            if (movies.size() > size) {
+                movies = new ArrayList<>(movies.subList(0, size));
+            }
+            if (clusterState.current().isDown(Node.NODE1)) {
+                clusterState.setResyncEnabled(true);
+            }
+            System.out.println("getMoviesAfter - Merged data from nodes 2 & 3 successfully...");
+            return new PageImpl<>(movies, PageRequest.of(page, size), total);
+        } catch (SQLException | DataAccessResourceFailureException e) {
+            // node 2 or 3 is down (or did not respond in time), cannot perform data retrieval so throw exception
+            if (!healthMonitor.isAvailable(Node.NODE2)) {
+                clusterState.markDown(Node.NODE2);
+            }
+            if (!healthMonitor.isAvailable(Node.NODE3)) {
+                clusterState.markDown(Node.NODE3);
+            }
+            clusterState.setResyncEnabled(true);
+            System.out.println("getMoviesAfter - Node 2 or 3 is currently down. Cannot retrieve data, exception thrown...");
+            throw new Exception ();
+        } catch (DataAccessException e) {
+            // error occurred during read query in node 2 or 3, cannot retrieve data
+            System.out.println("getMoviesAfter - Unexpected error occurred in node 2 or 3 during query, exception thrown...");
+            throw new TransactionErrorException ();
+        }
+    }
+
+    // "has next" mode for infinite scrolling, retrieves the movies after the given movie (or from the start if null)
+    // without counting the movies, one movie more than the page is read to know if there is a next page
+    public Slice<Movie> getMoviesSlice(MovieKey after, int size) throws Exception {
+        // identical requests at the same time share one read
+        return coalescer.execute("movies-slice:" + (after == null ? "" : after.encode()) + ":" + size + "@" + catalogVersion.current(),
+                () -> readMoviesSlice(after, size));
+    }
+
+    private Slice<Movie> readMoviesSlice(MovieKey after, int size) throws Exception {
+        // try connection to node 1
+        TransactionStatus status = node1TxManager.getTransaction(initTransactionDef());
+        try {
+            if (clusterState.current().isDown(Node.NODE1)) {
+                throw new SQLException();
+            }
+            healthMonitor.checkAvailable(Node.NODE1);
+            System.out.println("getMoviesSlice - Reading and retrieving data from node 1...");
+            List<Movie> movies = node1Repo.getMoviesAfter(after, size + 1);
+            node1TxManager.commit(status);
+            System.out.println("getMoviesSlice - Retrieved data from node 1 successfully...");
+            return toSlice(movies, size);
+        } catch (SQLException | DataAccessResourceFailureException e) {
+            // node 1 is currently down
+            node1TxManager.rollback(status);
+            healthMonitor.reportFailure(Node.NODE1, e);
+            clusterState.markDown(Node.NODE1);
+            System.out.println("getMoviesSlice - Node 1 is currently down...");
+        } catch (DataAccessException e) {
+            node1TxManager.rollback(status);
+            healthMonitor.reportFailure(Node.NODE1, e);
+            System.out.println("getMoviesSlice - Unexpected error occurred in node 1 during query...");
+        }
+
+        // try connection to both node 2 and 3, the movies of node 2 come before the movies of node 3
+        try {
+            if (clusterState.current().isAnyDown(Node.NODE2, Node.NODE3)) {
+                throw new SQLException ();
+            }
+            System.out.println("getMoviesSlice - Reading and retrieving data from nodes 2 & 3...");
+            List<Movie> movies = new ArrayList<>();
+            if (after == null || after.getYear() < 1980) {
+                movies.addAll(fragmentRead(Node.NODE2, () -> node2Repo.getMoviesAfter(after, size + 1)).call());
+            }
+            if (movies.size() <= size) {
+                MovieKey node3After = after != null && after.getYear() >= 1980 ? after : null;
+                int limit = size + 1 - movies.size();
+                movies.addAll(fragmentRead(Node.NODE3, () -> node3Repo.getMoviesAfter(node3After, limit)).call());
+            }
+            if (clusterState.current().isDown(Node.NODE1)) {
+                clusterState.setResyncEnabled(true);
+            }
+            System.out.println("getMoviesSlice - Retrieved data from nodes 2 & 3 successfully...");
+            return toSlice(movies, size);
+        } catch (SQLException | DataAccessResourceFailureException e) {
+            // node 2 or 3 is down, cannot perform data retrieval so throw exception
+            if (!healthMonitor.isAvailable(Node.NODE2)) {
+                clusterState.markDown(Node.NODE2);
+            }
+            if (!healthMonitor.isAvailable(Node.NODE3)) {
+                clusterState.markDown(Node.NODE3);
+            }
+            clusterState.setResyncEnabled(true);
+            System.out.println("getMoviesSlice - Node 2 or 3 is currently down. Cannot retrieve data, exception thrown...");
+            throw new Exception ();
+        } catch (DataAccessException e) {
+            System.out.println("getMoviesSlice - Unexpected error occurred in node 2 or 3 during query, exception thrown...");
+            throw new TransactionErrorException ();
+        }
+    }
+
+    private static Slice<Movie> toSlice(List<Movie> movies, int size) {
+        boolean hasNext = movies.size() > size;
+        return new SliceImpl<>(hasNext ? new ArrayList<>(movies.subList(0, size)) : movies, PageRequest.of(0, size), hasNext);
+    }
+
+    // wraps a read query on node 2 or 3 so that it runs in its own read transaction on a fragment query thread
+    private <T> Callable<T> fragmentRead(Node node, Callable<T> query) {
+        DataSourceTransactionManager txManager = node == Node.NODE2 ? node2TxManager : node3TxManager;
+        return () -> {
+            TransactionStatus status = txManager.getTransaction(initTransactionDef());
+            try {
+                healthMonitor.checkAvailable(node);
+                T result = query.call();
+                txManager.commit(status);
+                return result;
+            } catch (Exception e) {
+                if (!status.isCompleted()) {
+                    txManager.rollback(status);
                 }
-            } else if (movie.getYear() >= 1980) {
-                TransactionStatus status = node3TxManager.getTransaction(definition);
-                // try connection to node 3
-                try {
-                    if (node3Down) {
-                        throw new SQLException ();
-                    }
-                    node3Repo.tryConnection();
-                    System.out.println("searchMoviesByPage - Reading and retrieving data from node 3...");
-                    movies = node3Repo.searchMoviesByPage(movie, PageRequest.of(page, size));
-                    node3TxManager.commit(status);
-                    System.out.println("searchMoviesByPage - Retrieved data from node 3 successfully...");
-                    return movies;
-                } catch (SQLException e) {
-                    // node 3 is currently down
-                    node3TxManager.rollback(status);
-                    node3Down = true;
-                    System.out.println("searchMoviesByPage - Node 3 is currently down...");
-                } catch (DataAccessException e) {
-                    // error in reading data, invalid search parameter
-                    node3TxManager.rollback(status);
-                    System.out.println("searchMoviesByPage - Error occurred, invalid search parameter...");
+                if (e instanceof DataAccessException) {
+                    healthMonitor.reportFailure(node, e);
+                }
+                throw e;
+            }
+        };
+    }
+
+    // reads a page of the movies (or matches) of node 2 followed by those of node 3, a null counter skips the node
+    // the count and the window of a node are read in one transaction, so the window is taken from the same snapshot as
+    // the count it was planned with, node 3 only waits for the count of node 2 to know where its window starts
+    private Page<Movie> readFragmentPage(int page, int size, IntSupplier node2Counter, BiFunction<Long, Integer, List<Movie>> node2Window,
+                                         IntSupplier node3Counter, BiFunction<Long, Integer, List<Movie>> node3Window) throws SQLException {
+        long offset = (long) page * size;
+        CompletableFuture<Integer> node2Count = new CompletableFuture<>();
+        Map<Node, Map.Entry<Integer, List<Movie>>> windows = new EnumMap<>(Node.class);
+        Map<Node, Callable<Map.Entry<Integer, List<Movie>>>> queries = new EnumMap<>(Node.class);
+        if (node2Counter == null) {
+            node2Count.complete(0);
+        } else {
+            queries.put(Node.NODE2, fragmentRead(Node.NODE2, () -> {
+                int count = node2Counter.getAsInt();
+                node2Count.complete(count);
+                // the rows of node 2 in the page do not depend on node 3
+                FragmentPagePlan plan = FragmentPagePlan.plan(offset, size, count, 0);
+                List<Movie> window = plan.readsNode2() ? node2Window.apply(plan.getNode2Offset(), plan.getNode2Limit()) : new ArrayList<>();
+                return new AbstractMap.SimpleImmutableEntry<>(count, window);
+            }));
+        }
+        if (node3Counter != null) {
+            queries.put(Node.NODE3, fragmentRead(Node.NODE3, () -> {
+                int count = node3Counter.getAsInt();
+                FragmentPagePlan plan = FragmentPagePlan.plan(offset, size, node2Count.get(), count);
+                List<Movie> window = plan.readsNode3() ? node3Window.apply(plan.getNode3Offset(), plan.getNode3Limit()) : new ArrayList<>();
+                return new AbstractMap.SimpleImmutableEntry<>(count, window);
+            }));
+        }
+        // a failure on node 2 cancels the read on node 3, including its wait for the count
+        scatterGather.scatter(queries, windows::put);
+
+        // node 2 rows come before node 3 rows
+        List<Movie> moviesPage = new ArrayList<>();
+        int total = 0;
+        for (Map.Entry<Integer, List<Movie>> window : windows.values()) {
+            total += window.getKey();
+            moviesPage.addAll(window.getValue());
+        }
+        return new PageImpl<>(moviesPage, PageRequest.of(page, size), total);
+    }
+
+    // remember where the next page of the movie listing starts, so that it can be retrieved by seeking
+    // generation is the one of the page boundaries before the page was read
+    private void recordNextPageBoundary(long generation, Page<Movie> movies) {
+        List<Movie> content = movies.getContent();
+        if (movies.hasNext() && !content.isEmpty()) {
+            pageBoundaries.record(generation, movies.getSize(), movies.getNumber() + 1, MovieKey.of(content.get(content.size() - 1)));
+        }
+    }
+
+    public Page<Movie> searchMoviesByPage(SearchCriteria criteria, int page, int size) throws Exception {
+        return searchResultCache.get(criteria.toQueryParams().toString(), page, size, () -> readSearchMoviesByPage(criteria, page, size));
+    }
+
+    private Page<Movie> readSearchMoviesByPage(SearchCriteria criteria, int page, int size) throws Exception {
+        if (criteria.hasNoYears()) {
+            return new PageImpl<>(new ArrayList<>(), PageRequest.of(page, size), 0);
+        }
+
+        // find the matches in the search index, only the movies of the page are read from the nodes
+        SearchIndex.Result result = searchIndex.search(criteria, (long) page * size, size);
+        if (result != null) {
+            List<Movie> content = readMoviesByUUIDs(result);
+            if (content != null) {
+                return new PageImpl<>(content, PageRequest.of(page, size), result.getTotal());
+            }
+        }
+
+        // the nodes search the same words as the index (with full-text predicates), so the search is answered by them
+        // while the index is not built yet, or if the movies of its results cannot be read
+        if (result == null) {
+            System.out.println("searchMoviesByPage - Search index cannot answer the search, searching the nodes...");
+        }
+
+        // disable db resync
+        clusterState.setResyncEnabled(false);
+
+        // search only the nodes whose years overlap the searched years (node 2 < 1980 <= node 3)
+        boolean readsNode2 = criteria.overlapsYears(Integer.MIN_VALUE, 1979);
+        boolean readsNode3 = criteria.overlapsYears(1980, Integer.MAX_VALUE);
+        ClusterState state = clusterState.current();
+        if (!(readsNode2 && state.isDown(Node.NODE2)) && !(readsNode3 && state.isDown(Node.NODE3))) {
+            try {
+                System.out.println("searchMoviesByPage - Reading and retrieving data from node(s) " + (readsNode2 ? "2 " : "") + (readsNode3 ? "3 " : "") + "...");
+                Page<Movie> movies = readFragmentPage(page, size,
+                        readsNode2 ? () -> node2Repo.countSearchMovies(criteria) : null, (offset, limit) -> node2Repo.searchMovies(criteria, offset, limit),
+                        readsNode3 ? () -> node3Repo.countSearchMovies(criteria) : null, (offset, limit) -> node3Repo.searchMovies(criteria, offset, limit));
+                System.out.println("searchMoviesByPage - Merged data from node(s) " + (readsNode2 ? "2 " : "") + (readsNode3 ? "3 " : "") + "successfully...");
+                if (clusterState.current().isDown(Node.NODE1)) {
+                    clusterState.setResyncEnabled(true);
                 }
+                return movies;
+            } catch (SQLException | DataAccessResourceFailureException e) {
+                // node 2 or 3 is down (or did not respond in time), search node 1 instead
+                if (readsNode2 && !healthMonitor.isAvailable(Node.NODE2)) {
+                    clusterState.markDown(Node.NODE2);
+                }
+                if (readsNode3 && !healthMonitor.isAvailable(Node.NODE3)) {
+                    clusterState.markDown(Node.NODE3);
+                }
+                System.out.println("searchMoviesByPage - Node 2 or 3 is currently down...");
+            } catch (DataAccessException e) {
+                // error in reading data, invalid search parameter
+                System.out.println("searchMoviesByPage - Error occurred in node 2 or 3, invalid search parameter...");
             }
         }
 
+        // transaction definition
+        DefaultTransactionDefinition definition = initTransactionDef();
+        Page<Movie> movies = null;
+
         // try connection to node 1 instead
         TransactionStatus status = node1TxManager.getTransaction(definition);
         try {
-            if (node1Down) {
+            if (clusterState.current().isDown(Node.NODE1)) {
                 throw new SQLException();
             }
-            node1Repo.tryConnection();
+            healthMonitor.checkAvailable(Node.NODE1);
             System.out.println("searchMoviesByPage - Reading and retrieving data from node 1...");
-            movies = node1Repo.searchMoviesByPage(movie, PageRequest.of(page, size));
+            movies = node1Repo.searchMoviesByPage(criteria, PageRequest.of(page, size));
             node1TxManager.commit(status);
             System.out.println("searchMoviesByPage - Retrieved data from node 1 successfully...");
-            if (node2Down || node3Down) {
-                resyncEnabled = true;
+            if (clusterState.current().isAnyDown(Node.NODE2, Node.NODE3)) {
+                clusterState.setResyncEnabled(true);
             }
             return movies;
-        } catch (SQLException e) {
+        } catch (SQLException | DataAccessResourceFailureException e) {
             // node 1 is currently down
             node1TxManager.rollback(status);
+            healthMonitor.reportFailure(Node.NODE1, e);
             System.out.println("searchMoviesByPage - Node 1 is currently down...");
-            node1Down = true;
-            resyncEnabled = true;
+            clusterState.markDownForResync(Node.NODE1);
             throw new Exception ();
         } catch (DataAccessException e) {
             // error in reading data, invalid search parameter
             node1TxManager.rollback(status);
+            healthMonitor.reportFailure(Node.NODE1, e);
             e.printStackTrace();
             System.out.println("searchMoviesByPage - Error occurred, invalid search parameter...");
             throw new TransactionErrorException();
         }
     }
 
+    // reads the movies of a page of search results from node 1, or from nodes 2 & 3 if node 1 is down
+    // returns the movies in the order of the results, or null if they cannot be read
+    private List<Movie> readMoviesByUUIDs(SearchIndex.Result result) {
+        Map<String, Movie> movies = new HashMap<>();
+        if (result.getUuids().isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        boolean read = false;
+        if (!clusterState.current().isDown(Node.NODE1)) {
+            TransactionStatus status = node1TxManager.getTransaction(initTransactionDef());
+            try {
+                healthMonitor.checkAvailable(Node.NODE1);
+                System.out.println("readMoviesByUUIDs - Reading and retrieving data from node 1...");
+                for (Movie movie : node1Repo.getMoviesByUUIDs(result.getUuids())) {
+                    movies.put(movie.getUuid(), movie);
+                }
+                node1TxManager.commit(status);
+                read = true;
+            } catch (SQLException | DataAccessResourceFailureException e) {
+                node1TxManager.rollback(status);
+                healthMonitor.reportFailure(Node.NODE1, e);
+                System.out.println("readMoviesByUUIDs - Node 1 is currently down...");
+                clusterState.markDownForResync(Node.NODE1);
+            } catch (DataAccessException e) {
+                node1TxManager.rollback(status);
+                healthMonitor.reportFailure(Node.NODE1, e);
+                System.out.println("readMoviesByUUIDs - Unexpected error occurred in node 1 during query...");
+            }
+        }
+
+        if (!read) {
+            // read each movie from the node of its year
+            List<String> node2Uuids = new ArrayList<>();
+            List<String> node3Uuids = new ArrayList<>();
+            for (int i = 0; i < result.getUuids().size(); i++) {
+                if (FragmentRoutingIndex.fragmentOf(result.getYears().get(i)) == Node.NODE2) {
+                    node2Uuids.add(result.getUuids().get(i));
+                } else {
+                    node3Uuids.add(result.getUuids().get(i));
+                }
+            }
+            if (clusterState.current().isAnyDown(Node.NODE2, Node.NODE3)) {
+                return null;
+            }
+            Map<Node, Callable<List<Movie>>> queries = new EnumMap<>(Node.class);
+            if (!node2Uuids.isEmpty()) {
+                queries.put(Node.NODE2, fragmentRead(Node.NODE2, () -> node2Repo.getMoviesByUUIDs(node2Uuids)));
+            }
+            if (!node3Uuids.isEmpty()) {
+                queries.put(Node.NODE3, fragmentRead(Node.NODE3, () -> node3Repo.getMoviesByUUIDs(node3Uuids)));
+            }
+            try {
+                System.out.println("readMoviesByUUIDs - Reading and retrieving data from nodes 2 & 3...");
+                scatterGather.scatter(queries, (node, nodeMovies) -> {
+                    for (Movie movie : nodeMovies) {
+                        movies.put(movie.getUuid(), movie);
+                    }
+                });
+            } catch (SQLException | DataAccessResourceFailureException e) {
+                System.out.println("readMoviesByUUIDs - Node 2 or 3 is currently down...");
+                return null;
+            } catch (DataAccessException e) {
+                System.out.println("readMoviesByUUIDs - Unexpected error occurred in node 2 or 3 during query...");
+                return null;
+            }
+        }
+
+        // movies deleted after the search are left out
+        List<Movie> content = new ArrayList<>();
+        for (String uuid : result.getUuids()) {
+            Movie movie = movies.get(uuid);
+            if (movie != null) {
+                content.add(movie);
+            }
+        }
+        return content;
+    }
+
     public Page<Report> getMoviesPerGenreByPage(int page, int size) throws Exception {
-        if (maintenance) {
-            throw new ServerMaintenanceException("Server in maintenance...");
+        Page<Report> reports = statisticsCounters.page(StatisticsCounters.Dimension.GENRE, page, size);
+        if (reports != null) {
+            return reports;
         }
+        // movies not counted yet, compute from the nodes
+        return statisticsCache.get("genre", page, size, () -> readMoviesPerGenreByPage(page, size));
+    }
 
+    private Page<Report> readMoviesPerGenreByPage(int page, int size) throws Exception {
         // disable resync db
-        resyncEnabled = false;
+        clusterState.setResyncEnabled(false);
 
         // transaction definition
         DefaultTransactionDefinition definition = initTransactionDef();
@@ -406,107 +795,80 @@ public class DistributedDBService {
         // try connection to node 1 (central node)
         TransactionStatus status = node1TxManager.getTransaction(definition);
         try {
-            if (node1Down) {
+            if (clusterState.current().isDown(Node.NODE1)) {
                 throw new SQLException();
             }
             Page<Report> reports = null;
-            node1Repo.tryConnection();
+            healthMonitor.checkAvailable(Node.NODE1);
             System.out.println("getMoviesPerGenreByPage - Reading and retrieving data from node 1...");
             reports = node1Repo.getMoviesPerGenreByPage(PageRequest.of(page, size));
             node1TxManager.commit(status);
             System.out.println("getMoviesPerGenreByPage - Retrieved data from node 1 successfully...");
             return reports;
-        } catch (SQLException e) {
+        } catch (SQLException | DataAccessResourceFailureException e) {
             // node 1 is currently down
             node1TxManager.rollback(status);
-            node1Down = true;
+            healthMonitor.reportFailure(Node.NODE1, e);
+            clusterState.markDown(Node.NODE1);
             System.out.println("getMoviesPerGenreByPage - Node 1 is currently down...");
         } catch (DataAccessException e) {
             node1TxManager.rollback(status);
+            healthMonitor.reportFailure(Node.NODE1, e);
             System.out.println("getMoviesPerGenreByPage - Unexpected error occurred in node 1 during query...");
         }
 
         // try connection to both node 2 and 3, if at least one is down then cannot perform data retrieval process and throw exception
         // both node 2 and 3 needs to be available to combine and replicate node 1 database for this specific query
-        TransactionStatus node2Status = node2TxManager.getTransaction(definition);
-        TransactionStatus node3Status = node3TxManager.getTransaction(definition);
         try {
-            if (node2Down || node3Down) {
+            // if node 2 or 3 down from previous transactions, dont retrieve data as at least one node may contain inconsistent data
+            if (clusterState.current().isAnyDown(Node.NODE2, Node.NODE3)) {
                 throw new SQLException ();
             }
-            // try connection to both node 2 and 3
-            node2Repo.tryConnection();
-            node3Repo.tryConnection();
-            // both nodes are available, perform data retrieval process
-            int total = 0;
-            List<Report> reports = null;
-            System.out.println("getMoviesPerGenreByPage - Reading and retrieving data from node 2...");
-            total += node2Repo.getNumOfGenres();
-            reports = node2Repo.getMoviesPerGenre();
-            System.out.println("getMoviesPerGenreByPage - Reading and retrieving data from node 3...");
-            total += node3Repo.getNumOfGenres();
-            List<Report> node3Reports = node3Repo.getMoviesPerGenre();
-            for (int i = 0; i < node3Reports.size(); i++) {
-                // append report to list if it is not found on the current report list, else combine / add count
-                boolean unique = true;
-                for (int j = 0; j < reports.size() && unique; j++) {
-                    if (reports.get(j).getLabel().equalsIgnoreCase(node3Reports.get(i).getLabel())) {
-                        reports.get(j).setCount(reports.get(j).getCount() + node3Reports.get(i).getCount());
-                        unique = false;
-                    }
-                }
-                if (unique) {
-                    reports.add(node3Reports.get(i));
-                } else {
-                    total -= 1;
-                }
-            }
+            // both nodes are available, perform data retrieval process on both nodes at the same time
+            System.out.println("getMoviesPerGenreByPage - Reading and retrieving data from nodes 2 & 3...");
+            ReportMerger reports = new ReportMerger();
+            Map<Node, Callable<List<Report>>> queries = new EnumMap<>(Node.class);
+            queries.put(Node.NODE2, fragmentRead(Node.NODE2, node2Repo::getMoviesPerGenre));
+            queries.put(Node.NODE3, fragmentRead(Node.NODE3, node3Repo::getMoviesPerGenre));
+            // combine the reports of each node as soon as they arrive
+            scatterGather.scatter(queries, (node, nodeReports) -> reports.add(nodeReports));
             // get specific reports according to page number and size
-            List<Report> reportsPage = new ArrayList<>();
-            for (int i = page * size; i < page * size + size; i++) {
-                reportsPage.add(reports.get(i));
-            }
-            node3TxManager.commit(node3Status);
-            node2TxManager.commit(node2Status);
-            System.out.println("getMoviesPerGenreByPage - Retrieved data from node 2 successfully...");
-            System.out.println("getMoviesPerGenreByPage - Retrieved data from node 3 successfully...");
-            if (node1Down) {
-                resyncEnabled = true;
-            }
-            System.out.println("getMoviesPerGenreByPage - Data from nodes 2 & 3 merged successfully...");
-            return new PageImpl<>(reportsPage, PageRequest.of(page, size), total);
-        } catch (SQLException e) {
-            // node 2 or 3 is down, cannot perform data retrieval so throw exception
-            node3TxManager.rollback(node3Status);
-            node2TxManager.rollback(node2Status);
-            try {
-                node2Repo.tryConnection();
-            } catch (Exception exception) {
-                node2Down = true;
+            Page<Report> reportsPage = reports.page(page, size, ReportMerger.BY_LABEL);
+            if (clusterState.current().isDown(Node.NODE1)) {
+                clusterState.setResyncEnabled(true);
             }
-            try {
-                node3Repo.tryConnection();
-            } catch (Exception exception) {
-                node3Down = true;
+            System.out.println("getMoviesPerGenreByPage - Merged data from nodes 2 & 3 successfully...");
+            return reportsPage;
+        } catch (SQLException | DataAccessResourceFailureException e) {
+            // node 2 or 3 is down (or did not respond in time), cannot perform data retrieval so throw exception
+            if (!healthMonitor.isAvailable(Node.NODE2)) {
+                clusterState.markDown(Node.NODE2);
             }
-            resyncEnabled = true;
+            if (!healthMonitor.isAvailable(Node.NODE3)) {
+                clusterState.markDown(Node.NODE3);
+            }
+            clusterState.setResyncEnabled(true);
             System.out.println("getMoviesPerGenreByPage - Node 2 or 3 is currently down. Cannot retrieve data, exception thrown...");
             throw new Exception ();
         } catch (DataAccessException e) {
-            node3TxManager.rollback(node3Status);
-            node2TxManager.rollback(node2Status);
+            // error occurred during read query in node 2 or 3, cannot retrieve data
             System.out.println("getMoviesPerGenreByPage - Unexpected error occurred in node 2 or 3 during query, exception thrown...");
             throw new TransactionErrorException ();
         }
     }
 
     public Page<Report> getMoviesPerDirectorByPage(int page, int size) throws Exception {
-        if (maintenance) {
-            throw new ServerMaintenanceException("Server in maintenance...");
+        Page<Report> reports = statisticsCounters.page(StatisticsCounters.Dimension.DIRECTOR, page, size);
+        if (reports != null) {
+            return reports;
         }
+        // movies not counted yet, compute from the nodes
+        return statisticsCache.get("director", page, size, () -> readMoviesPerDirectorByPage(page, size));
+    }
 
+    private Page<Report> readMoviesPerDirectorByPage(int page, int size) throws Exception {
         // disable resync db
-        resyncEnabled = false;
+        clusterState.setResyncEnabled(false);
 
         // transaction definition
         DefaultTransactionDefinition definition = initTransactionDef();
@@ -514,107 +876,80 @@ public class DistributedDBService {
         // try connection to node 1 (central node)
         TransactionStatus status = node1TxManager.getTransaction(definition);
         try {
-            if (node1Down) {
+            if (clusterState.current().isDown(Node.NODE1)) {
                 throw new SQLException();
             }
             Page<Report> reports = null;
-            node1Repo.tryConnection();
+            healthMonitor.checkAvailable(Node.NODE1);
             System.out.println("getMoviesPerDirectorByPage - Reading and retrieving data from node 1...");
             reports = node1Repo.getMoviesPerDirectorByPage(PageRequest.of(page, size));
             node1TxManager.commit(status);
             System.out.println("getMoviesPerDirectorByPage - Retrieved data from node 1 successfully...");
             return reports;
-        } catch (SQLException e) {
+        } catch (SQLException | DataAccessResourceFailureException e) {
             // node 1 is currently down
             node1TxManager.rollback(status);
-            node1Down = true;
+            healthMonitor.reportFailure(Node.NODE1, e);
+            clusterState.markDown(Node.NODE1);
             System.out.println("getMoviesPerDirectorByPage - Node 1 is currently down...");
         } catch (DataAccessException e) {
             node1TxManager.rollback(status);
+            healthMonitor.reportFailure(Node.NODE1, e);
             System.out.println("getMoviesPerDirectorByPage - Unexpected error occurred in node 1 during query...");
         }
 
         // try connection to both node 2 and 3, if at least one is down then cannot perform data retrieval process and throw exception
         // both node 2 and 3 needs to be available to combine and replicate node 1 database for this specific query
-        TransactionStatus node2Status = node2TxManager.getTransaction(definition);
-        TransactionStatus node3Status = node3TxManager.getTransaction(definition);
         try {
-            if (node2Down || node3Down) {
-                throw new SQLException();
-            }
-            // try connection to both node 2 and 3
-            node2Repo.tryConnection();
-            node3Repo.tryConnection();
-            // both nodes are available, perform data retrieval process
-            int total = 0;
-            List<Report> reports = null;
-            System.out.println("getMoviesPerDirectorByPage - Reading and retrieving data from node 2...");
-            total += node2Repo.getNumOfDirectors();
-            reports = node2Repo.getMoviesPerDirector();
-            System.out.println("getMoviesPerDirectorByPage - Reading and retrieving data from node 3...");
-            total += node3Repo.getNumOfDirectors();
-            List<Report> node3Reports = node3Repo.getMoviesPerDirector();
-            for (int i = 0; i < node3Reports.size(); i++) {
-                // append report to list if it is not found on the current report list, else combine / add count
-                boolean unique = true;
-                for (int j = 0; j < reports.size() && unique; j++) {
-                    if (reports.get(j).getLabel().equalsIgnoreCase(node3Reports.get(i).getLabel())) {
-                        reports.get(j).setCount(reports.get(j).getCount() + node3Reports.get(i).getCount());
-                        unique = false;
-                    }
-                }
-                if (unique) {
-                    reports.add(node3Reports.get(i));
-                } else {
-                    total -= 1;
-                }
+            // if node 2 or 3 down from previous transactions, dont retrieve data as at least one node may contain inconsistent data
+            if (clusterState.current().isAnyDown(Node.NODE2, Node.NODE3)) {
+                throw new SQLException ();
             }
+            // both nodes are available, perform data retrieval process on both nodes at the same time
+            System.out.println("getMoviesPerDirectorByPage - Reading and retrieving data from nodes 2 & 3...");
+            ReportMerger reports = new ReportMerger();
+            Map<Node, Callable<List<Report>>> queries = new EnumMap<>(Node.class);
+            queries.put(Node.NODE2, fragmentRead(Node.NODE2, node2Repo::getMoviesPerDirector));
+            queries.put(Node.NODE3, fragmentRead(Node.NODE3, node3Repo::getMoviesPerDirector));
+            // combine the reports of each node as soon as they arrive
+            scatterGather.scatter(queries, (node, nodeReports) -> reports.add(nodeReports));
             // get specific reports according to page number and size
-            List<Report> reportsPage = new ArrayList<>();
-            for (int i = page * size; i < page * size + size; i++) {
-                reportsPage.add(reports.get(i));
-            }
-            node3TxManager.commit(node3Status);
-            node2TxManager.commit(node2Status);
-            System.out.println("getMoviesPerDirectorByPage - Retrieved data from node 2 successfully...");
-            System.out.println("getMoviesPerDirectorByPage - Retrieved data from node 3 successfully...");
-            if (node1Down) {
-                resyncEnabled = true;
+            Page<Report> reportsPage = reports.page(page, size, ReportMerger.BY_LABEL);
+            if (clusterState.current().isDown(Node.NODE1)) {
+                clusterState.setResyncEnabled(true);
             }
             System.out.println("getMoviesPerDirectorByPage - Merged data from nodes 2 & 3 successfully...");
-            return new PageImpl<>(reportsPage, PageRequest.of(page, size), total);
-        } catch (SQLException e) {
-            // node 2 or 3 is down, cannot perform data retrieval so throw exception
-            node3TxManager.rollback(node3Status);
-            node2TxManager.rollback(node2Status);
-            try {
-                node2Repo.tryConnection();
-            } catch (Exception exception) {
-                node2Down = true;
+            return reportsPage;
+        } catch (SQLException | DataAccessResourceFailureException e) {
+            // node 2 or 3 is down (or did not respond in time), cannot perform data retrieval so throw exception
+            if (!healthMonitor.isAvailable(Node.NODE2)) {
+                clusterState.markDown(Node.NODE2);
             }
-            try {
-                node3Repo.tryConnection();
-            } catch (Exception exception) {
-                node3Down = true;
+            if (!healthMonitor.isAvailable(Node.NODE3)) {
+                clusterState.markDown(Node.NODE3);
             }
-            resyncEnabled = true;
+            clusterState.setResyncEnabled(true);
             System.out.println("getMoviesPerDirectorByPage - Node 2 or 3 is currently down. Cannot retrieve data, exception thrown...");
             throw new Exception ();
         } catch (DataAccessException e) {
-            node3TxManager.rollback(node3Status);
-            node2TxManager.rollback(node2Status);
-            System.out.println("getMoviesPerDirectorByPage - Unexpected error occurred in node 2 or 3 during read query. Cannot retrieve data, exception thrown...");
-            throw new TransactionErrorException();
+            // error occurred during read query in node 2 or 3, cannot retrieve data
+            System.out.println("getMoviesPerDirectorByPage - Unexpected error occurred in node 2 or 3 during query, exception thrown...");
+            throw new TransactionErrorException ();
         }
     }
 
     public Page<Report> getMoviesPerActorByPage(int page, int size) throws Exception {
-        if (maintenance) {
-            throw new ServerMaintenanceException("Server in maintenance...");
+        Page<Report> reports = statisticsCounters.page(StatisticsCounters.Dimension.ACTOR, page, size);
+        if (reports != null) {
+            return reports;
         }
+        // movies not counted yet, compute from the nodes
+        return statisticsCache.get("actor", page, size, () -> readMoviesPerActorByPage(page, size));
+    }
 
+    private Page<Report> readMoviesPerActorByPage(int page, int size) throws Exception {
         // disable resync db
-        resyncEnabled = false;
+        clusterState.setResyncEnabled(false);
 
         // transaction definition
         DefaultTransactionDefinition definition = initTransactionDef();
@@ -622,107 +957,80 @@ public class DistributedDBService {
         // try connection to node 1 (central node)
         TransactionStatus status = node1TxManager.getTransaction(definition);
         try {
-            if (node1Down) {
+            if (clusterState.current().isDown(Node.NODE1)) {
                 throw new SQLException ();
             }
             Page<Report> reports = null;
-            node1Repo.tryConnection();
+            healthMonitor.checkAvailable(Node.NODE1);
             System.out.println("getMoviesPerActorByPage - Reading and retrieving data from node 1...");
             reports = node1Repo.getMoviesPerActorByPage(PageRequest.of(page, size));
             node1TxManager.commit(status);
             System.out.println("getMoviesPerActorByPage - Retrieved data from node 1 successfully...");
             return reports;
-        } catch (SQLException e) {
+        } catch (SQLException | DataAccessResourceFailureException e) {
             // node 1 is currently down
             node1TxManager.rollback(status);
-            node1Down = true;
+            healthMonitor.reportFailure(Node.NODE1, e);
+            clusterState.markDown(Node.NODE1);
             System.out.println("getMoviesPerActorByPage - Node 1 is currently down...");
         } catch (DataAccessException e) {
             node1TxManager.rollback(status);
+            healthMonitor.reportFailure(Node.NODE1, e);
             System.out.println("getMoviesPerActorByPage - Unexpected error occurred in node 1 during query...");
         }
 
         // try connection to both node 2 and 3, if at least one is down then cannot perform data retrieval process and throw exception
         // both node 2 and 3 needs to be available to combine and replicate node 1 database for this specific query
-        TransactionStatus node2Status = node2TxManager.getTransaction(definition);
-        TransactionStatus node3Status = node3TxManager.getTransaction(definition);
         try {
-            if (node2Down || node3Down) {
+            // if node 2 or 3 down from previous transactions, dont retrieve data as at least one node may contain inconsistent data
+            if (clusterState.current().isAnyDown(Node.NODE2, Node.NODE3)) {
                 throw new SQLException ();
             }
-            // try connection to both node 2 and 3
-            node2Repo.tryConnection();
-            node3Repo.tryConnection();
-            // both nodes are available, perform data retrieval process
-            int total = 0;
-            List<Report> reports = null;
-            System.out.println("getMoviesPerActorByPage - Reading and retrieving data from node 2...");
-            total += node2Repo.getNumOfActors();
-            reports = node2Repo.getMoviesPerActor();
-            System.out.println("getMoviesPerActorByPage - Reading and retrieving data from node 3...");
-            total += node3Repo.getNumOfActors();
-            List<Report> node3Reports = node3Repo.getMoviesPerActor();
-            for (int i = 0; i < node3Reports.size(); i++) {
-                // append report to list if it is not found on the current report list, else combine / add count
-                boolean unique = true;
-                for (int j = 0; j < reports.size() && unique; j++) {
-                    if (reports.get(j).getLabel().equalsIgnoreCase(node3Reports.get(i).getLabel())) {
-                        reports.get(j).setCount(reports.get(j).getCount() + node3Reports.get(i).getCount());
-                        unique = false;
-                    }
-                }
-                if (unique) {
-                    reports.add(node3Reports.get(i));
-                } else {
-                    total -= 1;
-                }
-            }
+            // both nodes are available, perform data retrieval process on both nodes at the same time
+            System.out.println("getMoviesPerActorByPage - Reading and retrieving data from nodes 2 & 3...");
+            ReportMerger reports = new ReportMerger();
+            Map<Node, Callable<List<Report>>> queries = new EnumMap<>(Node.class);
+            queries.put(Node.NODE2, fragmentRead(Node.NODE2, node2Repo::getMoviesPerActor));
+            queries.put(Node.NODE3, fragmentRead(Node.NODE3, node3Repo::getMoviesPerActor));
+            // combine the reports of each node as soon as they arrive
+            scatterGather.scatter(queries, (node, nodeReports) -> reports.add(nodeReports));
             // get specific reports according to page number and size
-            List<Report> reportsPage = new ArrayList<>();
-            for (int i = page * size; i < page * size + size; i++) {
-                reportsPage.add(reports.get(i));
-            }
-            node3TxManager.commit(node3Status);
-            node2TxManager.commit(node2Status);
-            System.out.println("getMoviesPerActorByPage - Retrieved data from node 2 successfully...");
-            System.out.println("getMoviesPerActorByPage - Retrieved data from node 3 successfully...");
-            if (node1Down) {
-                resyncEnabled = true;
-            }
-            System.out.println("getMoviesPerActorByPage - Data from nodes 2 & 3 merged successfully...");
-            return new PageImpl<>(reportsPage, PageRequest.of(page, size), total);
-        } catch (SQLException e) {
-            // node 2 or 3 is down, cannot perform data retrieval so throw exception
-            node3TxManager.rollback(node3Status);
-            node2TxManager.rollback(node2Status);
-            try {
-                node2Repo.tryConnection();
-            } catch (Exception exception) {
-                node2Down = true;
+            Page<Report> reportsPage = reports.page(page, size, ReportMerger.BY_LABEL);
+            if (clusterState.current().isDown(Node.NODE1)) {
+                clusterState.setResyncEnabled(true);
             }
-            try {
-                node3Repo.tryConnection();
-            } catch (Exception exception) {
-                node3Down = true;
+            System.out.println("getMoviesPerActorByPage - Merged data from nodes 2 & 3 successfully...");
+            return reportsPage;
+        } catch (SQLException | DataAccessResourceFailureException e) {
+            // node 2 or 3 is down (or did not respond in time), cannot perform data retrieval so throw exception
+            if (!healthMonitor.isAvailable(Node.NODE2)) {
+                clusterState.markDown(Node.NODE2);
             }
-            resyncEnabled = true;
+            if (!healthMonitor.isAvailable(Node.NODE3)) {
+                clusterState.markDown(Node.NODE3);
+            }
+            clusterState.setResyncEnabled(true);
             System.out.println("getMoviesPerActorByPage - Node 2 or 3 is currently down. Cannot retrieve data, exception thrown...");
             throw new Exception ();
         } catch (DataAccessException e) {
-            node3TxManager.rollback(node3Status);
-            node2TxManager.rollback(node2Status);
+            // error occurred during read query in node 2 or 3, cannot retrieve data
             System.out.println("getMoviesPerActorByPage - Unexpected error occurred in node 2 or 3 during query, exception thrown...");
-            throw new TransactionErrorException();
+            throw new TransactionErrorException ();
         }
     }
 
     public Page<Report> getMoviesPerYearByPage(int page, int size) throws Exception {
-        if (maintenance) {
-            throw new ServerMaintenanceException("Server in maintenance...");
+        Page<Report> reports = statisticsCounters.page(StatisticsCounters.Dimension.YEAR, page, size);
+        if (reports != null) {
+            return reports;
         }
+        // movies not counted yet, compute from the nodes
+        return statisticsCache.get("year", page, size, () -> readMoviesPerYearByPage(page, size));
+    }
 
+    private Page<Report> readMoviesPerYearByPage(int page, int size) throws Exception {
         // disable resync db
-        resyncEnabled = false;
+        clusterState.setResyncEnabled(false);
 
         // transaction definition
         DefaultTransactionDefinition definition = initTransactionDef();
@@ -730,11 +1038,11 @@ public class DistributedDBService {
         // try connection to node 1 (central node)
         TransactionStatus status = node1TxManager.getTransaction(definition);
         try {
-            if (node1Down) {
+            if (clusterState.current().isDown(Node.NODE1)) {
                 throw new SQLException ();
             }
             Page<Report> reports = null;
-            node1Repo.tryConnection();
+            healthMonitor.checkAvailable(Node.NODE1);
             System.out.println("getMoviesPerYearByPage - Reading and retrieving data from node 1...");
             reports = node1Repo.getMoviesPerYearByPage(PageRequest.of(page, size));
 
@@ -750,72 +1058,86 @@ public class DistributedDBService {
             node1TxManager.commit(status);
             System.out.println("getMoviesPerYearByPage - Retrieved data from node 1 successfully...");
             return reports;
-        } catch (SQLException e) {
+        } catch (SQLException | DataAccessResourceFailureException e) {
             // node 1 is currently down
             node1TxManager.rollback(status);
-            node1Down = true;
+            healthMonitor.reportFailure(Node.NODE1, e);
+            clusterState.markDown(Node.NODE1);
             System.out.println("getMoviesPerYearByPage - Node 1 is currently down...");
         } catch (DataAccessException e) {
             node1TxManager.rollback(status);
+            healthMonitor.reportFailure(Node.NODE1, e);
             System.out.println("getMoviesPerYearByPage - Unexpected error occurred in node 1 during read query...");
         }
 
         // try connection to both node 2 and 3, if at least one is down then cannot perform data retrieval process and throw exception
         // both node 2 and 3 needs to be available to combine and replicate node 1 database for this specific query
-        TransactionStatus node2Status = node2TxManager.getTransaction(definition);
-        TransactionStatus node3Status = node3TxManager.getTransaction(definition);
         try {
-            if (node2Down || node3Down) {
+            // if node 2 or 3 down from previous transactions, dont retrieve data as at least one node may contain inconsistent data
+            if (clusterState.current().isAnyDown(Node.NODE2, Node.NODE3)) {
                 throw new SQLException ();
             }
-            // try connection to both node 2 and 3
-            node2Repo.tryConnection();
-            node3Repo.tryConnection();
-            // both nodes are available, perform data retrieval process
-            int total = 0;
-            List<Report> reports = null;
-            System.out.println("getMoviesPerYearByPage - Reading and retrieving data from node 2...");
-            total += node2Repo.getNumOfYears();
-            reports = node2Repo.getMoviesPerYear();
-            System.out.println("getMoviesPerYearByPage - Reading and retrieving data from node 3...");
-            total += node3Repo.getNumOfYears();
-            reports.addAll(node3Repo.getMoviesPerYear());
+            // both nodes are available, perform data retrieval process on both nodes at the same time
+            System.out.println("getMoviesPerYearByPage - Reading and retrieving data from nodes 2 & 3...");
+            ReportMerger reports = new ReportMerger();
+            Map<Node, Callable<List<Report>>> queries = new EnumMap<>(Node.class);
+            queries.put(Node.NODE2, fragmentRead(Node.NODE2, node2Repo::getMoviesPerYear));
+            queries.put(Node.NODE3, fragmentRead(Node.NODE3, node3Repo::getMoviesPerYear));
+            // combine the reports of each node as soon as they arrive
+            scatterGather.scatter(queries, (node, nodeReports) -> reports.add(nodeReports));
             // get specific reports according to page number and size
-            List<Report> reportsPage = new ArrayList<>();
-            for (int i = page * size; i < page * size + size; i++) {
-                reportsPage.add(reports.get(i));
-            }
-            node3TxManager.commit(node3Status);
-            node2TxManager.commit(node2Status);
-            System.out.println("getMoviesPerYearByPage - Retrieved data from node 2 successfully...");
-            System.out.println("getMoviesPerYearByPage - Retrieved data from node 3 successfully...");
-            if (node1Down) {
-                resyncEnabled = true;
+            Page<Report> reportsPage = reports.page(page, size, ReportMerger.BY_LABEL);
+            if (clusterState.current().isDown(Node.NODE1)) {
+                clusterState.setResyncEnabled(true);
             }
             System.out.println("getMoviesPerYearByPage - Merged data from nodes 2 & 3 successfully...");
-            return new PageImpl<>(reportsPage, PageRequest.of(page, size), total);
-        } catch (SQLException e) {
-            // node 2 or 3 is down, cannot perform data retrieval so throw exception
-            node3TxManager.rollback(node3Status);
-            node2TxManager.rollback(node2Status);
-            try {
-                node2Repo.tryConnection();
-            } catch (Exception exception) {
-                node2Down = true;
+            return reportsPage;
+        } catch (SQLException | DataAccessResourceFailureException e) {
+            // node 2 or 3 is down (or did not respond in time), cannot perform data retrieval so throw exception
+            if (!healthMonitor.isAvailable(Node.NODE2)) {
+                clusterState.markDown(Node.NODE2);
             }
-            try {
-                node3Repo.tryConnection();
-            } catch (Exception exception) {
-                node3Down = true;
+            if (!healthMonitor.isAvailable(Node.NODE3)) {
+                clusterState.markDown(Node.NODE3);
             }
-            resyncEnabled = true;
+            clusterState.setResyncEnabled(true);
             System.out.println("getMoviesPerYearByPage - Node 2 or 3 is currently down. Cannot retrieve data, exception thrown...");
-            throw new Exception();
+            throw new Exception ();
         } catch (DataAccessException e) {
-            node3TxManager.rollback(node3Status);
-            node2TxManager.rollback(node2Status);
+            // error occurred during read query in node 2 or 3, cannot retrieve data
             System.out.println("getMoviesPerYearByPage - Unexpected error occurred in node 2 or 3 during query, exception thrown...");
-            throw new TransactionErrorException();
+            throw new TransactionErrorException ();
+        }
+    }
+
+    // called after a write was committed on at least one node, as page boundaries shift whenever movies are added,
+    // updated or deleted
+    // previous is the data of the movie before an update or delete
+    private void movieChanged(String op, Movie previous, Movie movie) {
+        movieCache.invalidate(movie.getUuid());
+        pageBoundaries.clear();
+        // totals read while the write was not committed yet
+        countCache.clear();
+        for (CatalogListener listener : catalogListeners) {
+            if (op.equalsIgnoreCase("INSERT")) {
+                listener.onInsert(movie);
+            } else if (op.equalsIgnoreCase("UPDATE")) {
+                listener.onUpdate(previous, movie);
+            } else {
+                listener.onDelete(previous);
+            }
+        }
+    }
+
+    // called after a re-sync, which may have changed any movie
+    private void catalogChanged() {
+        movieCache.clear();
+        pageBoundaries.clear();
+        countCache.clear();
+        // reads waiting for reads started before the re-sync read again
+        coalescer.cancelAll();
+        for (CatalogListener listener : catalogListeners) {
+            listener.onReload();
         }
     }
 
@@ -823,15 +1145,55 @@ public class DistributedDBService {
         return new Timestamp(System.currentTimeMillis());
     }
 
+    // numbers the log of a write in the open transaction of the node that commits first: the node of the movie's year,
+    // or node 1 if that node does not take part in the write, returns null if neither takes part (the write is then not
+    // committed anywhere)
+    // the number is committed with the first commit, so if node 1 then fails to commit, node 1 catches up from the log
+    private Log numberLog(String tUuid, String op, Movie movie, int node1Status, int node2Status, int node3Status) {
+        Node shard = FragmentRoutingIndex.fragmentOf(movie.getYear());
+        Node origin;
+        long lsn;
+        if (shard == Node.NODE2 && node2Status == OK) {
+            origin = Node.NODE2;
+            lsn = node2Repo.nextLsn(shard);
+        } else if (shard == Node.NODE3 && node3Status == OK) {
+            origin = Node.NODE3;
+            lsn = node3Repo.nextLsn(shard);
+        } else if (node1Status == OK) {
+            origin = Node.NODE1;
+            lsn = node1Repo.nextLsn(shard);
+        } else {
+            return null;
+        }
+        return new Log(tUuid, op, movie.getUuid(), movie.getYear(), getCurrTimestamp(), origin, shard, lsn);
+    }
+
+    // if the node of the movie's year failed to commit, the number of the log was rolled back with it (and will be given
+    // again), so node 1 numbers the log itself in its still open transaction, and that node catches up from node 1
+    private Log renumberIfNotCommitted(Log log, int node2Status, int node3Status) {
+        if (log.getOrigin() == Node.NODE1 || (log.getOrigin() == Node.NODE2 ? node2Status : node3Status) == OK) {
+            return log;
+        }
+        return new Log(log.getUuid(), log.getOp(), log.getMovieUuid(), log.getMovieYear(), log.getTs(), Node.NODE1,
+                log.getShard(), node1Repo.nextLsn(log.getShard()));
+    }
+
+    // adds the movie on node 1 and on the node of its year, waiting while re-sync catches up either of them
     public void addMovie(Movie movie) throws Exception {
-        // STRATEGY: Insert new movie data to node 1 first then insert to node 2 or 3 depending on year of new movie
-        // RECOVERY METHOD: Deferred Modification
-        if (maintenance) {
-            throw new ServerMaintenanceException("Server in maintenance...");
+        Node[] nodes = {Node.NODE1, FragmentRoutingIndex.fragmentOf(movie.getYear())};
+        writeFence.enter(nodes);
+        try {
+            applyAddMovie(movie);
+        } finally {
+            writeFence.exit(nodes);
         }
+    }
 
+    private void applyAddMovie(Movie movie) throws Exception {
+        // STRATEGY: Insert new movie data to node 1 first then insert to node 2 or 3 depending on year of new movie
+        // RECOVERY METHOD: Deferred Modification
         // disable db resync
-        resyncEnabled = false;
+        clusterState.setResyncEnabled(false);
 
         // node statuses
         int node1Status = INIT;
@@ -847,11 +1209,11 @@ public class DistributedDBService {
 
         node1TxStatus = node1TxManager.getTransaction(initTransactionDef());
         try {
-            if (node1Down) {
+            if (clusterState.current().isDown(Node.NODE1)) {
                 throw new SQLException ();
             }
             // try connection to node 1 before inserting new movie data
-            node1Repo.tryConnection();
+            healthMonitor.checkAvailable(Node.NODE1);
             System.out.println("addMovie - Inserting new movie " + movie.getTitle() + " (" + movie.getYear() + ") into node 1...");
             node1Repo.addMovie(movie);
             node1Status = OK; // transaction is ready for commit
@@ -864,16 +1226,18 @@ public class DistributedDBService {
 //            node1TxManager.rollback(node1TxStatus);
 //            node1Status = ERROR;
 //            System.out.println("addMovie - Write error occurred during transaction in node 1...");
-        } catch (SQLException sqlException) {
+        } catch (SQLException | DataAccessResourceFailureException sqlException) {
             // node 1 is currently down
             System.out.println("addMovie - Node 1 is currently down...");
             node1TxManager.rollback(node1TxStatus);
-            node1Down = true;
+            healthMonitor.reportFailure(Node.NODE1, sqlException);
+            clusterState.markDown(Node.NODE1);
             node1Status = UNAVAILABLE;
         } catch (DataAccessException exception) {
             // transaction error during insertion, rollback and don't redo
             System.out.println("addMovie - Error occurred during transaction in node 1...");
             node1TxManager.rollback(node1TxStatus);
+            healthMonitor.reportFailure(Node.NODE1, exception);
             node1Status = ERROR;
         }
 
@@ -881,11 +1245,11 @@ public class DistributedDBService {
         if ((node1Status == OK || node1Status == UNAVAILABLE) && movie.getYear() < 1980) {
             node2TxStatus = node2TxManager.getTransaction(initTransactionDef());
             try {
-                if (node2Down) {
+                if (clusterState.current().isDown(Node.NODE2)) {
                     throw new SQLException ();
                 }
                 // try connection to node 2 before inserting new data
-                node2Repo.tryConnection();
+                healthMonitor.checkAvailable(Node.NODE2);
                 System.out.println("addMovie - Inserting new movie " + movie.getTitle() + " (" + movie.getYear() + ") into node 2...");
                 node2Repo.addMovie(movie);
                 node2Status = OK;
@@ -898,36 +1262,40 @@ public class DistributedDBService {
 //                node2TxManager.rollback(node2TxStatus);
 //                node2Status = ERROR;
 //                System.out.println("addMovie - Write error occurred during transaction in node 2...");
-            } catch (SQLException sqlException) {
+            } catch (SQLException | DataAccessResourceFailureException sqlException) {
                 // node 2 is currently down
                 System.out.println("addMovie - Node 2 is currently down...");
                 node2TxManager.rollback(node2TxStatus);
+                healthMonitor.reportFailure(Node.NODE2, sqlException);
                 node2Status = UNAVAILABLE;
             } catch (DataAccessException exception) {
                 System.out.println("addMovie - Error occurred during transaction in node 2...");
                 node2TxManager.rollback(node2TxStatus);
+                healthMonitor.reportFailure(Node.NODE2, exception);
                 node2Status = ERROR;
             }
         } else if ((node1Status == OK || node1Status == UNAVAILABLE) && movie.getYear() >= 1980) {
             node3TxStatus = node3TxManager.getTransaction(initTransactionDef());
             try {
-                if (node3Down) {
+                if (clusterState.current().isDown(Node.NODE3)) {
                     throw new SQLException ();
                 }
                 // try connection to node 3 before inserting new data
-                node3Repo.tryConnection();
+                healthMonitor.checkAvailable(Node.NODE3);
                 System.out.println("addMovie - Inserting new movie " + movie.getTitle() + " (" + movie.getYear() + ") into node 3...");
                 node3Repo.addMovie(movie);
                 node3Status = OK;
                 System.out.println("addMovie - Movie data inserted to node 3...");
-            } catch (SQLException sqlException) {
+            } catch (SQLException | DataAccessResourceFailureException sqlException) {
                 // node 3 is currently down
                 System.out.println("addMovie - Node 3 is currently down...");
                 node3TxManager.rollback(node3TxStatus);
+                healthMonitor.reportFailure(Node.NODE3, sqlException);
                 node3Status = UNAVAILABLE;
             } catch (DataAccessException exception) {
                 System.out.println("addMovie - Error occurred during transaction in node 3...");
                 node3TxManager.rollback(node3TxStatus);
+                healthMonitor.reportFailure(Node.NODE3, exception);
                 node3Status = ERROR;
             }
         } else {
@@ -943,12 +1311,30 @@ public class DistributedDBService {
             throw new TransactionErrorException();
         }
 
+        // number the log of the write (by the node of the movie's year, or by node 1 if that node does not take part)
+        Log log;
+        try {
+            log = numberLog(tUuid, "INSERT", movie, node1Status, node2Status, node3Status);
+        } catch (DataAccessException exception) {
+            if (node1Status == OK) {
+                node1TxManager.rollback(node1TxStatus);
+            }
+            if (node2Status == OK) {
+                node2TxManager.rollback(node2TxStatus);
+            }
+            if (node3Status == OK) {
+                node3TxManager.rollback(node3TxStatus);
+            }
+            System.out.println("addMovie - Error occurred while numbering the transaction log, throwing exception...");
+            throw new TransactionErrorException();
+        }
+
         // if both nodes are ready for commit
         if (node2Status == OK) {
             // try node 2 commit transaction
             try {
                 // add transaction log
-                node2Repo.addLog(new Log(tUuid, "INSERT", movie.getUuid(), movie.getYear(), getCurrTimestamp()));
+                node2Repo.addLog(log);
 
                 // COMMENT THIS AS WELL FOR GLOBAL FAILURE RECOVERY CASE #2
                 node2TxManager.commit(node2TxStatus);
@@ -956,30 +1342,31 @@ public class DistributedDBService {
                 // TODO: [GLOBAL FAILURE RECOVERY CASE #2 - NODE 2 TRANSACTION COMMIT FAILURE]
                 // intentionally rollback node 2 transaction and set node 2 status to COMMIT_ERROR
 //                node2TxManager.rollback(node2TxStatus);
-//                node2Down = true;
+//                clusterState.markDown(Node.NODE2);
 //                node2Status = COMMIT_ERROR;
 //                System.out.println("addMovie - Error occurred during transaction commit in node 2...");
             } catch (Exception e) {
                 // failure occurred during commit, set for recovery
-                node2Down = true;
+                clusterState.markDown(Node.NODE2);
                 node2Status = COMMIT_ERROR;
             }
         } else if (node3Status == OK) {
             // try node 3 commit transaction
             try {
                 // add transaction log
-                node3Repo.addLog(new Log(tUuid, "INSERT", movie.getUuid(), movie.getYear(), getCurrTimestamp()));
+                node3Repo.addLog(log);
                 node3TxManager.commit(node3TxStatus);
             } catch (Exception e) {
                 // failure occurred during commit, set for recovery
-                node3Down = true;
+                clusterState.markDown(Node.NODE3);
                 node3Status = COMMIT_ERROR;
             }
         }
         // try node 1 commit transaction
         if (node1Status == OK) {
             try {
-                node1Repo.addLog(new Log(tUuid, "INSERT", movie.getUuid(), movie.getYear(), getCurrTimestamp()));
+                log = renumberIfNotCommitted(log, node2Status, node3Status);
+                node1Repo.addLog(log);
 
                 // COMMENT THIS AS WELL FOR GLOBAL FAILURE RECOVERY CASE #1
                 node1TxManager.commit(node1TxStatus);
@@ -987,28 +1374,30 @@ public class DistributedDBService {
                 // TODO: [GLOBAL FAILURE RECOVERY CASE #1 - CENTRAL NODE TRANSACTION COMMIT FAILURE]
                 // intentionally rollback node 1 transaction and set node 1 transaction status to COMMIT_ERROR
 //                node1TxManager.rollback(node1TxStatus);
-//                node1Down = true;
+//                clusterState.markDown(Node.NODE1);
 //                node1Status = COMMIT_ERROR;
 //                System.out.println("addMovie - Error occurred during transaction commit in node 1...");
             } catch (Exception e) {
                 // failure occurred during commit, set for recovery
-                node1Down = true;
+                clusterState.markDown(Node.NODE1);
                 node1Status = COMMIT_ERROR;
             }
         }
 
+        // movie changed, invalidate anything derived from it
+        if (node1Status == OK || node2Status == OK || node3Status == OK) {
+            movieChanged("INSERT", null, movie);
+        }
+
         // if a node suddenly went down or failed to commit to during transaction, signal server for db re-sync
         if ((node1Status == UNAVAILABLE || node1Status == COMMIT_ERROR) && (node2Status == OK || node3Status == OK)) {
-            node1Down = true;
-            resyncEnabled = true;
+            clusterState.markDownForResync(Node.NODE1);
         }
         if ((node2Status == UNAVAILABLE || node2Status == COMMIT_ERROR) && node1Status == OK) {
-            node2Down = true;
-            resyncEnabled = true;
+            clusterState.markDownForResync(Node.NODE2);
         }
         if ((node3Status == UNAVAILABLE || node3Status == COMMIT_ERROR) && node1Status == OK) {
-            node3Down = true;
-            resyncEnabled = true;
+            clusterState.markDownForResync(Node.NODE3);
         }
 
         // operation cannot be done if both nodes are unavailable, throw exception for user to try again the query later
@@ -1024,15 +1413,22 @@ public class DistributedDBService {
         }
     }
 
+    // updates the movie on node 1 and on the node of its year, waiting while re-sync catches up either of them
     public void updateMovie(Movie movie) throws Exception {
-        // STRATEGY: Update existing movie data to node 1 first then update to node 2 or 3 depending on year of new movie
-        // RECOVERY METHOD: Deferred Modification
-        if (maintenance) {
-            throw new ServerMaintenanceException("Server in maintenance...");
+        Node[] nodes = {Node.NODE1, FragmentRoutingIndex.fragmentOf(movie.getYear())};
+        writeFence.enter(nodes);
+        try {
+            applyUpdateMovie(movie);
+        } finally {
+            writeFence.exit(nodes);
         }
+    }
 
+    private void applyUpdateMovie(Movie movie) throws Exception {
+        // STRATEGY: Update existing movie data to node 1 first then update to node 2 or 3 depending on year of new movie
+        // RECOVERY METHOD: Deferred Modification
         // disable db resync
-        resyncEnabled = false;
+        clusterState.setResyncEnabled(false);
 
         // node statuses
         int node1Status = INIT;
@@ -1043,31 +1439,38 @@ public class DistributedDBService {
         TransactionStatus node2TxStatus = null;
         TransactionStatus node3TxStatus = null;
 
+        // data of the movie before the change
+        Movie previous = null;
+
         // generate new transaction uuid
         String tUuid = UUID.randomUUID().toString();
 
         node1TxStatus = node1TxManager.getTransaction(initTransactionDef());
         try {
-            if (node1Down) {
+            if (clusterState.current().isDown(Node.NODE1)) {
                 throw new SQLException ();
             }
             // try connection to node 1 before updating movie data
-            node1Repo.tryConnection();
+            healthMonitor.checkAvailable(Node.NODE1);
             System.out.println("updateMovie - Updating movie data of " + movie.getTitle() + " (" + movie.getYear() + ") in node 1...");
+            // lock the movie and keep its current data (needed to update the statistics after commit)
+            previous = node1Repo.getMovieByUUIDForUpdate(movie.getUuid());
             node1Repo.updateMovie(movie);
             node1Status = OK; // transaction is ready for commit
 
             System.out.println("updateMovie - Movie data in node 1 updated...");
-        } catch (SQLException sqlException) {
+        } catch (SQLException | DataAccessResourceFailureException sqlException) {
             // node 1 is currently down
             System.out.println("updateMovie - Node 1 is currently down...");
             node1TxManager.rollback(node1TxStatus);
-            node1Down = true;
+            healthMonitor.reportFailure(Node.NODE1, sqlException);
+            clusterState.markDown(Node.NODE1);
             node1Status = UNAVAILABLE;
         } catch (DataAccessException exception) {
             // transaction error during insertion, rollback and don't redo
             System.out.println("updateMovie - Error occurred during transaction in node 1...");
             node1TxManager.rollback(node1TxStatus);
+            healthMonitor.reportFailure(Node.NODE1, exception);
             node1Status = ERROR;
         }
 
@@ -1075,12 +1478,15 @@ public class DistributedDBService {
         if ((node1Status == OK || node1Status == UNAVAILABLE) && movie.getYear() < 1980) {
             node2TxStatus = node2TxManager.getTransaction(initTransactionDef());
             try {
-                if (node2Down) {
+                if (clusterState.current().isDown(Node.NODE2)) {
                     throw new SQLException ();
                 }
                 // try connection to node 2 before updating data
-                node2Repo.tryConnection();
+                healthMonitor.checkAvailable(Node.NODE2);
                 System.out.println("updateMovie - Updating movie data of " + movie.getTitle() + " (" + movie.getYear() + ") in node 2...");
+                if (previous == null) {
+                    previous = node2Repo.getMovieByUUIDForUpdate(movie.getUuid());
+                }
                 node2Repo.updateMovie(movie);
                 node2Status = OK;
 
@@ -1097,38 +1503,45 @@ public class DistributedDBService {
 //                System.out.println("updateMovie - Done sleeping!");
 
                 System.out.println("updateMovie - Movie data in node 2 updated...");
-            } catch (SQLException sqlException) {
+            } catch (SQLException | DataAccessResourceFailureException sqlException) {
                 // node 2 is currently down
                 System.out.println("updateMovie - Node 2 is currently down...");
                 node2TxManager.rollback(node2TxStatus);
-                node2Down = true;
+                healthMonitor.reportFailure(Node.NODE2, sqlException);
+                clusterState.markDown(Node.NODE2);
                 node2Status = UNAVAILABLE;
             } catch (DataAccessException exception) {
                 System.out.println("updateMovie - Error occurred during transaction in node 2...");
                 node2TxManager.rollback(node2TxStatus);
+                healthMonitor.reportFailure(Node.NODE2, exception);
                 node2Status = ERROR;
             }
         } else if ((node1Status == OK || node1Status == UNAVAILABLE) && movie.getYear() >= 1980) {
             node3TxStatus = node3TxManager.getTransaction(initTransactionDef());
             try {
-                if (node3Down) {
+                if (clusterState.current().isDown(Node.NODE3)) {
                     throw new SQLException ();
                 }
                 // try connection to node 3 before updating data
-                node3Repo.tryConnection();
+                healthMonitor.checkAvailable(Node.NODE3);
                 System.out.println("updateMovie - Updating movie data of " + movie.getTitle() + " (" + movie.getYear() + ") in node 3...");
+                if (previous == null) {
+                    previous = node3Repo.getMovieByUUIDForUpdate(movie.getUuid());
+                }
                 node3Repo.updateMovie(movie);
                 node3Status = OK;
                 System.out.println("updateMovie - Movie data in node 3 updated...");
-            } catch (SQLException sqlException) {
+            } catch (SQLException | DataAccessResourceFailureException sqlException) {
                 // node 3 is currently down
                 System.out.println("updateMovie - Node 3 is currently down...");
                 node3TxManager.rollback(node3TxStatus);
-                node3Down = true;
+                healthMonitor.reportFailure(Node.NODE3, sqlException);
+                clusterState.markDown(Node.NODE3);
                 node3Status = UNAVAILABLE;
             } catch (DataAccessException exception) {
                 System.out.println("updateMovie - Error occurred during transaction in node 3...");
                 node3TxManager.rollback(node3TxStatus);
+                healthMonitor.reportFailure(Node.NODE3, exception);
                 node3Status = ERROR;
             }
         } else {
@@ -1144,54 +1557,75 @@ public class DistributedDBService {
             throw new TransactionErrorException();
         }
 
+        // number the log of the write (by the node of the movie's year, or by node 1 if that node does not take part)
+        Log log;
+        try {
+            log = numberLog(tUuid, "UPDATE", movie, node1Status, node2Status, node3Status);
+        } catch (DataAccessException exception) {
+            if (node1Status == OK) {
+                node1TxManager.rollback(node1TxStatus);
+            }
+            if (node2Status == OK) {
+                node2TxManager.rollback(node2TxStatus);
+            }
+            if (node3Status == OK) {
+                node3TxManager.rollback(node3TxStatus);
+            }
+            System.out.println("updateMovie - Error occurred while numbering the transaction log, throwing exception...");
+            throw new TransactionErrorException();
+        }
+
         // if both nodes are ready for commit
         if (node2Status == OK) {
             // try node 2 commit transaction
             try {
                 // add transaction log
-                node2Repo.addLog(new Log(tUuid, "UPDATE", movie.getUuid(), movie.getYear(), getCurrTimestamp()));
+                node2Repo.addLog(log);
                 node2TxManager.commit(node2TxStatus);
             } catch (Exception e) {
                 // failure occurred during commit, set for recovery
-                node2Down = true;
+                clusterState.markDown(Node.NODE2);
                 node2Status = COMMIT_ERROR;
             }
         } else if (node3Status == OK) {
             // try node 3 commit transaction
             try {
                 // add transaction log
-                node3Repo.addLog(new Log(tUuid, "UPDATE", movie.getUuid(), movie.getYear(), getCurrTimestamp()));
+                node3Repo.addLog(log);
                 node3TxManager.commit(node3TxStatus);
             } catch (Exception e) {
                 // failure occurred during commit, set for recovery
-                node3Down = true;
+                clusterState.markDown(Node.NODE3);
                 node3Status = COMMIT_ERROR;
             }
         }
         // try node 1 commit transaction
         if (node1Status == OK) {
             try {
-                node1Repo.addLog(new Log(tUuid, "UPDATE", movie.getUuid(), movie.getYear(), getCurrTimestamp()));
+                log = renumberIfNotCommitted(log, node2Status, node3Status);
+                node1Repo.addLog(log);
                 node1TxManager.commit(node1TxStatus);
             } catch (Exception e) {
                 // failure occurred during commit, set for recovery
-                node1Down = true;
+                clusterState.markDown(Node.NODE1);
                 node1Status = COMMIT_ERROR;
             }
         }
 
+        // movie changed, invalidate anything derived from it
+        if ((node1Status == OK || node2Status == OK || node3Status == OK) && previous != null) {
+            movieChanged("UPDATE", previous, movie);
+        }
+
         // if a node suddenly went down or failed to commit to during transaction, signal server for db re-sync
         if ((node1Status == UNAVAILABLE || node1Status == COMMIT_ERROR) && (node2Status == OK || node3Status == OK)) {
-            node1Down = true;
-            resyncEnabled = true;
+            clusterState.markDownForResync(Node.NODE1);
         }
         if ((node2Status == UNAVAILABLE || node2Status == COMMIT_ERROR) && node1Status == OK) {
-            node2Down = true;
-            resyncEnabled = true;
+            clusterState.markDownForResync(Node.NODE2);
         }
         if ((node3Status == UNAVAILABLE || node3Status == COMMIT_ERROR) && node1Status == OK) {
-            node3Down = true;
-            resyncEnabled = true;
+            clusterState.markDownForResync(Node.NODE3);
         }
 
         // operation cannot be done if both nodes are unavailable, throw exception for user to try again the query later
@@ -1207,15 +1641,36 @@ public class DistributedDBService {
         }
     }
 
+    // deletes the movie on node 1 and on the node of its year, waiting while re-sync catches up either of them
     public void deleteMovie(Movie movie) throws Exception {
-        // STRATEGY: Delete existing movie data on node 1 first then deleting on node 2 or 3 depending on year of new movie
-        // RECOVERY METHOD: Deferred Modification
-        if (maintenance) {
-            throw new ServerMaintenanceException("Server in maintenance...");
+        // the routing index knows which of node 2 or 3 has the movie, else look up the movie if the year is not given
+        // (resolved before the fence is entered, so that the fence of the node that has the movie is the one held)
+        Integer indexedYear = routingIndex.getYear(movie.getUuid());
+        if (indexedYear != null) {
+            movie.setYear(indexedYear);
+        } else if (movie.getYear() == null) {
+            Movie existing = getMovieByUUID(movie.getUuid());
+            if (existing == null) {
+                System.out.println("deleteMovie - Movie with ID " + movie.getUuid() + " does not exist...");
+                return;
+            }
+            movie.setYear(existing.getYear());
         }
 
+        Node[] nodes = {Node.NODE1, FragmentRoutingIndex.fragmentOf(movie.getYear())};
+        writeFence.enter(nodes);
+        try {
+            applyDeleteMovie(movie);
+        } finally {
+            writeFence.exit(nodes);
+        }
+    }
+
+    private void applyDeleteMovie(Movie movie) throws Exception {
+        // STRATEGY: Delete existing movie data on node 1 first then deleting on node 2 or 3 depending on year of new movie
+        // RECOVERY METHOD: Deferred Modification
         // disable db resync
-        resyncEnabled = false;
+        clusterState.setResyncEnabled(false);
 
         // node statuses
         int node1Status = INIT;
@@ -1226,30 +1681,37 @@ public class DistributedDBService {
         TransactionStatus node2TxStatus = null;
         TransactionStatus node3TxStatus = null;
 
+        // data of the movie before the change
+        Movie previous = null;
+
         // generate new transaction uuid
         String tUuid = UUID.randomUUID().toString();
 
         node1TxStatus = node1TxManager.getTransaction(initTransactionDef());
         try {
-            if (node1Down) {
+            if (clusterState.current().isDown(Node.NODE1)) {
                 throw new SQLException ();
             }
             // try connection to node 1 before deleting movie data
-            node1Repo.tryConnection();
+            healthMonitor.checkAvailable(Node.NODE1);
             System.out.println("deleteMovie - Deleting data of movie with ID " + movie.getUuid() + " and year " + movie.getYear() + " from node 1...");
+            // lock the movie and keep its current data (needed to update the statistics after commit)
+            previous = node1Repo.getMovieByUUIDForUpdate(movie.getUuid());
             node1Repo.deleteMovie(movie);
             node1Status = OK; // transaction is ready for commit
             System.out.println("deleteMovie - Movie data in node 1 deleted...");
-        } catch (SQLException sqlException) {
+        } catch (SQLException | DataAccessResourceFailureException sqlException) {
             // node 1 is currently down
             System.out.println("deleteMovie - Node 1 is currently down...");
             node1TxManager.rollback(node1TxStatus);
-            node1Down = true;
+            healthMonitor.reportFailure(Node.NODE1, sqlException);
+            clusterState.markDown(Node.NODE1);
             node1Status = UNAVAILABLE;
         } catch (DataAccessException exception) {
             // transaction error during insertion, rollback and don't redo
             System.out.println("deleteMovie - Error occurred during transaction in node 1...");
             node1TxManager.rollback(node1TxStatus);
+            healthMonitor.reportFailure(Node.NODE1, exception);
             node1Status = ERROR;
         }
 
@@ -1257,12 +1719,15 @@ public class DistributedDBService {
         if ((node1Status == OK || node1Status == UNAVAILABLE) && movie.getYear() < 1980) {
             node2TxStatus = node2TxManager.getTransaction(initTransactionDef());
             try {
-                if (node2Down) {
+                if (clusterState.current().isDown(Node.NODE2)) {
                     throw new SQLException ();
                 }
                 // try connection to node 2 before deleting data
-                node2Repo.tryConnection();
+                healthMonitor.checkAvailable(Node.NODE2);
                 System.out.println("deleteMovie - Deleting data of movie with ID " + movie.getUuid() + " and year " + movie.getYear() + " from node 2...");
+                if (previous == null) {
+                    previous = node2Repo.getMovieByUUIDForUpdate(movie.getUuid());
+                }
                 node2Repo.deleteMovie(movie);
                 node2Status = OK;
                 System.out.println("deleteMovie - Movie data in node 2 deleted...");
@@ -1272,38 +1737,45 @@ public class DistributedDBService {
 //            System.out.println("deleteMovie - Sleeping...");
 //            TimeUnit.SECONDS.sleep(10); // do some work
 //            System.out.println("deleteMovie - Done sleeping!");
-            } catch (SQLException sqlException) {
+            } catch (SQLException | DataAccessResourceFailureException sqlException) {
                 // node 2 is currently down
                 System.out.println("deleteMovie - Node 2 is currently down...");
                 node2TxManager.rollback(node2TxStatus);
-                node2Down = true;
+                healthMonitor.reportFailure(Node.NODE2, sqlException);
+                clusterState.markDown(Node.NODE2);
                 node2Status = UNAVAILABLE;
             } catch (DataAccessException exception) {
                 System.out.println("deleteMovie - Error occurred during transaction in node 2...");
                 node2TxManager.rollback(node2TxStatus);
+                healthMonitor.reportFailure(Node.NODE2, exception);
                 node2Status = ERROR;
             }
         } else if ((node1Status == OK || node1Status == UNAVAILABLE) && movie.getYear() >= 1980) {
             node3TxStatus = node3TxManager.getTransaction(initTransactionDef());
             try {
-                if (node3Down) {
+                if (clusterState.current().isDown(Node.NODE3)) {
                     throw new SQLException ();
                 }
                 // try connection to node 3 before updating data
-                node3Repo.tryConnection();
+                healthMonitor.checkAvailable(Node.NODE3);
                 System.out.println("deleteMovie - Deleting data of movie with ID " + movie.getUuid() + " and year " + movie.getYear() + " from node 3...");
+                if (previous == null) {
+                    previous = node3Repo.getMovieByUUIDForUpdate(movie.getUuid());
+                }
                 node3Repo.deleteMovie(movie);
                 node3Status = OK;
                 System.out.println("deleteMovie - Movie data in node 3 deleted...");
-            } catch (SQLException sqlException) {
+            } catch (SQLException | DataAccessResourceFailureException sqlException) {
                 // node 3 is currently down
                 System.out.println("deleteMovie - Node 3 is currently down...");
                 node3TxManager.rollback(node3TxStatus);
-                node3Down = true;
+                healthMonitor.reportFailure(Node.NODE3, sqlException);
+                clusterState.markDown(Node.NODE3);
                 node3Status = UNAVAILABLE;
             } catch (DataAccessException exception) {
                 System.out.println("deleteMovie - Error occurred during transaction in node 3...");
                 node3TxManager.rollback(node3TxStatus);
+                healthMonitor.reportFailure(Node.NODE3, exception);
                 node3Status = ERROR;
             }
         } else {
@@ -1319,54 +1791,75 @@ public class DistributedDBService {
             throw new TransactionErrorException();
         }
 
+        // number the log of the write (by the node of the movie's year, or by node 1 if that node does not take part)
+        Log log;
+        try {
+            log = numberLog(tUuid, "DELETE", movie, node1Status, node2Status, node3Status);
+        } catch (DataAccessException exception) {
+            if (node1Status == OK) {
+                node1TxManager.rollback(node1TxStatus);
+            }
+            if (node2Status == OK) {
+                node2TxManager.rollback(node2TxStatus);
+            }
+            if (node3Status == OK) {
+                node3TxManager.rollback(node3TxStatus);
+            }
+            System.out.println("deleteMovie - Error occurred while numbering the transaction log, throwing exception...");
+            throw new TransactionErrorException();
+        }
+
         // if both nodes are ready for commit
         if (node2Status == OK) {
             // try node 2 commit transaction
             try {
                 // add transaction log
-                node2Repo.addLog(new Log(tUuid, "DELETE", movie.getUuid(), movie.getYear(), getCurrTimestamp()));
+                node2Repo.addLog(log);
                 node2TxManager.commit(node2TxStatus);
             } catch (Exception e) {
                 // failure occurred during commit, set for recovery
-                node2Down = true;
+                clusterState.markDown(Node.NODE2);
                 node2Status = COMMIT_ERROR;
             }
         } else if (node3Status == OK) {
             // try node 3 commit transaction
             try {
                 // add transaction log
-                node3Repo.addLog(new Log(tUuid, "DELETE", movie.getUuid(), movie.getYear(), getCurrTimestamp()));
+                node3Repo.addLog(log);
                 node3TxManager.commit(node3TxStatus);
             } catch (Exception e) {
                 // failure occurred during commit, set for recovery
-                node3Down = true;
+                clusterState.markDown(Node.NODE3);
                 node3Status = COMMIT_ERROR;
             }
         }
         // try node 1 commit transaction
         if (node1Status == OK) {
             try {
-                node1Repo.addLog(new Log(tUuid, "DELETE", movie.getUuid(), movie.getYear(), getCurrTimestamp()));
+                log = renumberIfNotCommitted(log, node2Status, node3Status);
+                node1Repo.addLog(log);
                 node1TxManager.commit(node1TxStatus);
             } catch (Exception e) {
                 // failure occurred during commit, set for recovery
-                node1Down = true;
+                clusterState.markDown(Node.NODE1);
                 node1Status = COMMIT_ERROR;
             }
         }
 
+        // movie changed, invalidate anything derived from it
+        if ((node1Status == OK || node2Status == OK || node3Status == OK) && previous != null) {
+            movieChanged("DELETE", previous, previous);
+        }
+
         // if a node suddenly went down or failed to commit to during transaction, signal server for db re-sync
         if ((node1Status == UNAVAILABLE || node1Status == COMMIT_ERROR) && (node2Status == OK || node3Status == OK)) {
-            node1Down = true;
-            resyncEnabled = true;
+            clusterState.markDownForResync(Node.NODE1);
         }
         if ((node2Status == UNAVAILABLE || node2Status == COMMIT_ERROR) && node1Status == OK) {
-            node2Down = true;
-            resyncEnabled = true;
+            clusterState.markDownForResync(Node.NODE2);
         }
         if ((node3Status == UNAVAILABLE || node3Status == COMMIT_ERROR) && node1Status == OK) {
-            node3Down = true;
-            resyncEnabled = true;
+            clusterState.markDownForResync(Node.NODE3);
         }
 
         // operation cannot be done if both nodes are unavailable, throw exception for user to try again the query later
@@ -1387,271 +1880,159 @@ public class DistributedDBService {
     @Scheduled(initialDelay = 1000, fixedDelay = 20000)
     private void resyncDB() {
         // initial check
-        if (resyncEnabled) {
+        if (clusterState.current().isResyncEnabled()) {
             System.out.println("resyncDB - Checking if nodes are in consistent state...");
             try {
                 // check if all nodes are online
-                node1Repo.tryConnection();
-                node2Repo.tryConnection();
-                node3Repo.tryConnection();
+                healthMonitor.checkAvailable(Node.NODE1);
+                healthMonitor.checkAvailable(Node.NODE2);
+                healthMonitor.checkAvailable(Node.NODE3);
 
-                // check if nodes are in consistent state (equal number of logs between nodes)
-                if (node1Repo.getNode2LogsCount() == node2Repo.getLogsCount() && node1Repo.getNode3LogsCount() == node3Repo.getLogsCount()) {
+                // check if nodes are in consistent state (every node applied every log numbered by the other nodes)
+                if (isCaughtUp()) {
                     // disable re-sync as not needed
                     System.out.println("resyncDB - Nodes are in consistent state...");
-                    resyncEnabled = false;
-                    node1Down = false;
-                    node2Down = false;
-                    node3Down = false;
+                    clusterState.update(state -> state.withAllUp().withResyncEnabled(false));
                 }
             } catch (Exception exception) {
                 // at least one node is down, cannot perform re-sync
                 System.out.println("resyncDB - At least one node is down, cancelling recovery initial check operation...");
-                resyncEnabled = false;
+                clusterState.setResyncEnabled(false);
             }
         }
 
         // if recovery is needed
-        if (resyncEnabled) {
-            // set maintenance so that user queries will not be accepted during the process (similar to database being down)
-            maintenance = true;
-
+        if (clusterState.current().isResyncEnabled()) {
+            // recovery is done online: a node being caught up stays marked as down, so its movies are read from the
+            // other nodes and writes keep being logged for it, only the writes to it wait during the final catch-up
             System.out.println("resyncDB - Performing recovery...");
 
-            boolean node1Recovery = true;
-            boolean node2Recovery = true;
-            boolean node3Recovery = true;
-            boolean node1Recovered = false;
-            boolean node2Recovered = false;
-            boolean node3Recovered = false;
-
-            // if node 1 was down during a transaction
-            while (node1Recovery) {
+            // node 1 is recovered first, then node 2 and node 3 at the same time if node 1 is recovered or was not down
+            boolean node1Up = !clusterState.current().isDown(Node.NODE1);
+            boolean recovered = recoveryCoordinator.recover(node1Up, () -> {
                 System.out.println("resyncDB - Checking and recovering node 1...");
                 // check if all nodes are up in order to perform re-syncing
-                try {
-                    node1Repo.tryConnection();
-                    node2Repo.tryConnection();
-                    node3Repo.tryConnection();
-
-                    // get recent node 1 logs for node 2 and 3
-                    Log recentNode2Log = node1Repo.getRecentNode2Log();
-                    Log recentNode3Log = node1Repo.getRecentNode3Log();
-
-                    // get logs that are more recent than node 1's recent log (transactions that occurred without node 1)
-                    List<Log> node2Logs;
-                    List<Log> node3Logs;
-                    if (recentNode2Log == null) {
-                        node2Logs = node2Repo.getAllLogs();
-                    } else {
-                        node2Logs = node2Repo.getLogs(recentNode2Log);
-                    }
-                    if (recentNode3Log == null) {
-                        node3Logs = node3Repo.getAllLogs();
-                    } else {
-                        node3Logs = node3Repo.getLogs(recentNode3Log);
-                    }
-
-                    // update node 1 db with node 2 logs
-                    for (int i = 0; i < node2Logs.size(); i++) {
-                        if (recentNode2Log == null || !recentNode2Log.getUuid().equalsIgnoreCase(node2Logs.get(i).getUuid())) {
-                            Movie movie = node2Repo.getMovieByUUID(node2Logs.get(i).getMovieUuid());
-                            if (movie != null) {
-                                String op = node2Logs.get(i).getOp();
-                                if (op.equalsIgnoreCase("INSERT")) {
-                                    node1Repo.addMovie(movie);
-                                } else if (op.equalsIgnoreCase("UPDATE")) {
-                                    node1Repo.updateMovie(movie);
-                                } else {
-                                    node1Repo.deleteMovie(movie);
-                                }
-                            } else {
-                                node1Repo.deleteMovie(node1Repo.getMovieByUUID(node2Logs.get(i).getMovieUuid()));
-                            }
-                            node1Repo.addLog(node2Logs.get(i));
-                        }
-                    }
-
-                    // update node 1 db with node 3 logs
-                    for (int i = 0; i < node3Logs.size(); i++) {
-                        if (recentNode3Log == null || !recentNode3Log.getUuid().equalsIgnoreCase(node3Logs.get(i).getUuid())) {
-                            Movie movie = node3Repo.getMovieByUUID(node3Logs.get(i).getMovieUuid());
-                            if (movie != null) {
-                                String op = node3Logs.get(i).getOp();
-                                if (op.equalsIgnoreCase("INSERT")) {
-                                    node1Repo.addMovie(movie);
-                                } else if (op.equalsIgnoreCase("UPDATE")) {
-                                    node1Repo.updateMovie(movie);
-                                } else {
-                                    node1Repo.deleteMovie(movie);
-                                }
-                            } else {
-                                node1Repo.deleteMovie(node1Repo.getMovieByUUID(node3Logs.get(i).getMovieUuid()));
-                            }
-                            node1Repo.addLog(node3Logs.get(i));
-                        }
-                    }
-
-                    // node 1 recovered
-                    System.out.println("resyncDB - Node 1 recovery process finished...");
-                    node1Down = false;
-                    node1Recovery = false;
-                } catch (SQLException sqlException) {
-                    // at least one node is down, cannot perform re-sync
-                    node1Recovery = false;
-                } catch (Exception exception) {
-                    // error occurred during a query, retry
-                    exception.printStackTrace();
-                }
-            }
-
-            // if node 2 was down during a transaction
-            while (node2Recovery) {
+                healthMonitor.checkAvailable(Node.NODE1);
+                healthMonitor.checkAvailable(Node.NODE2);
+                healthMonitor.checkAvailable(Node.NODE3);
+
+                int replayed = catchUp(Node.NODE1, this::replayNode1Logs);
+                System.out.println("resyncDB - Node 1 recovery process finished...");
+                return replayed;
+            }, () -> {
                 // check if both node 1 and node 2 is up to perform re-syncing
-                try {
-                    node1Repo.tryConnection();
-                    node2Repo.tryConnection();
-
-                    // get recent node 2 log
-                    Log recentNode2Log = node2Repo.getRecentLog();
-
-                    // get logs that are more recent than node 2's recent log (transactions that occurred without node 2)
-                    List<Log> node1Logs;
-                    if (recentNode2Log != null) {
-                        node1Logs = node1Repo.getLogsForNode2(recentNode2Log);
-                    } else {
-                        node1Logs = node1Repo.getAllLogsForNode2();
-                    }
+                healthMonitor.checkAvailable(Node.NODE1);
+                healthMonitor.checkAvailable(Node.NODE2);
 
-                    // update node 2 db with node 1 logs
-                    for (int i = 0; i < node1Logs.size(); i++) {
-                        if (recentNode2Log == null || !recentNode2Log.getUuid().equalsIgnoreCase(node1Logs.get(i).getUuid()) &&
-                            node1Logs.get(i).getMovieYear() < 1980) {
-                            Movie movie = node1Repo.getMovieByUUID(node1Logs.get(i).getMovieUuid());
-                            if (movie != null) {
-                                String op = node1Logs.get(i).getOp();
-                                if (op.equalsIgnoreCase("INSERT")) {
-                                    node2Repo.addMovie(movie);
-                                } else if (op.equalsIgnoreCase("UPDATE")) {
-                                    node2Repo.updateMovie(movie);
-                                } else {
-                                    node2Repo.deleteMovie(movie);
-                                }
-                            } else {
-                                node2Repo.deleteMovie(node2Repo.getMovieByUUID(node1Logs.get(i).getMovieUuid()));
-                            }
-                            node2Repo.addLog(node1Logs.get(i));
-                        }
-                    }
-
-                    // node 2 recovered
-                    System.out.println("resyncDB - Node 2 recovery process finished...");
-                    node2Down = false;
-                    node2Recovery = false;
-                } catch (SQLException sqlException) {
-                    node2Recovery = false;
-                } catch (Exception exception) {}
-            }
-
-            // if node 3 was down during a transaction
-            while (node3Recovery) {
+                int replayed = catchUp(Node.NODE2, this::replayNode2Logs);
+                System.out.println("resyncDB - Node 2 recovery process finished...");
+                return replayed;
+            }, () -> {
                 // check if both node 1 and node 3 is up to perform re-syncing
-                try {
-                    node1Repo.tryConnection();
-                    node3Repo.tryConnection();
-
-                    // get recent node 3 log
-                    Log recentNode3Log = node3Repo.getRecentLog();
-
-                    // get logs that are more recent than node 3's recent log (transactions that occurred without node 3)
-                    List<Log> node1Logs;
-                    if (recentNode3Log != null) {
-                        node1Logs = node1Repo.getLogsForNode3(recentNode3Log);
-                    } else {
-                        node1Logs = node1Repo.getAllLogsForNode3();
-                    }
-
-                    // update node 3 db with node 1 logs
-                    for (int i = 0; i < node1Logs.size(); i++) {
-                        if (recentNode3Log == null || !recentNode3Log.getUuid().equalsIgnoreCase(node1Logs.get(i).getUuid()) &&
-                            node1Logs.get(i).getMovieYear() >= 1980) {
-                            Movie movie = node1Repo.getMovieByUUID(node1Logs.get(i).getMovieUuid());
-                            if (movie != null) {
-                                String op = node1Logs.get(i).getOp();
-                                if (op.equalsIgnoreCase("INSERT")) {
-                                    node3Repo.addMovie(movie);
-                                } else if (op.equalsIgnoreCase("UPDATE")) {
-                                    node3Repo.updateMovie(movie);
-                                } else {
-                                    node3Repo.deleteMovie(movie);
-                                }
-                            } else {
-                                node3Repo.deleteMovie(node3Repo.getMovieByUUID(node1Logs.get(i).getMovieUuid()));
-                            }
-                            node3Repo.addLog(node1Logs.get(i));
-                        }
-                    }
-
-                    // node 3 recovered
-                    System.out.println("resyncDB - Node 3 recovery process finished...");
-                    node3Down = false;
-                    node3Recovery = false;
-                } catch (SQLException sqlException) {
-                    node3Recovery = false;
-                } catch (Exception exception) {}
-            }
-
-            // check if all nodes are in consistent state and do not need recovery anymore
-            try {
-                // all nodes must be available
-                node1Repo.tryConnection();
-                node2Repo.tryConnection();
-                node3Repo.tryConnection();
-
-                if (node1Repo.getNode2LogsCount() == node2Repo.getLogsCount() && node1Repo.getNode3LogsCount() == node3Repo.getLogsCount()) {
-                    System.out.println("resyncDB - Nodes are in consistent state");
-                    node1Recovered = true;
-                    node2Recovered = true;
-                    node3Recovered = true;
+                healthMonitor.checkAvailable(Node.NODE1);
+                healthMonitor.checkAvailable(Node.NODE3);
+
+                int replayed = catchUp(Node.NODE3, this::replayNode3Logs);
+                System.out.println("resyncDB - Node 3 recovery process finished...");
+                return replayed;
+            });
+
+            // re-synced nodes may now return different movies
+            catalogChanged();
+
+            // if all nodes are in consistent state, delete logs from each node to have more space
+            // every write also writes to node 1, so closing the fence of node 1 keeps the logs from changing meanwhile
+            boolean logDeletion = true;
+            while (logDeletion) {
+                if (!writeFence.close(Node.NODE1)) {
+                    System.out.println("resyncDB - Writes did not finish in time, cancelling deletion of logs...");
+                    break;
                 }
-            } catch (Exception exception) {}
-
-            // if all nodes have recovered successfully, disable re-sync and delete logs from each node to have more space
-            while (node1Recovered && node2Recovered && node3Recovered && maintenance) {
-                System.out.println("resyncDB - Deleting logs from each node...");
-                // try deleting logs on each node
                 try {
-                    // try connection first to each node
-                    node1Repo.tryConnection();
-                    node2Repo.tryConnection();
-                    node3Repo.tryConnection();
+                    // all nodes must be available
+                    healthMonitor.checkAvailable(Node.NODE1);
+                    healthMonitor.checkAvailable(Node.NODE2);
+                    healthMonitor.checkAvailable(Node.NODE3);
 
-                    // delete logs on each node
-                    node1Repo.deleteLogs();
-                    node2Repo.deleteLogs();
-                    node3Repo.deleteLogs();
+                    if (isCaughtUp()) {
+                        System.out.println("resyncDB - Nodes are in consistent state");
+                        System.out.println("resyncDB - Deleting logs from each node...");
 
-                    // logs deleted successfully, release maintenance and disable re-sync
-                    maintenance = false;
-                    resyncEnabled = false;
+                        // delete logs on each node
+                        node1Repo.deleteLogs();
+                        node2Repo.deleteLogs();
+                        node3Repo.deleteLogs();
 
-                    System.out.println("resyncDB - All logs deleted from each node...");
+                        System.out.println("resyncDB - All logs deleted from each node...");
+                    }
+                    logDeletion = false;
                 } catch (SQLException sqlException) {
                     // at least one node is down, cannot perform deletion of logs
                     System.out.println("resyncDB - At least one node is down during deletion of logs, cancelling operation...");
-                    maintenance = false;
+                    logDeletion = false;
                 } catch (Exception exception) {
                     // error occurred during query, repeat process
                     System.out.println("resyncDB - Error occurred during deletion of logs, repeating operation");
+                } finally {
+                    writeFence.open(Node.NODE1);
                 }
             }
 
-            // if at least one node is up, release maintenance and disable re-sync for now
-            if (!node1Down || !node2Down || !node3Down) {
-                maintenance = false;
-                resyncEnabled = false;
+            // if at least one node is up, disable re-sync for now (a recovery that failed on every attempt is retried)
+            if (recovered && !clusterState.current().isAllDown()) {
+                clusterState.setResyncEnabled(false);
             }
         }
     }
 
+    // replays the missed logs while writes to the node continue, then closes the fence of the node for a last pass over
+    // the logs written in the meantime, and puts the node back in use before the writes to it resume
+    private int catchUp(Node node, IntSupplier replay) throws Exception {
+        int replayed = replay.getAsInt();
+
+        if (!writeFence.close(node)) {
+            System.out.println("resyncDB - Writes to " + node + " did not finish in time, retrying catch-up...");
+            throw new Exception ();
+        }
+        try {
+            replayed += replay.getAsInt();
+            clusterState.markUp(node);
+        } finally {
+            writeFence.open(node);
+        }
+        return replayed;
+    }
+
+    // every node has applied every log numbered by the other nodes for its years
+    private boolean isCaughtUp() {
+        return node1Repo.getAppliedLsn(Node.NODE2, Node.NODE2) >= node2Repo.getLastLsn(Node.NODE2) &&
+                node1Repo.getAppliedLsn(Node.NODE3, Node.NODE3) >= node3Repo.getLastLsn(Node.NODE3) &&
+                node2Repo.getAppliedLsn(Node.NODE1, Node.NODE2) >= node1Repo.getLastLsn(Node.NODE2) &&
+                node3Repo.getAppliedLsn(Node.NODE1, Node.NODE3) >= node1Repo.getLastLsn(Node.NODE3);
+    }
+
+    // ships to node 1 the logs numbered by node 2 and node 3 (transactions that occurred without node 1)
+    private int replayNode1Logs() {
+        int replayed = logReplayer.replayFrom(node1Repo.getAppliedLsn(Node.NODE2, Node.NODE2),
+                (lsn, limit) -> node2Repo.getLogsAfter(Node.NODE2, Node.NODE2, lsn, limit),
+                node2Repo::getMoviesByUUIDs, node1Repo::replayBatch, node1TxManager, initTransactionDef());
+        return replayed + logReplayer.replayFrom(node1Repo.getAppliedLsn(Node.NODE3, Node.NODE3),
+                (lsn, limit) -> node3Repo.getLogsAfter(Node.NODE3, Node.NODE3, lsn, limit),
+                node3Repo::getMoviesByUUIDs, node1Repo::replayBatch, node1TxManager, initTransactionDef());
+    }
+
+    // ships to node 2 the logs numbered by node 1 for the movies before 1980 (transactions that occurred without node 2)
+    private int replayNode2Logs() {
+        return logReplayer.replayFrom(node2Repo.getAppliedLsn(Node.NODE1, Node.NODE2),
+                (lsn, limit) -> node1Repo.getLogsAfter(Node.NODE1, Node.NODE2, lsn, limit),
+                node1Repo::getMoviesByUUIDs, node2Repo::replayBatch, node2TxManager, initTransactionDef());
+    }
+
+    // ships to node 3 the logs numbered by node 1 for the movies from 1980 (transactions that occurred without node 3)
+    private int replayNode3Logs() {
+        return logReplayer.replayFrom(node3Repo.getAppliedLsn(Node.NODE1, Node.NODE3),
+                (lsn, limit) -> node1Repo.getLogsAfter(Node.NODE1, Node.NODE3, lsn, limit),
+                node1Repo::getMoviesByUUIDs, node3Repo::replayBatch, node3TxManager, initTransactionDef());
+    }
+
 }
@@ -0,0 +1,73 @@
+package com.stadvdb.group22.mco2.service;
+
+// plans which rows of node 2 and node 3 make up a page when node 1 is unavailable
+// node 2 holds all movies before 1980 and node 3 holds the rest, so in (yr, uuid) order every node 2 row comes before
+// every node 3 row and a page is a window of node 2, a window of node 3, or the end of node 2 followed by the start of node 3
+public final class FragmentPagePlan {
+
+    private final long node2Offset;
+    private final int node2Limit;
+    private final long node3Offset;
+    private final int node3Limit;
+    private final int total;
+
+    private FragmentPagePlan(long node2Offset, int node2Limit, long node3Offset, int node3Limit, int total) {
+        this.node2Offset = node2Offset;
+        this.node2Limit = node2Limit;
+        this.node3Offset = node3Offset;
+        this.node3Limit = node3Limit;
+        this.total = total;
+    }
+
+    // offset and limit are relative to the combined (node 2 then node 3) ordering
+    public static FragmentPagePlan plan(long offset, int limit, int node2Count, int node3Count) {
+        int total = node2Count + node3Count;
+        if (offset < 0 || limit <= 0 || offset >= total) {
+            return new FragmentPagePlan(0, 0, 0, 0, total);
+        }
+        long end = Math.min(offset + limit, (long) total);
+
+        // rows of the window that fall within node 2
+        long node2Start = Math.min(offset, node2Count);
+        long node2End = Math.min(end, node2Count);
+
+        // rows of the window that fall within node 3 (shifted by the rows of node 2)
+        long node3Start = Math.max(offset, node2Count) - node2Count;
+        long node3End = Math.max(end, node2Count) - node2Count;
+
+        return new FragmentPagePlan(node2Start, (int) (node2End - node2Start), node3Start, (int) (node3End - node3Start), total);
+    }
+
+    public boolean readsNode2() {
+        return node2Limit > 0;
+    }
+
+    public boolean readsNode3() {
+        return node3Limit > 0;
+    }
+
+    public long getNode2Offset() {
+        return node2Offset;
+    }
+
+    public int getNode2Limit() {
+        return node2Limit;
+    }
+
+    public long getNode3Offset() {
+        return node3Offset;
+    }
+
+    public int getNode3Limit() {
+        return node3Limit;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    @Override
+    public String toString () {
+        return "FragmentPagePlan(node2=" + node2Offset + "+" + node2Limit + ", node3=" + node3Offset + "+" + node3Limit + ", total=" + total + ")";
+    }
+}
@@ -0,0 +1,346 @@
+package com.stadvdb.group22.mco2.service;
+
+import com.stadvdb.group22.mco2.config.DBConfig;
+import com.stadvdb.group22.mco2.model.ClusterState;
+import com.stadvdb.group22.mco2.model.Movie;
+import com.stadvdb.group22.mco2.model.Node;
+import com.stadvdb.group22.mco2.repository.Node1Repository;
+import com.stadvdb.group22.mco2.repository.Node2Repository;
+import com.stadvdb.group22.mco2.repository.Node3Repository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// maps the uuid of every movie to its year, and so to the node (2 or 3) that holds it, so that a movie can be read
+// from its fragment without the client giving its year and without going through node 1
+// uuids are kept as two longs in an open addressing table (18 bytes per slot, kept between a quarter and half full, so
+// 36 to 72 bytes per movie), rebuilt from the nodes at startup and after every re-sync, and kept up to date by the
+// writes in between
+@Component
+public class FragmentRoutingIndex implements CatalogListener {
+
+    @Autowired
+    private Node1Repository node1Repo;
+
+    @Autowired
+    private Node2Repository node2Repo;
+
+    @Autowired
+    private Node3Repository node3Repo;
+
+    @Autowired
+    private NodeHealthMonitor healthMonitor;
+
+    @Autowired
+    private ClusterStateRegistry clusterState;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Table table = null;
+
+    // writes made while the index is being rebuilt, applied to the rebuilt table before it replaces the current one
+    private List<Change> pendingChanges = null;
+
+    private final ScheduledExecutorService rebuilder = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "fragment-routing-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        scheduleRebuild(0);
+    }
+
+    @PreDestroy
+    private void stop() {
+        rebuilder.shutdownNow();
+    }
+
+    // returns the year of the movie, or null if the movie is not known (yet) to the index
+    public Integer getYear(String uuid) {
+        UUID key = parse(uuid);
+        if (key == null) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            if (table == null) {
+                return null;
+            }
+            short year = table.get(key.getMostSignificantBits(), key.getLeastSignificantBits());
+            return year == Table.EMPTY ? null : (int) year;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // returns the node (2 or 3) that holds the movie, or null if the movie is not known (yet) to the index
+    public Node route(String uuid) {
+        Integer year = getYear(uuid);
+        return year == null ? null : fragmentOf(year);
+    }
+
+    public static Node fragmentOf(int year) {
+        return year < 1980 ? Node.NODE2 : Node.NODE3;
+    }
+
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return table != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return table == null ? 0 : table.size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void onInsert(Movie movie) {
+        apply(new Change(movie.getUuid(), movie.getYear()));
+    }
+
+    @Override
+    public void onUpdate(Movie previous, Movie movie) {
+        apply(new Change(movie.getUuid(), movie.getYear()));
+    }
+
+    @Override
+    public void onDelete(Movie movie) {
+        apply(new Change(movie.getUuid(), null));
+    }
+
+    @Override
+    public void onReload() {
+        scheduleRebuild(0);
+    }
+
+    private void apply(Change change) {
+        lock.writeLock().lock();
+        try {
+            if (table != null) {
+                change.applyTo(table);
+            }
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void scheduleRebuild(long delay) {
+        rebuilder.schedule(this::rebuild, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void rebuild() {
+        lock.writeLock().lock();
+        try {
+            pendingChanges = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Table rebuilt = new Table(size());
+        RowCallbackHandler loader = rs -> {
+            UUID key = parse(rs.getString("uuid"));
+            if (key != null) {
+                rebuilt.put(key.getMostSignificantBits(), key.getLeastSignificantBits(), (short) rs.getInt("yr"));
+            }
+        };
+        try {
+            // read from the fragments if both are consistent, else from node 1
+            ClusterState state = clusterState.current();
+            if (!state.isAnyDown(Node.NODE2, Node.NODE3) && healthMonitor.isAvailable(Node.NODE2) && healthMonitor.isAvailable(Node.NODE3)) {
+                System.out.println("FragmentRoutingIndex - Building index from nodes 2 & 3...");
+                node2Repo.scanMovieYears(loader);
+                node3Repo.scanMovieYears(loader);
+            } else if (!state.isDown(Node.NODE1) && healthMonitor.isAvailable(Node.NODE1)) {
+                System.out.println("FragmentRoutingIndex - Building index from node 1...");
+                node1Repo.scanMovieYears(loader);
+            } else {
+                throw new IllegalStateException("No node available");
+            }
+        } catch (Exception e) {
+            System.out.println("FragmentRoutingIndex - Cannot build index, retrying later...");
+            lock.writeLock().lock();
+            try {
+                pendingChanges = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            scheduleRebuild(DBConfig.HEALTH_MAX_BACKOFF);
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (Change change : pendingChanges) {
+                change.applyTo(rebuilt);
+            }
+            pendingChanges = null;
+            table = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        System.out.println("FragmentRoutingIndex - Index built with " + rebuilt.size + " movies...");
+    }
+
+    // movies whose uuid is not a valid UUID are not indexed (and are routed through node 1)
+    private static UUID parse(String uuid) {
+        if (uuid == null || uuid.length() != 36) {
+            return null;
+        }
+        try {
+            return UUID.fromString(uuid);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static final class Change {
+        private final String uuid;
+        private final Integer year;
+
+        // a null year removes the movie
+        private Change(String uuid, Integer year) {
+            this.uuid = uuid;
+            this.year = year;
+        }
+
+        private void applyTo(Table table) {
+            UUID key = parse(uuid);
+            if (key == null) {
+                return;
+            }
+            if (year == null) {
+                table.remove(key.getMostSignificantBits(), key.getLeastSignificantBits());
+            } else {
+                table.put(key.getMostSignificantBits(), key.getLeastSignificantBits(), year.shortValue());
+            }
+        }
+    }
+
+    // open addressing (linear probing) hash table of uuid -> year, a year of 0 marks an empty slot
+    // (package-private for the tests)
+    static final class Table {
+
+        static final short EMPTY = 0;
+        private static final int MIN_CAPACITY = 1024;
+
+        private long[] his;
+        private long[] los;
+        private short[] years;
+        private int mask;
+        int size = 0;
+
+        Table(int expectedSize) {
+            int capacity = MIN_CAPACITY;
+            while (capacity < expectedSize * 2) {
+                capacity <<= 1;
+            }
+            allocate(capacity);
+        }
+
+        private void allocate(int capacity) {
+            his = new long[capacity];
+            los = new long[capacity];
+            years = new short[capacity];
+            mask = capacity - 1;
+        }
+
+        int slot(long hi, long lo) {
+            long h = hi ^ Long.rotateLeft(lo, 32);
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            return (int) h & mask;
+        }
+
+        short get(long hi, long lo) {
+            for (int i = slot(hi, lo); years[i] != EMPTY; i = (i + 1) & mask) {
+                if (his[i] == hi && los[i] == lo) {
+                    return years[i];
+                }
+            }
+            return EMPTY;
+        }
+
+        void put(long hi, long lo, short year) {
+            if (year == EMPTY) {
+                return;
+            }
+            int i = slot(hi, lo);
+            for (; years[i] != EMPTY; i = (i + 1) & mask) {
+                if (his[i] == hi && los[i] == lo) {
+                    years[i] = year;
+                    return;
+                }
+            }
+            his[i] = hi;
+            los[i] = lo;
+            years[i] = year;
+            // keep the table at most half full so that probe sequences stay short
+            if (++size * 2 > years.length) {
+                grow();
+            }
+        }
+
+        void remove(long hi, long lo) {
+            int i = slot(hi, lo);
+            for (; years[i] != EMPTY; i = (i + 1) & mask) {
+                if (his[i] == hi && los[i] == lo) {
+                    break;
+                }
+            }
+            if (years[i] == EMPTY) {
+                return;
+            }
+            years[i] = EMPTY;
+            size--;
+            // shift back the following entries of the probe sequence so that lookups do not stop at the emptied slot
+            for (int j = (i + 1) & mask; years[j] != EMPTY; j = (j + 1) & mask) {
+                int home = slot(his[j], los[j]);
+                if (((j - home) & mask) >= ((j - i) & mask)) {
+                    his[i] = his[j];
+                    los[i] = los[j];
+                    years[i] = years[j];
+                    years[j] = EMPTY;
+                    i = j;
+                }
+            }
+        }
+
+        private void grow() {
+            long[] oldHis = his;
+            long[] oldLos = los;
+            short[] oldYears = years;
+            allocate(oldYears.length * 2);
+            size = 0;
+            for (int i = 0; i < oldYears.length; i++) {
+                if (oldYears[i] != EMPTY) {
+                    put(oldHis[i], oldLos[i], oldYears[i]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.stadvdb.group22.mco2.service;
+
+import com.stadvdb.group22.mco2.model.Log;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// reduces the logs missed by a node to one net effect per movie before they are replayed, so that re-sync does work
+// for every movie touched during the outage instead of for every write
+public final class LogCompactor {
+
+    public enum Effect {
+        // write the latest data of the movie (read from the source node)
+        UPSERT,
+        // delete the movie
+        DELETE,
+        // the movie was inserted and deleted within the logs, its data is not needed
+        NONE
+    }
+
+    private LogCompactor() {
+    }
+
+    // the logs must be in log order, returns the net effect per movie uuid in order of the last log of each movie
+    public static Map<String, Effect> compact(List<Log> logs) {
+        Map<String, String> firstOps = new LinkedHashMap<>();
+        Map<String, String> lastOps = new LinkedHashMap<>();
+        for (Log log : logs) {
+            firstOps.putIfAbsent(log.getMovieUuid(), log.getOp());
+            lastOps.remove(log.getMovieUuid());
+            lastOps.put(log.getMovieUuid(), log.getOp());
+        }
+
+        Map<String, Effect> effects = new LinkedHashMap<>();
+        for (Map.Entry<String, String> lastOp : lastOps.entrySet()) {
+            if (!lastOp.getValue().equalsIgnoreCase("DELETE")) {
+                effects.put(lastOp.getKey(), Effect.UPSERT);
+            } else if (firstOps.get(lastOp.getKey()).equalsIgnoreCase("INSERT")) {
+                effects.put(lastOp.getKey(), Effect.NONE);
+            } else {
+                effects.put(lastOp.getKey(), Effect.DELETE);
+            }
+        }
+        return effects;
+    }
+}
@@ -0,0 +1,117 @@
+package com.stadvdb.group22.mco2.service;
+
+import com.stadvdb.group22.mco2.config.DBConfig;
+import com.stadvdb.group22.mco2.model.Log;
+import com.stadvdb.group22.mco2.model.Movie;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// replays the logs of a source node on a target node during re-sync, a batch of movies at a time: the after-images of
+// the batch are read from the source with one lookup and written to the target in one transaction, instead of one
+// lookup and one write per log
+@Component
+public class LogReplayer {
+
+    // reads the current data of the movies from the source node (movies that no longer exist are left out)
+    public interface Source {
+        List<Movie> getMoviesByUUIDs(List<String> uuids) throws DataAccessException;
+    }
+
+    // writes the after-images, deletes the movies, adds the logs and moves the watermark on the target node
+    public interface Target {
+        void replayBatch(List<Movie> movies, List<String> deletedUuids, List<Log> logs) throws DataAccessException;
+    }
+
+    // reads the next logs of one origin and shard after a log sequence number from the source node, in order
+    public interface LogSource {
+        List<Log> getLogsAfter(long lsn, int limit) throws DataAccessException;
+    }
+
+    // ships the logs after the watermark of the target to the target a chunk at a time, each chunk being the next
+    // contiguous range of log sequence numbers, returns the number of movies that were written or deleted
+    // every chunk moves the watermark of the target with its last batch, so a failed re-sync resumes after the last
+    // shipped chunk
+    public int replayFrom(long appliedLsn, LogSource logs, Source source, Target target, PlatformTransactionManager txManager,
+                          TransactionDefinition definition) throws DataAccessException {
+        int replayed = 0;
+        long lsn = appliedLsn;
+        while (true) {
+            List<Log> chunk = logs.getLogsAfter(lsn, DBConfig.REPLAY_CHUNK_SIZE);
+            if (chunk.isEmpty()) {
+                return replayed;
+            }
+            replayed += replay(chunk, source, target, txManager, definition);
+            lsn = chunk.get(chunk.size() - 1).getLsn();
+            if (chunk.size() < DBConfig.REPLAY_CHUNK_SIZE) {
+                return replayed;
+            }
+        }
+    }
+
+    // replays the logs in order of their log sequence numbers, returns the number of movies that were written or deleted
+    // the logs are first compacted to one net effect per movie, the movies are then replayed a batch at a time and the
+    // logs are added (and the watermark moved) with the last batch: if a batch fails, the watermark has not moved yet
+    // and the next re-sync replays the logs again (writing the latest data and deleting are safe to repeat)
+    public int replay(List<Log> logs, Source source, Target target, PlatformTransactionManager txManager,
+                      TransactionDefinition definition) throws DataAccessException {
+        if (logs.isEmpty()) {
+            return 0;
+        }
+        List<Log> ordered = new ArrayList<>(logs);
+        ordered.sort(Comparator.comparingLong(Log::getLsn));
+
+        List<Map.Entry<String, LogCompactor.Effect>> effects = new ArrayList<>(LogCompactor.compact(ordered).entrySet());
+        System.out.println("replay - Compacted " + ordered.size() + " logs into changes to " + effects.size() + " movies...");
+
+        int from = 0;
+        do {
+            List<Map.Entry<String, LogCompactor.Effect>> batch = effects.subList(from, Math.min(from + DBConfig.REPLAY_BATCH_SIZE, effects.size()));
+            from += batch.size();
+
+            List<String> upsertUuids = new ArrayList<>();
+            List<String> deletedUuids = new ArrayList<>();
+            for (Map.Entry<String, LogCompactor.Effect> effect : batch) {
+                if (effect.getValue() == LogCompactor.Effect.UPSERT) {
+                    upsertUuids.add(effect.getKey());
+                } else {
+                    // a movie inserted and deleted within the logs needs no lookup, but the target may have taken part in
+                    // the insert after its watermark stopped moving, so it is deleted as well
+                    deletedUuids.add(effect.getKey());
+                }
+            }
+
+            // movies that no longer exist on the source are deleted
+            List<Movie> movies = upsertUuids.isEmpty() ? new ArrayList<>() : source.getMoviesByUUIDs(upsertUuids);
+            Set<String> found = new HashSet<>();
+            for (Movie movie : movies) {
+                found.add(movie.getUuid());
+            }
+            for (String uuid : upsertUuids) {
+                if (!found.contains(uuid)) {
+                    deletedUuids.add(uuid);
+                }
+            }
+
+            TransactionStatus status = txManager.getTransaction(definition);
+            try {
+                target.replayBatch(movies, deletedUuids, from == effects.size() ? ordered : new ArrayList<>());
+                txManager.commit(status);
+            } catch (DataAccessException exception) {
+                txManager.rollback(status);
+                throw exception;
+            }
+            System.out.println("replay - Replayed changes to " + from + " of " + effects.size() + " movies...");
+        } while (from < effects.size());
+        return effects.size();
+    }
+}
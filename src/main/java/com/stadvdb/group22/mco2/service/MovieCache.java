@@ -0,0 +1,146 @@
+package com.stadvdb.group22.mco2.service;
+
+import com.stadvdb.group22.mco2.config.CacheConfig;
+import com.stadvdb.group22.mco2.model.Movie;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// bounded cache of movies by uuid (segmented LRU with expiry), used by getMovieByUUID
+// new movies enter the probation segment and are promoted to the protected segment when read again, so movies that are
+// only read once (e.g. while paging through the listing) cannot push the frequently read movies out of the cache
+@Component
+public class MovieCache {
+
+    private final int maxSize = CacheConfig.MOVIE_CACHE_MAX_SIZE;
+    private final int maxProtectedSize = (int) (CacheConfig.MOVIE_CACHE_MAX_SIZE * CacheConfig.MOVIE_CACHE_PROTECTED_RATIO);
+
+    // both in least to most recently used order
+    private final LinkedHashMap<String, Entry> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, Entry> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+
+    // incremented on every invalidation, movies read before an invalidation are not cached as they may be stale
+    private long generation = 0;
+
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    private long expirations = 0;
+
+    // returns a copy of the cached movie, or null if it is not cached
+    public synchronized Movie get(String uuid) {
+        long now = System.currentTimeMillis();
+        Entry entry = protectedSegment.get(uuid);
+        if (entry == null) {
+            entry = probation.get(uuid);
+            if (entry != null && !entry.isExpired(now)) {
+                // read again, promote to the protected segment
+                probation.remove(uuid);
+                protectedSegment.put(uuid, entry);
+                demoteProtected();
+            }
+        }
+        if (entry != null && entry.isExpired(now)) {
+            probation.remove(uuid);
+            protectedSegment.remove(uuid);
+            expirations++;
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return copy(entry.movie);
+    }
+
+    // to be taken before reading a movie from the database, and passed to putIfFresh afterwards
+    public synchronized long stamp() {
+        return generation;
+    }
+
+    // caches the movie unless a movie was invalidated since the stamp was taken
+    public synchronized void putIfFresh(Movie movie, long stamp) {
+        if (stamp != generation) {
+            return;
+        }
+        String uuid = movie.getUuid();
+        Entry entry = new Entry(copy(movie), System.currentTimeMillis() + CacheConfig.MOVIE_CACHE_TTL);
+        if (protectedSegment.containsKey(uuid)) {
+            protectedSegment.put(uuid, entry);
+            return;
+        }
+        probation.put(uuid, entry);
+        while (probation.size() + protectedSegment.size() > maxSize) {
+            Map<String, Entry> segment = probation.isEmpty() ? protectedSegment : probation;
+            Iterator<String> eldest = segment.keySet().iterator();
+            eldest.next();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    public synchronized void invalidate(String uuid) {
+        probation.remove(uuid);
+        protectedSegment.remove(uuid);
+        generation++;
+    }
+
+    public synchronized void clear() {
+        probation.clear();
+        protectedSegment.clear();
+        generation++;
+    }
+
+    public synchronized int size() {
+        return probation.size() + protectedSegment.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized long getExpirations() {
+        return expirations;
+    }
+
+    // moves the least recently used protected movies back to probation once the protected segment is full
+    private void demoteProtected() {
+        while (protectedSegment.size() > maxProtectedSize) {
+            Iterator<Map.Entry<String, Entry>> eldest = protectedSegment.entrySet().iterator();
+            Map.Entry<String, Entry> demoted = eldest.next();
+            eldest.remove();
+            probation.put(demoted.getKey(), demoted.getValue());
+        }
+    }
+
+    // movies are mutable, so callers never get the cached instance itself
+    private static Movie copy(Movie movie) {
+        return new Movie(movie.getTitle(), movie.getYear(), movie.getGenre(), movie.getDirector(),
+                movie.getActor1(), movie.getActor2(), movie.getUuid());
+    }
+
+    private static final class Entry {
+        private final Movie movie;
+        private final long expiresAt;
+
+        private Entry(Movie movie, long expiresAt) {
+            this.movie = movie;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.stadvdb.group22.mco2.service;
+
+import com.stadvdb.group22.mco2.config.DBConfig;
+import com.stadvdb.group22.mco2.model.Node;
+
+// circuit breaker state of a single node, updated by the NodeHealthMonitor's background probes
+public class NodeHealth {
+
+    public enum Circuit {
+        CLOSED,     // node is up, requests are sent to it
+        OPEN,       // node is down, requests are not sent to it until a probe succeeds
+        HALF_OPEN   // node was down and is currently being probed
+    }
+
+    // weight of the most recent probe latency in the average latency
+    private static final double LATENCY_WEIGHT = 0.2;
+
+    private final Node node;
+
+    private volatile Circuit circuit = Circuit.CLOSED;
+    private volatile int consecutiveFailures = 0;
+    private volatile long backoff = DBConfig.HEALTH_MIN_BACKOFF;
+    private volatile long lastProbeTime = 0;
+    private volatile long nextProbeTime = 0;
+    private volatile long lastLatency = -1;
+    private volatile double averageLatency = -1;
+
+    public NodeHealth(Node node) {
+        this.node = node;
+    }
+
+    public boolean isAvailable() {
+        return circuit == Circuit.CLOSED;
+    }
+
+    // returns true if the circuit was closed by this probe
+    synchronized boolean recordSuccess(long latency, long now) {
+        boolean closed = circuit != Circuit.CLOSED;
+        circuit = Circuit.CLOSED;
+        consecutiveFailures = 0;
+        backoff = DBConfig.HEALTH_MIN_BACKOFF;
+        lastProbeTime = now;
+        nextProbeTime = now + DBConfig.HEALTH_PROBE_INTERVAL;
+        lastLatency = latency;
+        averageLatency = averageLatency < 0 ? latency : LATENCY_WEIGHT * latency + (1 - LATENCY_WEIGHT) * averageLatency;
+        return closed;
+    }
+
+    // returns true if the circuit was opened by this probe
+    synchronized boolean recordFailure(long now) {
+        consecutiveFailures++;
+        lastProbeTime = now;
+        if (circuit == Circuit.CLOSED && consecutiveFailures < DBConfig.HEALTH_FAILURE_THRESHOLD) {
+            nextProbeTime = now + DBConfig.HEALTH_PROBE_INTERVAL;
+            return false;
+        }
+
+        // double the backoff for every failed re-probe of a node that is already down
+        boolean opened = circuit == Circuit.CLOSED;
+        if (!opened) {
+            backoff = Math.min(backoff * 2, DBConfig.HEALTH_MAX_BACKOFF);
+        }
+        circuit = Circuit.OPEN;
+        nextProbeTime = now + backoff;
+        return opened;
+    }
+
+    synchronized void halfOpen() {
+        if (circuit == Circuit.OPEN) {
+            circuit = Circuit.HALF_OPEN;
+        }
+    }
+
+    public Node getNode() {
+        return node;
+    }
+
+    public Circuit getCircuit() {
+        return circuit;
+    }
+
+    public int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    public long getLastProbeTime() {
+        return lastProbeTime;
+    }
+
+    public long getNextProbeTime() {
+        return nextProbeTime;
+    }
+
+    public long getLastLatency() {
+        return lastLatency;
+    }
+
+    public double getAverageLatency() {
+        return averageLatency;
+    }
+}
@@ -0,0 +1,137 @@
+package com.stadvdb.group22.mco2.service;
+
+import com.stadvdb.group22.mco2.config.DBConfig;
+import com.stadvdb.group22.mco2.model.Node;
+import com.stadvdb.group22.mco2.repository.Node1Repository;
+import com.stadvdb.group22.mco2.repository.Node2Repository;
+import com.stadvdb.group22.mco2.repository.Node3Repository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// keeps track of the availability of each node by probing them in the background, so that requests only need to
+// check the in-memory circuit state of a node instead of opening a new connection to it every time
+@Component
+public class NodeHealthMonitor {
+
+    @Autowired
+    private Node1Repository node1Repo;
+
+    @Autowired
+    private Node2Repository node2Repo;
+
+    @Autowired
+    private Node3Repository node3Repo;
+
+    private final Map<Node, NodeHealth> health = new EnumMap<>(Node.class);
+    private final Map<Node, ScheduledFuture<?>> pendingProbes = new EnumMap<>(Node.class);
+
+    private ScheduledExecutorService prober;
+
+    public NodeHealthMonitor() {
+        for (Node node : Node.values()) {
+            health.put(node, new NodeHealth(node));
+        }
+    }
+
+    @PostConstruct
+    private void start() {
+        // one probe thread per node, so that a node that hangs until the login timeout does not delay the others
+        AtomicInteger count = new AtomicInteger();
+        prober = Executors.newScheduledThreadPool(Node.values().length, runnable -> {
+            Thread thread = new Thread(runnable, "node-health-probe-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (Node node : Node.values()) {
+            scheduleProbe(node, 0);
+        }
+    }
+
+    @PreDestroy
+    private void stop() {
+        prober.shutdownNow();
+    }
+
+    public boolean isAvailable(Node node) {
+        return health.get(node).isAvailable();
+    }
+
+    // throws SQLException if node is down, in place of trying a connection to the node
+    public void checkAvailable(Node node) throws SQLException {
+        if (!isAvailable(node)) {
+            throw new SQLException(node + " is currently down");
+        }
+    }
+
+    // called when a query to a node failed, re-probes the node right away if the failure looks like a connection failure
+    public void reportFailure(Node node, Exception e) {
+        if (e instanceof DataAccessResourceFailureException || e instanceof TransientDataAccessResourceException) {
+            System.out.println("NodeHealthMonitor - Query to " + node + " failed, probing " + node + "...");
+            scheduleProbe(node, 0);
+        }
+    }
+
+    public NodeHealth getHealth(Node node) {
+        return health.get(node);
+    }
+
+    private void scheduleProbe(Node node, long delay) {
+        synchronized (pendingProbes) {
+            if (prober.isShutdown()) {
+                return;
+            }
+            ScheduledFuture<?> pending = pendingProbes.get(node);
+            if (pending != null) {
+                pending.cancel(false);
+            }
+            pendingProbes.put(node, prober.schedule(() -> probe(node), delay, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    private void probe(Node node) {
+        NodeHealth nodeHealth = health.get(node);
+        nodeHealth.halfOpen();
+
+        long start = System.currentTimeMillis();
+        try {
+            tryConnection(node);
+            long now = System.currentTimeMillis();
+            if (nodeHealth.recordSuccess(now - start, now)) {
+                System.out.println("NodeHealthMonitor - " + node + " is back online...");
+            }
+        } catch (Exception e) {
+            if (nodeHealth.recordFailure(System.currentTimeMillis())) {
+                System.out.println("NodeHealthMonitor - " + node + " is currently down...");
+            }
+        }
+
+        scheduleProbe(node, Math.max(0, nodeHealth.getNextProbeTime() - System.currentTimeMillis()));
+    }
+
+    private void tryConnection(Node node) throws SQLException {
+        switch (node) {
+            case NODE1:
+                node1Repo.tryConnection();
+                break;
+            case NODE2:
+                node2Repo.tryConnection();
+                break;
+            case NODE3:
+                node3Repo.tryConnection();
+                break;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.stadvdb.group22.mco2.service;
+
+import com.stadvdb.group22.mco2.model.MovieKey;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// remembers where each page of the movie listing starts (the key of the last movie of the previous page), so that
+// numbered pages can seek from the nearest known page instead of skipping every row before it with OFFSET
+@Component
+public class PageBoundaryIndex {
+
+    // maximum number of page boundaries kept per page size
+    private static final int MAX_BOUNDARIES = 10000;
+
+    // page size -> (page number -> key of the last movie before that page)
+    private final Map<Integer, ConcurrentNavigableMap<Integer, MovieKey>> boundaries = new ConcurrentHashMap<>();
+
+    // incremented by every clear, a boundary read before a clear is not stored after it
+    private long generation = 0;
+
+    // returns the nearest known boundary at or before the page, or null if none is known
+    public Map.Entry<Integer, MovieKey> floor(int size, int page) {
+        ConcurrentNavigableMap<Integer, MovieKey> pages = boundaries.get(size);
+        return pages == null ? null : pages.floorEntry(page);
+    }
+
+    // to be taken before the page is read, and passed to record
+    public synchronized long generation() {
+        return generation;
+    }
+
+    public synchronized void record(long readGeneration, int size, int page, MovieKey after) {
+        if (page <= 0 || readGeneration != generation) {
+            return;
+        }
+        ConcurrentNavigableMap<Integer, MovieKey> pages = boundaries.computeIfAbsent(size, s -> new ConcurrentSkipListMap<>());
+        if (pages.size() < MAX_BOUNDARIES || pages.containsKey(page)) {
+            pages.put(page, after);
+        }
+    }
+
+    // boundaries shift whenever a movie is added, updated or deleted
+    public synchronized void clear() {
+        generation++;
+        boundaries.clear();
+    }
+}
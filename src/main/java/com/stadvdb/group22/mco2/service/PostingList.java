@@ -0,0 +1,112 @@
+package com.stadvdb.group22.mco2.service;
+
+import java.util.Arrays;
+
+// sorted list of row ids, stored as variable-length encoded gaps between consecutive ids
+// every SKIP_INTERVAL ids a skip pointer (id and byte offset) is kept, so a cursor can jump close to a target id
+// instead of decoding every id before it
+// row ids must be added in increasing order, not thread-safe (guarded by the lock of SearchIndex)
+final class PostingList {
+
+    private static final int SKIP_INTERVAL = 64;
+
+    private byte[] data = new byte[8];
+    private int length = 0;
+    private int size = 0;
+    private int last = -1;
+
+    // id of the last entry before each skip block, and the offset of the first entry of the block
+    private int[] skipIds = new int[0];
+    private int[] skipOffsets = new int[0];
+    private int skips = 0;
+
+    void add(int rowId) {
+        if (rowId <= last) {
+            throw new IllegalArgumentException("Row ids must be added in increasing order");
+        }
+        if (size > 0 && size % SKIP_INTERVAL == 0) {
+            if (skips == skipIds.length) {
+                skipIds = Arrays.copyOf(skipIds, Math.max(4, skips * 2));
+                skipOffsets = Arrays.copyOf(skipOffsets, Math.max(4, skips * 2));
+            }
+            skipIds[skips] = last;
+            skipOffsets[skips] = length;
+            skips++;
+        }
+        writeVarInt(rowId - last);
+        last = rowId;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    Cursor cursor() {
+        return new Cursor();
+    }
+
+    private void writeVarInt(int value) {
+        if (length + 5 > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, length + 5));
+        }
+        while ((value & ~0x7F) != 0) {
+            data[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[length++] = (byte) value;
+    }
+
+    // iterates the row ids in increasing order
+    final class Cursor {
+
+        private int offset = 0;
+        private int index = 0;
+        private int current = -1;
+        private int nextSkip = 0;
+        private boolean exhausted = false;
+
+        // returns the next row id, or -1 if there are no more
+        int next() {
+            if (index >= size) {
+                exhausted = true;
+                return -1;
+            }
+            int gap = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[offset++];
+                gap |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            current += gap;
+            index++;
+            return current;
+        }
+
+        // returns the first row id that is at least the target, or -1 if there is none
+        int advanceTo(int target) {
+            if (exhausted) {
+                return -1;
+            }
+            if (index > 0 && current >= target) {
+                return current;
+            }
+            // jump over whole blocks whose ids are all smaller than the target
+            while (nextSkip < skips && skipIds[nextSkip] < target) {
+                if (skipOffsets[nextSkip] > offset) {
+                    offset = skipOffsets[nextSkip];
+                    current = skipIds[nextSkip];
+                    index = (nextSkip + 1) * SKIP_INTERVAL;
+                }
+                nextSkip++;
+            }
+            int rowId;
+            do {
+                rowId = next();
+            } while (rowId != -1 && rowId < target);
+            return rowId;
+        }
+    }
+}
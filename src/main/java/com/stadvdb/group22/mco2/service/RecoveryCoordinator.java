@@ -0,0 +1,113 @@
+package com.stadvdb.group22.mco2.service;
+
+import com.stadvdb.group22.mco2.model.Node;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// runs the re-sync of the nodes: node 1 first, as nodes 2 and 3 are caught up from the logs of node 1, then nodes 2
+// and 3 at the same time (only if node 1 is in a consistent state), as they hold different years and write to different databases
+// so only the recovery that writes to node 1 is run on its own, and the recovery of the fragments takes as long as the
+// slowest one instead of both one after the other
+@Component
+public class RecoveryCoordinator {
+
+    // one attempt of the recovery of a node, returns the number of movies written or deleted
+    // throws SQLException if a node needed for the recovery is down (not retried until the next re-sync)
+    public interface Recovery {
+        int recover() throws Exception;
+    }
+
+    private final Map<Node, RecoveryProgress> progress = new EnumMap<>(Node.class);
+
+    // runs the recovery of node 2 while the re-sync thread runs the recovery of node 3
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "recovery-node2");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public RecoveryCoordinator() {
+        for (Node node : Node.values()) {
+            progress.put(node, new RecoveryProgress(node));
+        }
+    }
+
+    @PreDestroy
+    private void stop() {
+        executor.shutdownNow();
+    }
+
+    // returns false if a recovery failed on every attempt (so that re-sync stays enabled and retries it)
+    // node1Up tells whether node 1 had every write before the re-sync (was not marked down), else nodes 2 and 3 are only
+    // caught up once node 1 is recovered, as the logs and movies they are caught up from may be missing on node 1
+    public boolean recover(boolean node1Up, Recovery node1, Recovery node2, Recovery node3) {
+        boolean recovered = run(Node.NODE1, node1);
+        if (!node1Up && progress.get(Node.NODE1).getState() != RecoveryProgress.State.RECOVERED) {
+            System.out.println("recover - Node 1 was not recovered, skipping recovery of " + Node.NODE2 + " and " + Node.NODE3 + "...");
+            long now = System.currentTimeMillis();
+            progress.get(Node.NODE2).skip(now);
+            progress.get(Node.NODE3).skip(now);
+            return recovered;
+        }
+
+        Future<Boolean> node2Recovered = executor.submit(() -> run(Node.NODE2, node2));
+        recovered &= run(Node.NODE3, node3);
+        try {
+            recovered &= node2Recovered.get();
+        } catch (InterruptedException exception) {
+            node2Recovered.cancel(true);
+            Thread.currentThread().interrupt();
+            recovered = false;
+        } catch (ExecutionException exception) {
+            recovered = false;
+        }
+        return recovered;
+    }
+
+    // retries the recovery with a doubling backoff until it succeeds, a node is down or there are no attempts left
+    private boolean run(Node node, Recovery recovery) {
+        RecoveryProgress nodeProgress = progress.get(node);
+        nodeProgress.start(System.currentTimeMillis());
+        while (true) {
+            nodeProgress.attempt();
+            try {
+                int replayed = recovery.recover();
+                nodeProgress.recordRecovered(replayed, System.currentTimeMillis());
+                return true;
+            } catch (SQLException sqlException) {
+                // at least one node is down, cannot perform re-sync
+                System.out.println("recover - A node needed to recover " + node + " is down, cancelling operation...");
+                nodeProgress.finish(RecoveryProgress.State.NODE_DOWN, System.currentTimeMillis());
+                return true;
+            } catch (Exception exception) {
+                // error occurred during a query, retry after the backoff
+                long backoff = nodeProgress.recordFailure(exception, System.currentTimeMillis());
+                if (backoff < 0) {
+                    System.out.println("recover - Recovery of " + node + " failed on every attempt, retrying on next re-sync...");
+                    return false;
+                }
+                System.out.println("recover - Error occurred during recovery of " + node + ", retrying in " + backoff + " ms...");
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interruptedException) {
+                    Thread.currentThread().interrupt();
+                    nodeProgress.finish(RecoveryProgress.State.FAILED, System.currentTimeMillis());
+                    return false;
+                }
+            }
+        }
+    }
+
+    public Collection<RecoveryProgress> getProgress() {
+        return progress.values();
+    }
+}
@@ -0,0 +1,112 @@
+package com.stadvdb.group22.mco2.service;
+
+import com.stadvdb.group22.mco2.config.DBConfig;
+import com.stadvdb.group22.mco2.model.Node;
+
+// re-sync state of a single node during the latest run of the RecoveryCoordinator, with its own retries and backoff
+public class RecoveryProgress {
+
+    public enum State {
+        IDLE,       // not recovered yet
+        RUNNING,    // being caught up
+        RETRYING,   // last attempt failed, waiting for the backoff before the next attempt
+        RECOVERED,  // caught up and back in use
+        NODE_DOWN,  // a node needed for the recovery is down, retried on a later re-sync
+        SKIPPED,    // not run as node 1, which the node is caught up from, was not recovered, retried on a later re-sync
+        FAILED      // every attempt failed, retried on a later re-sync
+    }
+
+    private final Node node;
+
+    private volatile State state = State.IDLE;
+    private volatile int attempts = 0;
+    private volatile long backoff = DBConfig.RECOVERY_MIN_BACKOFF;
+    private volatile int replayed = 0;
+    private volatile String lastError = null;
+    private volatile long startTime = 0;
+    private volatile long endTime = 0;
+    private volatile long nextAttemptTime = 0;
+
+    public RecoveryProgress(Node node) {
+        this.node = node;
+    }
+
+    synchronized void start(long now) {
+        state = State.RUNNING;
+        attempts = 0;
+        backoff = DBConfig.RECOVERY_MIN_BACKOFF;
+        replayed = 0;
+        lastError = null;
+        startTime = now;
+        endTime = 0;
+        nextAttemptTime = 0;
+    }
+
+    synchronized void attempt() {
+        state = State.RUNNING;
+        attempts++;
+    }
+
+    // returns the backoff to wait before the next attempt, or -1 if there are no attempts left
+    synchronized long recordFailure(Exception exception, long now) {
+        lastError = exception.toString();
+        if (attempts >= DBConfig.RECOVERY_MAX_ATTEMPTS) {
+            finish(State.FAILED, now);
+            return -1;
+        }
+        long wait = backoff;
+        backoff = Math.min(backoff * 2, DBConfig.RECOVERY_MAX_BACKOFF);
+        state = State.RETRYING;
+        nextAttemptTime = now + wait;
+        return wait;
+    }
+
+    synchronized void recordRecovered(int replayed, long now) {
+        this.replayed = replayed;
+        finish(State.RECOVERED, now);
+    }
+
+    synchronized void skip(long now) {
+        start(now);
+        finish(State.SKIPPED, now);
+    }
+
+    synchronized void finish(State state, long now) {
+        this.state = state;
+        endTime = now;
+        nextAttemptTime = 0;
+    }
+
+    public Node getNode() {
+        return node;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    // number of movies written or deleted by the successful attempt
+    public int getReplayed() {
+        return replayed;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getEndTime() {
+        return endTime;
+    }
+
+    public long getNextAttemptTime() {
+        return nextAttemptTime;
+    }
+}
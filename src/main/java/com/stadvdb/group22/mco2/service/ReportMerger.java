@@ -0,0 +1,96 @@
+package com.stadvdb.group22.mco2.service;
+
+import com.stadvdb.group22.mco2.model.Report;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// combines the partial report counts of several nodes into one report per label (labels are compared by labelKey),
+// each report is looked up by its hashed label so merging takes linear time in the number of reports
+// not thread-safe, reports should be added from one thread (e.g. the merger of ScatterGatherExecutor)
+public final class ReportMerger {
+
+    // ordered by label key, null labels first
+    // close to the ORDER BY label of node 1, but not always the same, as the collation also has its own weights for
+    // punctuation and symbols
+    public static final Comparator<Report> BY_LABEL = Comparator.comparing((Report report) -> labelKey(report.getLabel()),
+            Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    public static final Comparator<Report> BY_COUNT_DESC = Comparator.comparing(Report::getCount,
+            Comparator.reverseOrder()).thenComparing(BY_LABEL);
+
+    private final Map<String, Counter> counters = new HashMap<>();
+
+    public ReportMerger add(List<Report> reports) {
+        for (Report report : reports) {
+            String key = labelKey(report.getLabel());
+            Counter counter = counters.get(key);
+            if (counter == null) {
+                // the first label seen for a key is the one shown
+                counter = new Counter(report.getLabel());
+                counters.put(key, counter);
+            }
+            counter.count += report.getCount() == null ? 0 : report.getCount();
+        }
+        return this;
+    }
+
+    // labels are grouped the way the case and accent insensitive collation of the nodes groups them in GROUP BY label,
+    // ignoring case, accents and trailing spaces
+    public static String labelKey(String label) {
+        if (label == null) {
+            return null;
+        }
+        int end = label.length();
+        while (end > 0 && label.charAt(end - 1) == ' ') {
+            end--;
+        }
+        String trimmed = label.substring(0, end);
+        for (int i = 0; i < trimmed.length(); i++) {
+            if (trimmed.charAt(i) >= 0x80) {
+                return Normalizer.normalize(trimmed, Normalizer.Form.NFD).replaceAll("\\p{M}", "").toLowerCase(Locale.ROOT);
+            }
+        }
+        // plain ASCII labels only need their case folded
+        return trimmed.toLowerCase(Locale.ROOT);
+    }
+
+    // number of distinct labels
+    public int size() {
+        return counters.size();
+    }
+
+    public List<Report> sorted(Comparator<Report> order) {
+        List<Report> reports = new ArrayList<>(counters.size());
+        for (Counter counter : counters.values()) {
+            reports.add(new Report(counter.label, counter.count));
+        }
+        reports.sort(order);
+        return reports;
+    }
+
+    // returns the given page of the merged reports, empty if the page is out of range
+    public Page<Report> page(int page, int size, Comparator<Report> order) {
+        List<Report> reports = sorted(order);
+        int from = (int) Math.min((long) page * size, reports.size());
+        int to = (int) Math.min((long) from + size, reports.size());
+        return new PageImpl<>(new ArrayList<>(reports.subList(from, to)), PageRequest.of(page, size), reports.size());
+    }
+
+    private static final class Counter {
+        private final String label;
+        private int count;
+
+        private Counter(String label) {
+            this.label = label;
+        }
+    }
+}
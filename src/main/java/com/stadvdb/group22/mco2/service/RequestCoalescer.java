@@ -0,0 +1,120 @@
+package com.stadvdb.group22.mco2.service;
+
+import com.stadvdb.group22.mco2.config.DBConfig;
+import com.stadvdb.group22.mco2.model.ClusterState;
+import com.stadvdb.group22.mco2.model.Node;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.sql.SQLTimeoutException;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+// single flight for identical reads: the first caller of a key runs the read, callers of the same key that arrive
+// while it is running wait for its result (or its exception) instead of sending the same query to the nodes again
+// a key is only shared while its read is running, so nobody gets a result older than the read in flight, and keys
+// should include the catalog version so that reads started after a write do not join reads started before it
+@Component
+public class RequestCoalescer implements ClusterStateListener {
+
+    @FunctionalInterface
+    public interface Read<T> {
+        T read() throws Exception;
+    }
+
+    @Autowired
+    private ClusterStateRegistry clusterState;
+
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong reads = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+
+    @PostConstruct
+    private void register() {
+        clusterState.addListener(this);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Read<T> read) throws Exception {
+        while (true) {
+            CompletableFuture<Object> flight = new CompletableFuture<>();
+            CompletableFuture<Object> running = inFlight.putIfAbsent(key, flight);
+            if (running == null) {
+                reads.incrementAndGet();
+                try {
+                    T result = read.read();
+                    flight.complete(result);
+                    return result;
+                } catch (Exception | Error e) {
+                    flight.completeExceptionally(e);
+                    throw e;
+                } finally {
+                    inFlight.remove(key, flight);
+                }
+            }
+
+            coalesced.incrementAndGet();
+            try {
+                return (T) running.get(DBConfig.T_TIME_OUT, TimeUnit.SECONDS);
+            } catch (CancellationException e) {
+                // read was cancelled, read again (or join a newer read of the key)
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            } catch (TimeoutException e) {
+                throw new SQLTimeoutException("Timed out waiting for the same read of " + key);
+            }
+        }
+    }
+
+    // detaches the callers waiting for the read of the key, they read again instead of waiting for its result
+    public void cancel(String key) {
+        CompletableFuture<Object> flight = inFlight.remove(key);
+        if (flight != null && flight.cancel(false)) {
+            cancelled.incrementAndGet();
+        }
+    }
+
+    // detaches the callers waiting for any read, e.g. after a re-sync changed what the nodes return
+    public void cancelAll() {
+        for (String key : inFlight.keySet()) {
+            cancel(key);
+        }
+    }
+
+    // a read in flight when a node goes down may be waiting on that node until the query timeout, the callers waiting
+    // for it read again instead, and so go to the nodes that are still up
+    @Override
+    public void onTransition(ClusterState previous, ClusterState current) {
+        for (Node node : Node.values()) {
+            if (current.isDown(node) && !previous.isDown(node)) {
+                cancelAll();
+                return;
+            }
+        }
+    }
+
+    public int getInFlight() {
+        return inFlight.size();
+    }
+
+    public long getReads() {
+        return reads.get();
+    }
+
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    public long getCancelled() {
+        return cancelled.get();
+    }
+}
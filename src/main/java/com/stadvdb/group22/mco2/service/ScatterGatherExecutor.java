@@ -0,0 +1,103 @@
+package com.stadvdb.group22.mco2.service;
+
+import com.stadvdb.group22.mco2.config.DBConfig;
+import com.stadvdb.group22.mco2.model.Node;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+// runs queries on several nodes at the same time and hands each result to the caller as soon as it arrives
+// every node has its own bounded thread pool, so a slow or hanging node cannot use up the threads of the other nodes
+@Component
+public class ScatterGatherExecutor {
+
+    private final Map<Node, ThreadPoolExecutor> executors = new EnumMap<>(Node.class);
+
+    public ScatterGatherExecutor() {
+        for (Node node : Node.values()) {
+            AtomicInteger count = new AtomicInteger();
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(DBConfig.FRAGMENT_POOL_SIZE, DBConfig.FRAGMENT_POOL_SIZE,
+                    60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(DBConfig.FRAGMENT_QUEUE_CAPACITY), runnable -> {
+                        Thread thread = new Thread(runnable, "fragment-" + node.name().toLowerCase() + "-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            executor.allowCoreThreadTimeOut(true);
+            executors.put(node, executor);
+        }
+    }
+
+    @PreDestroy
+    private void stop() {
+        for (ThreadPoolExecutor executor : executors.values()) {
+            executor.shutdownNow();
+        }
+    }
+
+    // runs every task on the pool of its node and passes each result to the merger (on the calling thread) in order of
+    // completion, the first failure cancels the remaining tasks and is rethrown as is
+    // throws SQLTimeoutException if not all tasks are done within the fragment timeout, or SQLException if a node's pool is full
+    public <T> void scatter(Map<Node, Callable<T>> tasks, BiConsumer<Node, T> merger) throws SQLException {
+        BlockingQueue<Future<T>> completed = new LinkedBlockingQueue<>();
+        Map<Future<T>, Node> pending = new IdentityHashMap<>();
+        boolean done = false;
+        try {
+            for (Map.Entry<Node, Callable<T>> task : tasks.entrySet()) {
+                // completion services of all nodes share one queue, so results are taken in the order they finish
+                ExecutorCompletionService<T> service = new ExecutorCompletionService<>(executors.get(task.getKey()), completed);
+                try {
+                    pending.put(service.submit(task.getValue()), task.getKey());
+                } catch (RejectedExecutionException e) {
+                    throw new SQLException(task.getKey() + " has too many queries in progress", e);
+                }
+            }
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(DBConfig.FRAGMENT_TIME_OUT);
+            while (!pending.isEmpty()) {
+                Future<T> future = completed.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (future == null) {
+                    throw new SQLTimeoutException("Query to " + pending.values() + " timed out");
+                }
+                Node node = pending.remove(future);
+                merger.accept(node, future.get());
+            }
+            done = true;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new SQLException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for " + pending.values(), e);
+        } finally {
+            if (!done) {
+                for (Future<T> future : pending.keySet()) {
+                    future.cancel(true);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,458 @@
+package com.stadvdb.group22.mco2.service;
+
+import com.stadvdb.group22.mco2.config.DBConfig;
+import com.stadvdb.group22.mco2.model.ClusterState;
+import com.stadvdb.group22.mco2.model.Movie;
+import com.stadvdb.group22.mco2.model.Node;
+import com.stadvdb.group22.mco2.model.SearchCriteria;
+import com.stadvdb.group22.mco2.repository.Node1Repository;
+import com.stadvdb.group22.mco2.repository.Node2Repository;
+import com.stadvdb.group22.mco2.repository.Node3Repository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// inverted index of the words in the title, actors, director and genre of every movie, so that searches are answered
+// in memory and the database is only asked for the movies of the requested page
+// every movie gets a row id, every word of a field a term id, and every term a posting list of the row ids of the movies
+// that have the word in that field
+// a searched field matches if it has all the words of the search value (a word ending with * matches any word starting
+// with it), e.g. "star wars" matches the title "Star Wars: Episode IV - A New Hope" (see SearchCriteria.searchWords, the
+// nodes search the same words with full-text predicates while the index is not built)
+@Component
+public class SearchIndex implements CatalogListener {
+
+    public enum Field {
+        TITLE, ACTOR, DIRECTOR, GENRE
+    }
+
+    @Autowired
+    private Node1Repository node1Repo;
+
+    @Autowired
+    private Node2Repository node2Repo;
+
+    @Autowired
+    private Node3Repository node3Repo;
+
+    @Autowired
+    private NodeHealthMonitor healthMonitor;
+
+    @Autowired
+    private ClusterStateRegistry clusterState;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // null until built
+    private Index index = null;
+
+    // changes made while the index is being rebuilt, applied to the rebuilt index before it replaces the current one
+    private List<Change> pendingChanges = null;
+
+    private boolean rebuildScheduled = false;
+
+    private final ScheduledExecutorService builder = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "search-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        scheduleRebuild(0);
+    }
+
+    @PreDestroy
+    private void stop() {
+        builder.shutdownNow();
+    }
+
+    // returns the matches of the search (all given fields must match, year must be in the range) ordered by year and uuid,
+    // or null if the search cannot be answered by the index (index not built yet, or a search value without words)
+    public Result search(SearchCriteria criteria, long offset, int limit) {
+        Map<Field, String> values = new EnumMap<>(Field.class);
+        values.put(Field.TITLE, criteria.getTitle());
+        values.put(Field.ACTOR, criteria.getActor());
+        values.put(Field.DIRECTOR, criteria.getDirector());
+        values.put(Field.GENRE, criteria.getGenre());
+
+        lock.readLock().lock();
+        try {
+            if (index == null) {
+                return null;
+            }
+            List<PostingList> terms = new ArrayList<>();
+            List<BitSet> prefixes = new ArrayList<>();
+            for (Map.Entry<Field, String> value : values.entrySet()) {
+                if (value.getValue() == null || value.getValue().trim().isEmpty()) {
+                    continue;
+                }
+                List<String> words = SearchCriteria.searchWords(value.getValue());
+                if (words.isEmpty()) {
+                    return null;
+                }
+                for (String word : words) {
+                    if (word.endsWith("*")) {
+                        BitSet matches = index.prefixMatches(value.getKey(), word.substring(0, word.length() - 1));
+                        if (matches.isEmpty()) {
+                            return Result.EMPTY;
+                        }
+                        prefixes.add(matches);
+                    } else {
+                        PostingList postings = index.postings(value.getKey(), word);
+                        if (postings == null) {
+                            return Result.EMPTY;
+                        }
+                        terms.add(postings);
+                    }
+                }
+            }
+            return index.search(terms, prefixes, criteria, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return index != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void onInsert(Movie movie) {
+        apply(new Change(null, movie));
+    }
+
+    @Override
+    public void onUpdate(Movie previous, Movie movie) {
+        apply(new Change(previous, movie));
+    }
+
+    @Override
+    public void onDelete(Movie movie) {
+        apply(new Change(movie, null));
+    }
+
+    @Override
+    public void onReload() {
+        scheduleRebuild(0);
+    }
+
+    private void apply(Change change) {
+        boolean compact;
+        lock.writeLock().lock();
+        try {
+            if (index != null) {
+                change.applyTo(index);
+            }
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+            // rows of updated and deleted movies are only marked as deleted, rebuild once they outnumber the live rows
+            compact = index != null && index.deleted.cardinality() > Math.max(1000, index.rowIds.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (compact) {
+            scheduleRebuild(0);
+        }
+    }
+
+    private synchronized void scheduleRebuild(long delay) {
+        if (!rebuildScheduled) {
+            rebuildScheduled = true;
+            builder.schedule(this::rebuild, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void rebuild() {
+        synchronized (this) {
+            rebuildScheduled = false;
+        }
+        lock.writeLock().lock();
+        try {
+            pendingChanges = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Index rebuilt = new Index();
+        RowCallbackHandler loader = rs -> {
+            int year = rs.getInt("yr");
+            rebuilt.add(new Movie(rs.getString("title"), rs.wasNull() ? null : year, rs.getString("genre"),
+                    rs.getString("director"), rs.getString("actor1"), rs.getString("actor2"), rs.getString("uuid")));
+        };
+        try {
+            // read from the fragments if both are consistent, else from node 1
+            ClusterState state = clusterState.current();
+            if (!state.isAnyDown(Node.NODE2, Node.NODE3) && healthMonitor.isAvailable(Node.NODE2) && healthMonitor.isAvailable(Node.NODE3)) {
+                System.out.println("SearchIndex - Building index from nodes 2 & 3...");
+                node2Repo.scanMovies(loader);
+                node3Repo.scanMovies(loader);
+            } else if (!state.isDown(Node.NODE1) && healthMonitor.isAvailable(Node.NODE1)) {
+                System.out.println("SearchIndex - Building index from node 1...");
+                node1Repo.scanMovies(loader);
+            } else {
+                throw new IllegalStateException("No node available");
+            }
+        } catch (Exception e) {
+            System.out.println("SearchIndex - Cannot build index, retrying later...");
+            lock.writeLock().lock();
+            try {
+                pendingChanges = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            scheduleRebuild(DBConfig.HEALTH_MAX_BACKOFF);
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (Change change : pendingChanges) {
+                change.applyTo(rebuilt);
+            }
+            pendingChanges = null;
+            index = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        System.out.println("SearchIndex - Index built with " + rebuilt.rowIds.size() + " movies and " + rebuilt.postings.size() + " terms...");
+    }
+
+    // page of search results
+    public static final class Result {
+
+        private static final Result EMPTY = new Result(0, Collections.emptyList(), Collections.emptyList());
+
+        private final int total;
+        private final List<String> uuids;
+        private final List<Integer> years;
+
+        private Result(int total, List<String> uuids, List<Integer> years) {
+            this.total = total;
+            this.uuids = uuids;
+            this.years = years;
+        }
+
+        // number of movies that match the search
+        public int getTotal() {
+            return total;
+        }
+
+        // uuids of the movies of the page, in order
+        public List<String> getUuids() {
+            return uuids;
+        }
+
+        // years of the movies of the page, in the same order as the uuids
+        public List<Integer> getYears() {
+            return years;
+        }
+    }
+
+    private static final class Change {
+        private final Movie removed;
+        private final Movie added;
+
+        private Change(Movie removed, Movie added) {
+            this.removed = removed;
+            this.added = added;
+        }
+
+        private void applyTo(Index index) {
+            if (removed != null) {
+                index.remove(removed.getUuid());
+            }
+            if (added != null) {
+                index.add(added);
+            }
+        }
+    }
+
+    // words, rows and posting lists of the indexed movies (package-private for the tests)
+    static final class Index {
+
+        // term ids of the words of each field, sorted for prefix matching
+        private final Map<Field, TreeMap<String, Integer>> terms = new EnumMap<>(Field.class);
+        private final List<PostingList> postings = new ArrayList<>();
+
+        // uuid and year of each row, a row is never reused (an updated movie gets a new row)
+        private final List<String> uuids = new ArrayList<>();
+        private short[] years = new short[1024];
+        private final Map<String, Integer> rowIds = new HashMap<>();
+        private final BitSet deleted = new BitSet();
+
+        Index() {
+            for (Field field : Field.values()) {
+                terms.put(field, new TreeMap<>());
+            }
+        }
+
+        void add(Movie movie) {
+            remove(movie.getUuid());
+            int rowId = uuids.size();
+            uuids.add(movie.getUuid());
+            if (rowId == years.length) {
+                years = Arrays.copyOf(years, years.length * 2);
+            }
+            years[rowId] = movie.getYear() == null ? 0 : movie.getYear().shortValue();
+            rowIds.put(movie.getUuid(), rowId);
+
+            index(Field.TITLE, rowId, movie.getTitle());
+            index(Field.ACTOR, rowId, movie.getActor1(), movie.getActor2());
+            index(Field.DIRECTOR, rowId, movie.getDirector());
+            index(Field.GENRE, rowId, movie.getGenre());
+        }
+
+        void remove(String uuid) {
+            Integer rowId = rowIds.remove(uuid);
+            if (rowId != null) {
+                deleted.set(rowId);
+            }
+        }
+
+        private void index(Field field, int rowId, String... values) {
+            // each word once per row, as row ids of a posting list must be increasing
+            Set<String> words = new LinkedHashSet<>();
+            for (String value : values) {
+                words.addAll(SearchCriteria.words(value));
+            }
+            for (String word : words) {
+                Integer termId = terms.get(field).get(word);
+                if (termId == null) {
+                    termId = postings.size();
+                    postings.add(new PostingList());
+                    terms.get(field).put(word, termId);
+                }
+                postings.get(termId).add(rowId);
+            }
+        }
+
+        PostingList postings(Field field, String word) {
+            Integer termId = terms.get(field).get(word);
+            return termId == null ? null : postings.get(termId);
+        }
+
+        // rows that have a word starting with the prefix in the field
+        BitSet prefixMatches(Field field, String prefix) {
+            BitSet matches = new BitSet();
+            for (Integer termId : terms.get(field).subMap(prefix, prefix + Character.MAX_VALUE).values()) {
+                PostingList.Cursor cursor = postings.get(termId).cursor();
+                for (int rowId = cursor.next(); rowId != -1; rowId = cursor.next()) {
+                    matches.set(rowId);
+                }
+            }
+            return matches;
+        }
+
+        Result search(List<PostingList> terms, List<BitSet> prefixes, SearchCriteria criteria, long offset, int limit) {
+            Comparator<Integer> order = Comparator.<Integer>comparingInt(rowId -> years[rowId]).thenComparing(uuids::get);
+            long wanted = offset + limit;
+            // keeps the first (offset + limit) matches, largest on top
+            PriorityQueue<Integer> firsts = new PriorityQueue<>(order.reversed());
+            int total = 0;
+
+            if (!terms.isEmpty()) {
+                // intersect the posting lists, driven by the shortest one
+                List<PostingList> lists = new ArrayList<>(terms);
+                lists.sort(Comparator.comparingInt(PostingList::size));
+                PostingList.Cursor[] cursors = new PostingList.Cursor[lists.size()];
+                for (int i = 0; i < cursors.length; i++) {
+                    cursors[i] = lists.get(i).cursor();
+                }
+                int candidate = cursors[0].next();
+                candidates:
+                while (candidate != -1) {
+                    for (int i = 1; i < cursors.length; i++) {
+                        int rowId = cursors[i].advanceTo(candidate);
+                        if (rowId == -1) {
+                            break candidates;
+                        }
+                        if (rowId != candidate) {
+                            // skip the rows in between, they cannot match
+                            candidate = cursors[0].advanceTo(rowId);
+                            continue candidates;
+                        }
+                    }
+                    if (accept(candidate, prefixes, criteria)) {
+                        total++;
+                        keep(firsts, candidate, wanted, order);
+                    }
+                    candidate = cursors[0].next();
+                }
+            } else if (!prefixes.isEmpty()) {
+                BitSet first = prefixes.get(0);
+                for (int rowId = first.nextSetBit(0); rowId >= 0; rowId = first.nextSetBit(rowId + 1)) {
+                    if (accept(rowId, prefixes, criteria)) {
+                        total++;
+                        keep(firsts, rowId, wanted, order);
+                    }
+                }
+            } else {
+                for (int rowId = 0; rowId < uuids.size(); rowId++) {
+                    if (accept(rowId, prefixes, criteria)) {
+                        total++;
+                        keep(firsts, rowId, wanted, order);
+                    }
+                }
+            }
+
+            List<Integer> rows = new ArrayList<>(firsts);
+            rows.sort(order);
+            List<String> pageUuids = new ArrayList<>();
+            List<Integer> pageYears = new ArrayList<>();
+            for (int i = (int) Math.min(offset, rows.size()); i < rows.size(); i++) {
+                pageUuids.add(uuids.get(rows.get(i)));
+                pageYears.add((int) years[rows.get(i)]);
+            }
+            return new Result(total, pageUuids, pageYears);
+        }
+
+        private boolean accept(int rowId, List<BitSet> prefixes, SearchCriteria criteria) {
+            if (deleted.get(rowId) || !criteria.matchesYear(years[rowId])) {
+                return false;
+            }
+            for (BitSet prefix : prefixes) {
+                if (!prefix.get(rowId)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static void keep(PriorityQueue<Integer> firsts, int rowId, long wanted, Comparator<Integer> order) {
+            if (firsts.size() < wanted) {
+                firsts.add(rowId);
+            } else if (order.compare(rowId, firsts.peek()) < 0) {
+                firsts.poll();
+                firsts.add(rowId);
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.stadvdb.group22.mco2.service;
+
+import com.stadvdb.group22.mco2.config.CacheConfig;
+import com.stadvdb.group22.mco2.model.Movie;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// caches the pages of search results by (normalized search, page, size), each tagged with the catalog version it was
+// read at, so that repeated searches and going back and forth between result pages do not search the nodes again
+// least recently used pages are dropped once the cache is full, identical searches running at the same time share one
+// read (see RequestCoalescer)
+@Component
+public class SearchResultCache {
+
+    @FunctionalInterface
+    public interface Loader {
+        Page<Movie> load() throws Exception;
+    }
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private RequestCoalescer coalescer;
+
+    private final LinkedHashMap<String, CachedPage> entries = new LinkedHashMap<String, CachedPage>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedPage> eldest) {
+            return size() > CacheConfig.SEARCH_CACHE_MAX_SIZE;
+        }
+    };
+
+    private long hits = 0;
+    private long misses = 0;
+
+    public Page<Movie> get(String search, int page, int size, Loader loader) throws Exception {
+        String key = search + ":" + page + ":" + size;
+        long version = catalogVersion.current();
+
+        synchronized (this) {
+            CachedPage entry = entries.get(key);
+            if (entry != null && entry.version == version) {
+                hits++;
+                return entry.page;
+            }
+            misses++;
+        }
+
+        // failures are not cached, the next request tries again
+        return coalescer.execute("search:" + key + "@" + version, () -> {
+            Page<Movie> result = loader.load();
+            synchronized (this) {
+                CachedPage cached = entries.get(key);
+                if (cached == null || cached.version <= version) {
+                    entries.put(key, new CachedPage(version, result));
+                }
+            }
+            return result;
+        });
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    private static final class CachedPage {
+        private final long version;
+        private final Page<Movie> page;
+
+        private CachedPage(long version, Page<Movie> page) {
+            this.version = version;
+            this.page = page;
+        }
+    }
+}
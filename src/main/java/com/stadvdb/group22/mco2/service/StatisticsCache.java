@@ -0,0 +1,88 @@
+package com.stadvdb.group22.mco2.service;
+
+import com.stadvdb.group22.mco2.config.CacheConfig;
+import com.stadvdb.group22.mco2.model.Report;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// caches the pages of the statistics by (dimension, page, size), each tagged with the catalog version it was computed at
+// a stale page is recomputed on the next request, and requests for the same page that arrive while it is being
+// computed wait for that computation (see RequestCoalescer) instead of running the same GROUP BY again
+@Component
+public class StatisticsCache {
+
+    @FunctionalInterface
+    public interface Loader {
+        Page<Report> load() throws Exception;
+    }
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private RequestCoalescer coalescer;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public Page<Report> get(String dimension, int page, int size, Loader loader) throws Exception {
+        String key = dimension + ":" + page + ":" + size;
+        long version = catalogVersion.current();
+
+        Entry entry = entries.get(key);
+        if (entry != null && entry.version == version) {
+            hits.incrementAndGet();
+            return entry.page;
+        }
+
+        misses.incrementAndGet();
+        // failures are not cached, the next request tries again
+        return coalescer.execute("statistics:" + key + "@" + version, () -> {
+            Page<Report> result = loader.load();
+            store(key, new Entry(version, result));
+            return result;
+        });
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    private void store(String key, Entry entry) {
+        if (entries.size() >= CacheConfig.STATISTICS_CACHE_MAX_SIZE && !entries.containsKey(key)) {
+            // make room by dropping the stale pages, do not cache if all cached pages are still current
+            long version = catalogVersion.current();
+            entries.values().removeIf(cached -> cached.version != version);
+            if (entries.size() >= CacheConfig.STATISTICS_CACHE_MAX_SIZE) {
+                return;
+            }
+        }
+        // keep the newer page if another request stored one in the meantime
+        entries.merge(key, entry, (cached, computed) -> computed.version >= cached.version ? computed : cached);
+    }
+
+    private static final class Entry {
+        private final long version;
+        private final Page<Report> page;
+
+        private Entry(long version, Page<Report> page) {
+            this.version = version;
+            this.page = page;
+        }
+    }
+}
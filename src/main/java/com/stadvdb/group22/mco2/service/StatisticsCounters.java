@@ -0,0 +1,275 @@
+package com.stadvdb.group22.mco2.service;
+
+import com.stadvdb.group22.mco2.config.DBConfig;
+import com.stadvdb.group22.mco2.model.ClusterState;
+import com.stadvdb.group22.mco2.model.Movie;
+import com.stadvdb.group22.mco2.model.Node;
+import com.stadvdb.group22.mco2.model.Report;
+import com.stadvdb.group22.mco2.repository.Node1Repository;
+import com.stadvdb.group22.mco2.repository.Node2Repository;
+import com.stadvdb.group22.mco2.repository.Node3Repository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// number of movies per genre, director, actor and year, counted once at startup (and after every re-sync) and then
+// kept up to date by adding and removing the movies that are written, so the statistics pages do not need a GROUP BY
+// over all movies
+@Component
+public class StatisticsCounters implements CatalogListener {
+
+    public enum Dimension {
+        GENRE, DIRECTOR, ACTOR, YEAR;
+
+        private String labelOf(Movie movie) {
+            switch (this) {
+                case GENRE:
+                    return movie.getGenre();
+                case DIRECTOR:
+                    return movie.getDirector();
+                case ACTOR:
+                    return movie.getActor1();
+                default:
+                    return movie.getYear() == null ? null : String.valueOf(movie.getYear());
+            }
+        }
+    }
+
+    @Autowired
+    private Node1Repository node1Repo;
+
+    @Autowired
+    private Node2Repository node2Repo;
+
+    @Autowired
+    private Node3Repository node3Repo;
+
+    @Autowired
+    private NodeHealthMonitor healthMonitor;
+
+    @Autowired
+    private ClusterStateRegistry clusterState;
+
+    // null until counted
+    private Counts counts = null;
+
+    // changes made while the movies are being counted, applied to the new counts before they replace the current ones
+    // (replacing what the count saw of the movie, which may already include some of the changes)
+    private List<Change> pendingChanges = null;
+
+    private final ScheduledExecutorService counter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "statistics-counters");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        scheduleRebuild(0);
+    }
+
+    @PreDestroy
+    private void stop() {
+        counter.shutdownNow();
+    }
+
+    public synchronized boolean isReady() {
+        return counts != null;
+    }
+
+    // returns the given page of the reports sorted by label, or null if the movies are not counted (yet)
+    public Page<Report> page(Dimension dimension, int page, int size) {
+        List<Report> reports;
+        synchronized (this) {
+            if (counts == null) {
+                return null;
+            }
+            reports = counts.sorted(dimension);
+        }
+        int from = (int) Math.min((long) page * size, reports.size());
+        int to = (int) Math.min((long) from + size, reports.size());
+        return new PageImpl<>(new ArrayList<>(reports.subList(from, to)), PageRequest.of(page, size), reports.size());
+    }
+
+    @Override
+    public void onInsert(Movie movie) {
+        apply(new Change(null, movie));
+    }
+
+    @Override
+    public void onUpdate(Movie previous, Movie movie) {
+        apply(new Change(previous, movie));
+    }
+
+    @Override
+    public void onDelete(Movie movie) {
+        apply(new Change(movie, null));
+    }
+
+    @Override
+    public void onReload() {
+        scheduleRebuild(0);
+    }
+
+    private synchronized void apply(Change change) {
+        if (counts != null) {
+            change.applyTo(counts);
+        }
+        if (pendingChanges != null) {
+            pendingChanges.add(change);
+        }
+    }
+
+    private void scheduleRebuild(long delay) {
+        counter.schedule(this::rebuild, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void rebuild() {
+        synchronized (this) {
+            pendingChanges = new ArrayList<>();
+        }
+
+        Counts rebuilt = new Counts();
+        // movies as counted by the scan, by uuid, until the pending changes are applied
+        Map<String, Movie> scanned = new HashMap<>();
+        RowCallbackHandler loader = rs -> {
+            int year = rs.getInt("yr");
+            Movie movie = new Movie(null, rs.wasNull() ? null : year, rs.getString("genre"), rs.getString("director"),
+                    rs.getString("actor1"), null, rs.getString("uuid"));
+            rebuilt.add(movie, 1);
+            scanned.put(movie.getUuid(), movie);
+        };
+        try {
+            // count from the fragments if both are consistent, else from node 1
+            ClusterState state = clusterState.current();
+            if (!state.isAnyDown(Node.NODE2, Node.NODE3) && healthMonitor.isAvailable(Node.NODE2) && healthMonitor.isAvailable(Node.NODE3)) {
+                System.out.println("StatisticsCounters - Counting movies in nodes 2 & 3...");
+                node2Repo.scanMovieLabels(loader);
+                node3Repo.scanMovieLabels(loader);
+            } else if (!state.isDown(Node.NODE1) && healthMonitor.isAvailable(Node.NODE1)) {
+                System.out.println("StatisticsCounters - Counting movies in node 1...");
+                node1Repo.scanMovieLabels(loader);
+            } else {
+                throw new IllegalStateException("No node available");
+            }
+        } catch (Exception e) {
+            System.out.println("StatisticsCounters - Cannot count movies, retrying later...");
+            synchronized (this) {
+                pendingChanges = null;
+            }
+            scheduleRebuild(DBConfig.HEALTH_MAX_BACKOFF);
+            return;
+        }
+
+        synchronized (this) {
+            // a change may be made before or after the scan reads the movie, so instead of adding the change to the
+            // counts, the movie as counted is replaced with the movie after its last change (or removed if deleted)
+            Map<String, Movie> latest = new LinkedHashMap<>();
+            for (Change change : pendingChanges) {
+                latest.put(change.uuid(), change.added);
+            }
+            for (Map.Entry<String, Movie> movie : latest.entrySet()) {
+                new Change(scanned.get(movie.getKey()), movie.getValue()).applyTo(rebuilt);
+            }
+            pendingChanges = null;
+            counts = rebuilt;
+        }
+        System.out.println("StatisticsCounters - Movies counted...");
+    }
+
+    private static final class Change {
+        private final Movie removed;
+        private final Movie added;
+
+        private Change(Movie removed, Movie added) {
+            this.removed = removed;
+            this.added = added;
+        }
+
+        private String uuid() {
+            return removed != null ? removed.getUuid() : added.getUuid();
+        }
+
+        private void applyTo(Counts counts) {
+            if (removed != null) {
+                counts.add(removed, -1);
+            }
+            if (added != null) {
+                counts.add(added, 1);
+            }
+        }
+    }
+
+    // counters by dimension and label (labels are compared ignoring case, like the GROUP BY of the nodes)
+    private static final class Counts {
+
+        private final Map<Dimension, Map<String, Counter>> counters = new EnumMap<>(Dimension.class);
+
+        // reports sorted by label, rebuilt on the first read after a change of the dimension
+        private final Map<Dimension, List<Report>> sorted = new EnumMap<>(Dimension.class);
+
+        private Counts() {
+            for (Dimension dimension : Dimension.values()) {
+                counters.put(dimension, new HashMap<>());
+            }
+        }
+
+        private void add(Movie movie, int delta) {
+            for (Dimension dimension : Dimension.values()) {
+                String label = dimension.labelOf(movie);
+                String key = ReportMerger.labelKey(label);
+                Map<String, Counter> labels = counters.get(dimension);
+                Counter counter = labels.get(key);
+                if (counter == null) {
+                    counter = new Counter(label);
+                    labels.put(key, counter);
+                }
+                counter.count += delta;
+                if (counter.count <= 0) {
+                    labels.remove(key);
+                }
+                sorted.remove(dimension);
+            }
+        }
+
+        private List<Report> sorted(Dimension dimension) {
+            List<Report> reports = sorted.get(dimension);
+            if (reports == null) {
+                reports = new ArrayList<>(counters.get(dimension).size());
+                for (Counter counter : counters.get(dimension).values()) {
+                    reports.add(new Report(counter.label, counter.count));
+                }
+                reports.sort(ReportMerger.BY_LABEL);
+                reports = Collections.unmodifiableList(reports);
+                sorted.put(dimension, reports);
+            }
+            return reports;
+        }
+    }
+
+    private static final class Counter {
+        private final String label;
+        private int count;
+
+        private Counter(String label) {
+            this.label = label;
+        }
+    }
+}
@@ -0,0 +1,476 @@
+package com.stadvdb.group22.mco2.service;
+
+import com.stadvdb.group22.mco2.config.DBConfig;
+import com.stadvdb.group22.mco2.model.ClusterState;
+import com.stadvdb.group22.mco2.model.Movie;
+import com.stadvdb.group22.mco2.model.Node;
+import com.stadvdb.group22.mco2.repository.Node1Repository;
+import com.stadvdb.group22.mco2.repository.Node2Repository;
+import com.stadvdb.group22.mco2.repository.Node3Repository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// completions of the titles, actors, directors and genres of the movies for the search form, most common values first
+// each field is a radix trie (edges labelled with whole runs of characters) of the normalized values, every node knows
+// the highest count below it so that the top completions are found without visiting the whole subtree
+@Component
+public class SuggestionIndex implements CatalogListener {
+
+    @Autowired
+    private Node1Repository node1Repo;
+
+    @Autowired
+    private Node2Repository node2Repo;
+
+    @Autowired
+    private Node3Repository node3Repo;
+
+    @Autowired
+    private NodeHealthMonitor healthMonitor;
+
+    @Autowired
+    private ClusterStateRegistry clusterState;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // null until built
+    private Map<SearchIndex.Field, Trie> tries = null;
+
+    // changes made while the tries are being rebuilt, applied to the rebuilt tries before they replace the current ones
+    // (in place of the movie as read by the scan, which may already include some of the changes)
+    private List<Movie[]> pendingChanges = null;
+
+    private final ScheduledExecutorService builder = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "suggestion-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        builder.schedule(this::rebuild, 0, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    private void stop() {
+        builder.shutdownNow();
+    }
+
+    // returns up to limit values of the field starting with the prefix (ignoring case and accents), most common first,
+    // or an empty list if the index is not built yet
+    public List<Suggestion> suggest(SearchIndex.Field field, String prefix, int limit) {
+        String key = normalize(prefix);
+        lock.readLock().lock();
+        try {
+            if (tries == null || key.isEmpty()) {
+                return new ArrayList<>();
+            }
+            return tries.get(field).complete(key, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return tries != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void onInsert(Movie movie) {
+        apply(null, movie);
+    }
+
+    @Override
+    public void onUpdate(Movie previous, Movie movie) {
+        apply(previous, movie);
+    }
+
+    @Override
+    public void onDelete(Movie movie) {
+        apply(movie, null);
+    }
+
+    @Override
+    public void onReload() {
+        builder.schedule(this::rebuild, 0, TimeUnit.MILLISECONDS);
+    }
+
+    // lower case value without accents and repeated spaces
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        return Normalizer.normalize(value, Normalizer.Form.NFD).replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT).trim().replaceAll("\\s+", " ");
+    }
+
+    private void apply(Movie removed, Movie added) {
+        lock.writeLock().lock();
+        try {
+            if (tries != null) {
+                apply(tries, removed, added);
+            }
+            if (pendingChanges != null) {
+                pendingChanges.add(new Movie[] { removed, added });
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void apply(Map<SearchIndex.Field, Trie> tries, Movie removed, Movie added) {
+        if (removed != null) {
+            tries.get(SearchIndex.Field.TITLE).remove(removed.getTitle());
+            tries.get(SearchIndex.Field.ACTOR).remove(removed.getActor1());
+            tries.get(SearchIndex.Field.ACTOR).remove(removed.getActor2());
+            tries.get(SearchIndex.Field.DIRECTOR).remove(removed.getDirector());
+            tries.get(SearchIndex.Field.GENRE).remove(removed.getGenre());
+        }
+        if (added != null) {
+            tries.get(SearchIndex.Field.TITLE).add(added.getTitle());
+            tries.get(SearchIndex.Field.ACTOR).add(added.getActor1());
+            tries.get(SearchIndex.Field.ACTOR).add(added.getActor2());
+            tries.get(SearchIndex.Field.DIRECTOR).add(added.getDirector());
+            tries.get(SearchIndex.Field.GENRE).add(added.getGenre());
+        }
+    }
+
+    private void rebuild() {
+        lock.writeLock().lock();
+        try {
+            pendingChanges = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Map<SearchIndex.Field, Trie> rebuilt = new EnumMap<>(SearchIndex.Field.class);
+        for (SearchIndex.Field field : SearchIndex.Field.values()) {
+            rebuilt.put(field, new Trie());
+        }
+        // movies as added by the scan, by uuid, until the pending changes are applied
+        Map<String, Movie> scanned = new HashMap<>();
+        RowCallbackHandler loader = rs -> {
+            Movie movie = new Movie(rs.getString("title"), null, rs.getString("genre"), rs.getString("director"),
+                    rs.getString("actor1"), rs.getString("actor2"), rs.getString("uuid"));
+            apply(rebuilt, null, movie);
+            scanned.put(movie.getUuid(), movie);
+        };
+        try {
+            // read from the fragments if both are consistent, else from node 1
+            ClusterState state = clusterState.current();
+            if (!state.isAnyDown(Node.NODE2, Node.NODE3) && healthMonitor.isAvailable(Node.NODE2) && healthMonitor.isAvailable(Node.NODE3)) {
+                System.out.println("SuggestionIndex - Building index from nodes 2 & 3...");
+                node2Repo.scanMovies(loader);
+                node3Repo.scanMovies(loader);
+            } else if (!state.isDown(Node.NODE1) && healthMonitor.isAvailable(Node.NODE1)) {
+                System.out.println("SuggestionIndex - Building index from node 1...");
+                node1Repo.scanMovies(loader);
+            } else {
+                throw new IllegalStateException("No node available");
+            }
+        } catch (Exception e) {
+            System.out.println("SuggestionIndex - Cannot build index, retrying later...");
+            lock.writeLock().lock();
+            try {
+                pendingChanges = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            builder.schedule(this::rebuild, DBConfig.HEALTH_MAX_BACKOFF, TimeUnit.MILLISECONDS);
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            // the scan may have read a movie before or after a change, so the movie as added by the scan is replaced
+            // with the movie after its last change (or removed if deleted), instead of adding the change on top of it
+            Map<String, Movie> latest = new LinkedHashMap<>();
+            for (Movie[] change : pendingChanges) {
+                latest.put(change[0] != null ? change[0].getUuid() : change[1].getUuid(), change[1]);
+            }
+            for (Map.Entry<String, Movie> movie : latest.entrySet()) {
+                apply(rebuilt, scanned.get(movie.getKey()), movie.getValue());
+            }
+            pendingChanges = null;
+            tries = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        System.out.println("SuggestionIndex - Index built...");
+    }
+
+    // completion of a prefix
+    public static final class Suggestion {
+
+        private final String value;
+        private final int count;
+
+        private Suggestion(String value, int count) {
+            this.value = value;
+            this.count = count;
+        }
+
+        // value as first seen in the movies
+        public String getValue() {
+            return value;
+        }
+
+        // number of movies with the value
+        public int getCount() {
+            return count;
+        }
+    }
+
+    private static final class TrieNode {
+
+        private static final TrieNode[] NO_CHILDREN = new TrieNode[0];
+
+        // characters of the edge from the parent
+        private String label;
+        // sorted by the first character of their label
+        private TrieNode[] children = NO_CHILDREN;
+        // number of movies with the value ending at this node
+        private int count;
+        // highest count of this node and the nodes below it
+        private int maxCount;
+        // value ending at this node, as first seen
+        private String value;
+
+        private TrieNode(String label) {
+            this.label = label;
+        }
+
+        // index of the child whose label starts with the character, or (-(insertion point) - 1)
+        private int find(char c) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char label = children[mid].label.charAt(0);
+                if (label < c) {
+                    low = mid + 1;
+                } else if (label > c) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        private void updateMaxCount() {
+            int max = count;
+            for (TrieNode child : children) {
+                max = Math.max(max, child.maxCount);
+            }
+            maxCount = max;
+        }
+    }
+
+    // node to visit, standing for either its own value or its whole subtree
+    private static final class Candidate {
+        private final TrieNode node;
+        private final boolean own;
+        private final int count;
+
+        private Candidate(TrieNode node, boolean own, int count) {
+            this.node = node;
+            this.own = own;
+            this.count = count;
+        }
+    }
+
+    // radix trie of the normalized values of one field (package-private for the tests)
+    static final class Trie {
+
+        private final TrieNode root = new TrieNode("");
+
+        void add(String value) {
+            String key = normalize(value);
+            if (key.isEmpty()) {
+                return;
+            }
+            List<TrieNode> path = new ArrayList<>();
+            TrieNode node = root;
+            int i = 0;
+            while (true) {
+                path.add(node);
+                if (i == key.length()) {
+                    if (node.count == 0) {
+                        node.value = value.trim();
+                    }
+                    node.count++;
+                    break;
+                }
+                int index = node.find(key.charAt(i));
+                if (index < 0) {
+                    TrieNode leaf = new TrieNode(key.substring(i));
+                    leaf.value = value.trim();
+                    leaf.count = 1;
+                    leaf.maxCount = 1;
+                    int insertion = -(index + 1);
+                    TrieNode[] children = new TrieNode[node.children.length + 1];
+                    System.arraycopy(node.children, 0, children, 0, insertion);
+                    children[insertion] = leaf;
+                    System.arraycopy(node.children, insertion, children, insertion + 1, node.children.length - insertion);
+                    node.children = children;
+                    break;
+                }
+                TrieNode child = node.children[index];
+                int common = commonPrefix(child.label, key, i);
+                if (common < child.label.length()) {
+                    // split the edge where the key leaves it
+                    TrieNode middle = new TrieNode(child.label.substring(0, common));
+                    child.label = child.label.substring(common);
+                    middle.children = new TrieNode[] { child };
+                    middle.maxCount = child.maxCount;
+                    node.children[index] = middle;
+                    child = middle;
+                }
+                node = child;
+                i += common;
+            }
+            for (int j = path.size() - 1; j >= 0; j--) {
+                path.get(j).updateMaxCount();
+            }
+        }
+
+        void remove(String value) {
+            String key = normalize(value);
+            if (key.isEmpty()) {
+                return;
+            }
+            List<TrieNode> path = new ArrayList<>();
+            TrieNode node = root;
+            int i = 0;
+            path.add(node);
+            while (i < key.length()) {
+                int index = node.find(key.charAt(i));
+                if (index < 0 || !key.startsWith(node.children[index].label, i)) {
+                    return;
+                }
+                node = node.children[index];
+                i += node.label.length();
+                path.add(node);
+            }
+            if (node.count == 0) {
+                return;
+            }
+            node.count--;
+            int last = path.size() - 1;
+            if (node.count == 0) {
+                node.value = null;
+                // drop the nodes left without a value or children, and merge a node left without a value and with a
+                // single child into the edge of the child, so that the nodes made by edge splits do not stay behind
+                for (int j = path.size() - 1; j > 0; j--) {
+                    TrieNode current = path.get(j);
+                    if (current.count > 0 || current.children.length > 1) {
+                        break;
+                    }
+                    TrieNode parent = path.get(j - 1);
+                    int index = parent.find(current.label.charAt(0));
+                    last = j - 1;
+                    if (current.children.length == 1) {
+                        TrieNode child = current.children[0];
+                        child.label = current.label + child.label;
+                        parent.children[index] = child;
+                        break;
+                    }
+                    TrieNode[] children = new TrieNode[parent.children.length - 1];
+                    System.arraycopy(parent.children, 0, children, 0, index);
+                    System.arraycopy(parent.children, index + 1, children, index, children.length - index);
+                    parent.children = children.length == 0 ? TrieNode.NO_CHILDREN : children;
+                }
+            }
+            for (int j = last; j >= 0; j--) {
+                path.get(j).updateMaxCount();
+            }
+        }
+
+        // number of nodes, including the root (for the tests)
+        int size() {
+            int size = 0;
+            List<TrieNode> nodes = new ArrayList<>();
+            nodes.add(root);
+            while (!nodes.isEmpty()) {
+                TrieNode node = nodes.remove(nodes.size() - 1);
+                size++;
+                for (TrieNode child : node.children) {
+                    nodes.add(child);
+                }
+            }
+            return size;
+        }
+
+        // best first walk of the subtree of the prefix, a node is only expanded when no remaining value can beat it
+        List<Suggestion> complete(String prefix, int limit) {
+            List<Suggestion> suggestions = new ArrayList<>();
+            TrieNode node = root;
+            int i = 0;
+            while (i < prefix.length()) {
+                int index = node.find(prefix.charAt(i));
+                if (index < 0) {
+                    return suggestions;
+                }
+                TrieNode child = node.children[index];
+                int common = commonPrefix(child.label, prefix, i);
+                if (common < child.label.length() && i + common < prefix.length()) {
+                    return suggestions;
+                }
+                node = child;
+                i += common;
+            }
+
+            PriorityQueue<Candidate> queue = new PriorityQueue<>((a, b) -> Integer.compare(b.count, a.count));
+            queue.add(new Candidate(node, false, node.maxCount));
+            while (!queue.isEmpty() && suggestions.size() < limit) {
+                Candidate candidate = queue.poll();
+                if (candidate.own) {
+                    suggestions.add(new Suggestion(candidate.node.value, candidate.count));
+                    continue;
+                }
+                if (candidate.node.count > 0) {
+                    queue.add(new Candidate(candidate.node, true, candidate.node.count));
+                }
+                for (TrieNode child : candidate.node.children) {
+                    if (child.maxCount > 0) {
+                        queue.add(new Candidate(child, false, child.maxCount));
+                    }
+                }
+            }
+            return suggestions;
+        }
+
+        private static int commonPrefix(String label, String key, int offset) {
+            int length = Math.min(label.length(), key.length() - offset);
+            int i = 0;
+            while (i < length && label.charAt(i) == key.charAt(offset + i)) {
+                i++;
+            }
+            return i;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.stadvdb.group22.mco2.service;
+
+import com.stadvdb.group22.mco2.config.DBConfig;
+import com.stadvdb.group22.mco2.exception.ServerMaintenanceException;
+import com.stadvdb.group22.mco2.model.Node;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// fences the writes to a node while re-sync catches it up, so that the rest of the nodes keep taking writes
+// every write holds the shared side of the fence of each node it writes to until it is done (logs included), re-sync
+// closes (takes the exclusive side of) the fence of a node only for the short final catch-up of its logs, during which
+// writes to that node wait instead of failing
+// fences are always taken in node order (node 1, 2, 3), so writes and re-sync cannot wait on each other in a cycle
+@Component
+public class WriteFence {
+
+    private final Map<Node, ReentrantReadWriteLock> fences = new EnumMap<>(Node.class);
+
+    public WriteFence() {
+        for (Node node : Node.values()) {
+            // fair, so that a closing fence is not kept waiting by a steady stream of writes
+            fences.put(node, new ReentrantReadWriteLock(true));
+        }
+    }
+
+    // enters the fences of the nodes (in node order) before a write
+    // throws ServerMaintenanceException if a node stays fenced for longer than the transaction timeout
+    public void enter(Node... nodes) throws ServerMaintenanceException {
+        Node[] ordered = order(nodes);
+        for (int i = 0; i < ordered.length; i++) {
+            boolean entered;
+            try {
+                entered = fences.get(ordered[i]).readLock().tryLock(DBConfig.T_TIME_OUT, TimeUnit.SECONDS);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                entered = false;
+            }
+            if (!entered) {
+                for (int j = 0; j < i; j++) {
+                    fences.get(ordered[j]).readLock().unlock();
+                }
+                throw new ServerMaintenanceException("Server in maintenance...");
+            }
+        }
+    }
+
+    public void exit(Node... nodes) {
+        for (Node node : order(nodes)) {
+            fences.get(node).readLock().unlock();
+        }
+    }
+
+    // waits for the writes to the nodes to finish and holds back new ones, returns false if the writes did not finish
+    // within the transaction timeout (nothing is closed then)
+    public boolean close(Node... nodes) {
+        Node[] ordered = order(nodes);
+        for (int i = 0; i < ordered.length; i++) {
+            boolean closed;
+            try {
+                closed = fences.get(ordered[i]).writeLock().tryLock(DBConfig.T_TIME_OUT, TimeUnit.SECONDS);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                closed = false;
+            }
+            if (!closed) {
+                for (int j = 0; j < i; j++) {
+                    fences.get(ordered[j]).writeLock().unlock();
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void open(Node... nodes) {
+        for (Node node : order(nodes)) {
+            fences.get(node).writeLock().unlock();
+        }
+    }
+
+    // distinct nodes in node order
+    private static Node[] order(Node... nodes) {
+        boolean[] included = new boolean[Node.values().length];
+        int count = 0;
+        for (Node node : nodes) {
+            if (!included[node.ordinal()]) {
+                included[node.ordinal()] = true;
+                count++;
+            }
+        }
+        Node[] ordered = new Node[count];
+        int i = 0;
+        for (Node node : Node.values()) {
+            if (included[node.ordinal()]) {
+                ordered[i++] = node;
+            }
+        }
+        return ordered;
+    }
+}
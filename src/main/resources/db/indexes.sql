@@ -0,0 +1,21 @@
+-- indexes used by the movie listing and search queries, run on every node (movies_all, movies_before_1980, movies_after_1980)
+
+-- movie listing, ordered and paginated by (yr, uuid)
+CREATE INDEX idx_movies_yr_uuid ON movies (yr, uuid);
+
+-- search predicates of the values compared as a whole (see SearchQuery)
+CREATE INDEX idx_movies_title ON movies (title);
+CREATE INDEX idx_movies_director ON movies (director);
+CREATE INDEX idx_movies_actor1 ON movies (actor1);
+CREATE INDEX idx_movies_actor2 ON movies (actor2);
+CREATE INDEX idx_movies_genre_yr ON movies (genre, yr);
+
+-- word searches of the title, director, actors and genre (see SearchQuery), the same words as the search index, so
+-- that the nodes answer them while the index is being built
+-- every word must be indexed for the results to be the same as the search index: set innodb_ft_min_token_size = 1 in
+-- the server parameters (restart needed), and turn off the stopwords before creating the indexes
+SET SESSION innodb_ft_enable_stopword = OFF;
+CREATE FULLTEXT INDEX ft_movies_title ON movies (title);
+CREATE FULLTEXT INDEX ft_movies_director ON movies (director);
+CREATE FULLTEXT INDEX ft_movies_actors ON movies (actor1, actor2);
+CREATE FULLTEXT INDEX ft_movies_genre ON movies (genre);
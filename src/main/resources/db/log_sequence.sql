@@ -0,0 +1,31 @@
+-- log sequence numbers used by re-sync (see LogReplayer), run on every node after a completed re-sync, when t_log is
+-- empty (the existing logs have no sequence numbers)
+
+-- every log is numbered by the node that commits the write first (node 2 or 3, or node 1 if the node of the movie's
+-- year was down or failed to commit), densely per origin and shard (node of the years of the movie)
+ALTER TABLE t_log
+    ADD COLUMN origin VARCHAR(5) NOT NULL,
+    ADD COLUMN shard VARCHAR(5) NOT NULL,
+    ADD COLUMN lsn BIGINT NOT NULL;
+
+-- a log is stored once per node, replayed logs that are already there are skipped
+CREATE UNIQUE INDEX idx_t_log_lsn ON t_log (origin, shard, lsn);
+
+-- catch-up scans a contiguous range of one origin and shard from a watermark, covering every selected column
+CREATE INDEX idx_t_log_lsn_scan ON t_log (origin, shard, lsn, t_op, movie_uuid, movie_yr, ts);
+
+-- last number given by this node to its logs, per shard
+CREATE TABLE t_log_sequence (
+    shard VARCHAR(5) NOT NULL PRIMARY KEY,
+    last_lsn BIGINT NOT NULL
+);
+
+-- last log of another node (per origin and shard) that this node applied, with no gaps before it
+CREATE TABLE t_log_watermark (
+    origin VARCHAR(5) NOT NULL,
+    shard VARCHAR(5) NOT NULL,
+    applied_lsn BIGINT NOT NULL,
+    PRIMARY KEY (origin, shard)
+);
+
+-- then run the seed rows of the node: log_sequence_node1.sql, log_sequence_node2.sql or log_sequence_node3.sql
@@ -0,0 +1,4 @@
+-- seed rows of node 1 (movies_all), run after log_sequence.sql
+-- numbers the logs of both shards, applies the logs of nodes 2 and 3
+INSERT INTO t_log_sequence (shard, last_lsn) VALUES ('NODE2', 0), ('NODE3', 0);
+INSERT INTO t_log_watermark (origin, shard, applied_lsn) VALUES ('NODE2', 'NODE2', 0), ('NODE3', 'NODE3', 0);
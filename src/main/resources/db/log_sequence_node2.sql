@@ -0,0 +1,4 @@
+-- seed rows of node 2 (movies_before_1980), run after log_sequence.sql
+-- numbers the logs of its shard, applies the logs of node 1 for its shard
+INSERT INTO t_log_sequence (shard, last_lsn) VALUES ('NODE2', 0);
+INSERT INTO t_log_watermark (origin, shard, applied_lsn) VALUES ('NODE1', 'NODE2', 0);
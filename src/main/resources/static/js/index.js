@@ -81,7 +81,12 @@ $(document).ready (function () {
 
     var listItemNextBtnAnchor = document.createElement ("a");
     listItemNextBtnAnchor.setAttribute ("class", "page-link");
-    listItemNextBtnAnchor.setAttribute ("href", "/movies/p/" + (pageNum + 1));
+    // continue from the last movie of this page if possible (faster than skipping all previous pages)
+    if (nextToken) {
+        listItemNextBtnAnchor.setAttribute ("href", "/movies/p/" + (pageNum + 1) + "?after=" + nextToken);
+    } else {
+        listItemNextBtnAnchor.setAttribute ("href", "/movies/p/" + (pageNum + 1));
+    }
     listItemNextBtnAnchor.setAttribute ("id", "nextBtn");
     listItemNextBtnAnchor.textContent = "Next";
 
@@ -130,5 +135,8 @@ $(document).ready (function () {
         $("#genre").val("");
         $("#actor").val("");
         $("#director").val("");
+        $("#yearFrom").val("");
+        $("#yearTo").val("");
+        $("#decade").val("");
     })
 });
\ No newline at end of file
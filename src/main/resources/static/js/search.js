@@ -1,4 +1,7 @@
 $(document).ready (function () {
+    // the search is in the query string, keep it when changing pages
+    var searchQuery = window.location.search;
+
     // Reference main container for Pagination
     var paginationList = $("#paginationList");
 
@@ -9,7 +12,7 @@ $(document).ready (function () {
 
     var listItemFirstBtnAnchor = document.createElement ("a");
     listItemFirstBtnAnchor.setAttribute ("class", "page-link");
-    listItemFirstBtnAnchor.setAttribute ("href", "/search/p/1");
+    listItemFirstBtnAnchor.setAttribute ("href", "/search/p/1" + searchQuery);
     listItemFirstBtnAnchor.setAttribute ("id", "firstBtn");
     listItemFirstBtnAnchor.setAttribute ("style", "font-weight: bold");
     listItemFirstBtnAnchor.textContent = "<<";
@@ -25,7 +28,7 @@ $(document).ready (function () {
 
     var listItemPrevBtnAnchor = document.createElement ("a");
     listItemPrevBtnAnchor.setAttribute ("class", "page-link");
-    listItemPrevBtnAnchor.setAttribute ("href", "/search/p/" + (pageNum - 1));
+    listItemPrevBtnAnchor.setAttribute ("href", "/search/p/" + (pageNum - 1) + searchQuery);
     listItemPrevBtnAnchor.setAttribute ("id", "prevBtn");
     listItemPrevBtnAnchor.textContent = "Previous";
 
@@ -59,7 +62,7 @@ $(document).ready (function () {
 
         var listItemAnchor = document.createElement ("a");
         listItemAnchor.setAttribute ("class", "page-link");
-        listItemAnchor.setAttribute ("href", "/search/p/" + (i + 1));
+        listItemAnchor.setAttribute ("href", "/search/p/" + (i + 1) + searchQuery);
         listItemAnchor.setAttribute ("id", i + 1);
         listItemAnchor.textContent = i + 1;
 
@@ -80,7 +83,7 @@ $(document).ready (function () {
 
     var listItemNextBtnAnchor = document.createElement ("a");
     listItemNextBtnAnchor.setAttribute ("class", "page-link");
-    listItemNextBtnAnchor.setAttribute ("href", "/search/p/" + (pageNum + 1));
+    listItemNextBtnAnchor.setAttribute ("href", "/search/p/" + (pageNum + 1) + searchQuery);
     listItemNextBtnAnchor.setAttribute ("id", "nextBtn");
     listItemNextBtnAnchor.textContent = "Next";
 
@@ -95,7 +98,7 @@ $(document).ready (function () {
 
     var listItemLastBtnAnchor = document.createElement ("a");
     listItemLastBtnAnchor.setAttribute ("class", "page-link");
-    listItemLastBtnAnchor.setAttribute ("href", "/search/p/" + maxPages);
+    listItemLastBtnAnchor.setAttribute ("href", "/search/p/" + maxPages + searchQuery);
     listItemLastBtnAnchor.setAttribute ("id", "lastBtn");
     listItemLastBtnAnchor.setAttribute ("style", "font-weight: bold");
     listItemLastBtnAnchor.textContent = ">>";
@@ -129,5 +132,8 @@ $(document).ready (function () {
         $("#genre").val("");
         $("#actor").val("");
         $("#director").val("");
+        $("#yearFrom").val("");
+        $("#yearTo").val("");
+        $("#decade").val("");
     })
 });
\ No newline at end of file
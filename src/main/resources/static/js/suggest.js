@@ -0,0 +1,45 @@
+$(document).ready (function () {
+    // search fields with suggestions (input id -> suggested field)
+    var fields = {
+        "title": "title",
+        "actor": "actor",
+        "director": "director",
+        "genre": "genre"
+    };
+
+    $.each (fields, function (inputId, field) {
+        var input = $("#" + inputId);
+        if (input.length == 0) {
+            return;
+        }
+
+        // Create list of suggestions for the field
+        var dataList = document.createElement ("datalist");
+        dataList.setAttribute ("id", inputId + "Suggestions");
+        input.after (dataList);
+        input.attr ("list", inputId + "Suggestions");
+        input.attr ("autocomplete", "off");
+
+        // ask for suggestions once the user stops typing
+        var timer = null;
+        var lastPrefix = "";
+        input.on ("input", function () {
+            clearTimeout (timer);
+            timer = setTimeout (function () {
+                var prefix = input.val ().trim ();
+                if (prefix.length < 2 || prefix == lastPrefix) {
+                    return;
+                }
+                lastPrefix = prefix;
+                $.getJSON ("/api/suggest", { field: field, prefix: prefix }, function (suggestions) {
+                    $(dataList).empty ();
+                    $.each (suggestions, function (i, suggestion) {
+                        var option = document.createElement ("option");
+                        option.value = suggestion.value;
+                        dataList.append (option);
+                    });
+                });
+            }, 200);
+        });
+    });
+});
@@ -0,0 +1,49 @@
+package com.stadvdb.group22.mco2.repository;
+
+import com.stadvdb.group22.mco2.model.SearchCriteria;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class SearchQueryTest {
+
+	@Test
+	void wordsAreSearchedWithFullTextPredicates() {
+		SearchCriteria criteria = new SearchCriteria();
+		criteria.setTitle(" Star Wa* ");
+		criteria.setActor("Mark Hamill");
+		criteria.setYearFrom(1970);
+		SearchQuery query = SearchQuery.compile(criteria);
+		assertEquals("SELECT COUNT(*) FROM movies WHERE MATCH(title) AGAINST (? IN BOOLEAN MODE)"
+				+ " AND MATCH(actor1, actor2) AGAINST (? IN BOOLEAN MODE) AND yr >= ?", query.getCountSql());
+		assertEquals(Arrays.asList("+star +wa*", "+mark +hamill", 1970), Arrays.asList(query.getCountParams()));
+	}
+
+	@Test
+	void valuesWithoutWordsAreComparedAsAWhole() {
+		SearchCriteria criteria = new SearchCriteria();
+		criteria.setActor("???");
+		criteria.setGenre("Drama");
+		criteria.setYearFrom(1950);
+		criteria.setYearTo(1959);
+		SearchQuery query = SearchQuery.compile(criteria);
+		assertEquals("SELECT COUNT(*) FROM movies WHERE (actor1 = ? OR actor2 = ?)"
+				+ " AND MATCH(genre) AGAINST (? IN BOOLEAN MODE) AND yr BETWEEN ? AND ?", query.getCountSql());
+		assertEquals(Arrays.asList("???", "???", "+drama", 1950, 1959, 20, 40L), Arrays.asList(query.getSelectParams(40, 20)));
+	}
+
+	@Test
+	void statementsAreReusedForTheSameFields() {
+		SearchCriteria first = new SearchCriteria();
+		first.setDirector("George Lucas");
+		SearchCriteria second = new SearchCriteria();
+		second.setDirector("Spielberg");
+		assertSame(SearchQuery.compile(first).getSelectSql(), SearchQuery.compile(second).getSelectSql());
+		assertEquals("SELECT " + MovieRowMapper.COLUMNS + " FROM movies ORDER BY yr, uuid LIMIT ? OFFSET ?",
+				SearchQuery.compile(new SearchCriteria()).getSelectSql());
+	}
+
+}
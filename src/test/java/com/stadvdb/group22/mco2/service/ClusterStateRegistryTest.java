@@ -0,0 +1,50 @@
+package com.stadvdb.group22.mco2.service;
+
+import com.stadvdb.group22.mco2.model.ClusterState;
+import com.stadvdb.group22.mco2.model.Node;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClusterStateRegistryTest {
+
+	@Test
+	void listenersSeeEveryTransitionOnce() {
+		ClusterStateRegistry registry = new ClusterStateRegistry();
+		List<ClusterState[]> transitions = new ArrayList<>();
+		registry.addListener((previous, current) -> transitions.add(new ClusterState[] {previous, current}));
+
+		registry.markDown(Node.NODE2);
+		// already down, nothing changes
+		registry.markDown(Node.NODE2);
+		registry.markUp(Node.NODE2);
+
+		assertEquals(2, transitions.size());
+		assertFalse(transitions.get(0)[0].isDown(Node.NODE2));
+		assertTrue(transitions.get(0)[1].isDown(Node.NODE2));
+		assertTrue(transitions.get(1)[0].isDown(Node.NODE2));
+		assertFalse(transitions.get(1)[1].isDown(Node.NODE2));
+		assertEquals(transitions.get(0)[1].getEpoch() + 1, transitions.get(1)[1].getEpoch());
+	}
+
+	@Test
+	void removedListenersAreNotNotified() {
+		ClusterStateRegistry registry = new ClusterStateRegistry();
+		List<ClusterState> notified = new ArrayList<>();
+		ClusterStateListener listener = (previous, current) -> notified.add(current);
+		registry.addListener(listener);
+		registry.markDownForResync(Node.NODE1);
+		registry.removeListener(listener);
+		registry.markUp(Node.NODE1);
+
+		assertEquals(1, notified.size());
+		assertTrue(notified.get(0).isDown(Node.NODE1));
+		assertTrue(notified.get(0).isResyncEnabled());
+	}
+
+}
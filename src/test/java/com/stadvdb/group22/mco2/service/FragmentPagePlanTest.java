@@ -0,0 +1,53 @@
+package com.stadvdb.group22.mco2.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FragmentPagePlanTest {
+
+	@Test
+	void pageWithinNode2() {
+		FragmentPagePlan plan = FragmentPagePlan.plan(5, 5, 12, 20);
+		assertEquals(5, plan.getNode2Offset());
+		assertEquals(5, plan.getNode2Limit());
+		assertFalse(plan.readsNode3());
+		assertEquals(32, plan.getTotal());
+	}
+
+	@Test
+	void pageSpanningBothNodes() {
+		FragmentPagePlan plan = FragmentPagePlan.plan(10, 5, 12, 20);
+		assertEquals(10, plan.getNode2Offset());
+		assertEquals(2, plan.getNode2Limit());
+		assertEquals(0, plan.getNode3Offset());
+		assertEquals(3, plan.getNode3Limit());
+	}
+
+	@Test
+	void pageWithinNode3() {
+		FragmentPagePlan plan = FragmentPagePlan.plan(15, 5, 12, 20);
+		assertFalse(plan.readsNode2());
+		assertEquals(3, plan.getNode3Offset());
+		assertEquals(5, plan.getNode3Limit());
+	}
+
+	@Test
+	void lastPartialPage() {
+		FragmentPagePlan plan = FragmentPagePlan.plan(30, 5, 12, 20);
+		assertFalse(plan.readsNode2());
+		assertEquals(18, plan.getNode3Offset());
+		assertEquals(2, plan.getNode3Limit());
+	}
+
+	@Test
+	void pageOutOfRange() {
+		FragmentPagePlan plan = FragmentPagePlan.plan(35, 5, 12, 20);
+		assertFalse(plan.readsNode2());
+		assertFalse(plan.readsNode3());
+		assertTrue(FragmentPagePlan.plan(0, 5, 0, 3).readsNode3());
+	}
+
+}
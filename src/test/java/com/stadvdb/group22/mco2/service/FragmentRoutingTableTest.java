@@ -0,0 +1,100 @@
+package com.stadvdb.group22.mco2.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FragmentRoutingTableTest {
+
+	// keys (hi, lo = 0) whose home slot in a table of 1024 slots is the given slot
+	private static List<Long> keysAt(FragmentRoutingIndex.Table table, int slot, int count) {
+		List<Long> keys = new ArrayList<>();
+		for (long hi = 1; keys.size() < count; hi++) {
+			if (table.slot(hi, 0) == slot) {
+				keys.add(hi);
+			}
+		}
+		return keys;
+	}
+
+	private static short yearOf(long hi) {
+		return (short) (1900 + hi % 120);
+	}
+
+	@Test
+	void lookupsProbePastADeletedSlot() {
+		FragmentRoutingIndex.Table table = new FragmentRoutingIndex.Table(0);
+		// a run of colliding keys, followed by keys whose home is in the middle of the run
+		List<Long> colliding = keysAt(table, 100, 4);
+		List<Long> following = keysAt(table, 102, 2);
+		for (long hi : colliding) {
+			table.put(hi, 0, yearOf(hi));
+		}
+		for (long hi : following) {
+			table.put(hi, 0, yearOf(hi));
+		}
+		assertEquals(6, table.size);
+
+		// deleting the head of the run, then the middle of the run
+		table.remove(colliding.get(0), 0);
+		table.remove(colliding.get(2), 0);
+		assertEquals(4, table.size);
+		assertEquals(FragmentRoutingIndex.Table.EMPTY, table.get(colliding.get(0), 0));
+		assertEquals(FragmentRoutingIndex.Table.EMPTY, table.get(colliding.get(2), 0));
+		for (long hi : new long[] {colliding.get(1), colliding.get(3), following.get(0), following.get(1)}) {
+			assertEquals(yearOf(hi), table.get(hi, 0));
+		}
+
+		// the freed slots are reused
+		table.put(colliding.get(0), 0, (short) 1999);
+		assertEquals(1999, table.get(colliding.get(0), 0));
+		assertEquals(5, table.size);
+	}
+
+	@Test
+	void probeSequenceWrapsAroundTheEnd() {
+		FragmentRoutingIndex.Table table = new FragmentRoutingIndex.Table(0);
+		List<Long> keys = keysAt(table, 1023, 3);
+		for (long hi : keys) {
+			table.put(hi, 0, yearOf(hi));
+		}
+		table.remove(keys.get(0), 0);
+		assertEquals(yearOf(keys.get(1)), table.get(keys.get(1), 0));
+		assertEquals(yearOf(keys.get(2)), table.get(keys.get(2), 0));
+		// removing a missing key leaves the table as it is
+		table.remove(keys.get(0), 0);
+		assertEquals(2, table.size);
+	}
+
+	@Test
+	void updatesAndRemovalsAcrossGrowth() {
+		FragmentRoutingIndex.Table table = new FragmentRoutingIndex.Table(0);
+		Random random = new Random(42);
+		long[] his = new long[5000];
+		long[] los = new long[5000];
+		for (int i = 0; i < his.length; i++) {
+			his[i] = random.nextLong();
+			los[i] = random.nextLong();
+			table.put(his[i], los[i], (short) 1950);
+		}
+		// update the even ones, remove every third one
+		for (int i = 0; i < his.length; i += 2) {
+			table.put(his[i], los[i], (short) 1990);
+		}
+		int removed = 0;
+		for (int i = 0; i < his.length; i += 3) {
+			table.remove(his[i], los[i]);
+			removed++;
+		}
+		assertEquals(his.length - removed, table.size);
+		for (int i = 0; i < his.length; i++) {
+			short expected = i % 3 == 0 ? FragmentRoutingIndex.Table.EMPTY : (short) (i % 2 == 0 ? 1990 : 1950);
+			assertEquals(expected, table.get(his[i], los[i]), "key " + i);
+		}
+	}
+
+}
@@ -0,0 +1,63 @@
+package com.stadvdb.group22.mco2.service;
+
+import com.stadvdb.group22.mco2.model.Log;
+import com.stadvdb.group22.mco2.model.Node;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogCompactorTest {
+
+	// "movie:op" of each log, numbered in order
+	private static List<Log> logs(String... writes) {
+		List<Log> logs = new ArrayList<>();
+		for (String write : writes) {
+			String[] parts = write.split(":");
+			logs.add(new Log("t" + logs.size(), parts[1], parts[0], 1990, null, Node.NODE3, Node.NODE3, logs.size() + 1));
+		}
+		return logs;
+	}
+
+	@Test
+	void insertUpdateDeleteLeavesNothing() {
+		Map<String, LogCompactor.Effect> effects = LogCompactor.compact(logs("a:INSERT", "a:UPDATE", "a:DELETE"));
+		assertEquals(1, effects.size());
+		assertEquals(LogCompactor.Effect.NONE, effects.get("a"));
+	}
+
+	@Test
+	void lastWriteDecidesTheEffect() {
+		Map<String, LogCompactor.Effect> effects = LogCompactor.compact(logs(
+				"a:INSERT", "a:UPDATE",
+				"b:UPDATE", "b:DELETE",
+				"c:DELETE", "c:INSERT",
+				"d:INSERT", "d:DELETE", "d:INSERT",
+				"e:update"));
+		assertEquals(LogCompactor.Effect.UPSERT, effects.get("a"));
+		// b existed before the logs
+		assertEquals(LogCompactor.Effect.DELETE, effects.get("b"));
+		assertEquals(LogCompactor.Effect.UPSERT, effects.get("c"));
+		assertEquals(LogCompactor.Effect.UPSERT, effects.get("d"));
+		assertEquals(LogCompactor.Effect.UPSERT, effects.get("e"));
+	}
+
+	@Test
+	void deleteOfAMovieThatExistedBeforeIsKept() {
+		Map<String, LogCompactor.Effect> effects = LogCompactor.compact(logs("a:DELETE", "a:INSERT", "a:delete"));
+		assertEquals(LogCompactor.Effect.DELETE, effects.get("a"));
+	}
+
+	@Test
+	void effectsInOrderOfTheLastWrite() {
+		Map<String, LogCompactor.Effect> effects = LogCompactor.compact(logs("a:INSERT", "b:INSERT", "c:INSERT", "a:UPDATE", "b:DELETE"));
+		assertEquals(Arrays.asList("c", "a", "b"), new ArrayList<>(effects.keySet()));
+		assertTrue(LogCompactor.compact(new ArrayList<>()).isEmpty());
+	}
+
+}
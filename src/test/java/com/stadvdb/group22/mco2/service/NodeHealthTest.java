@@ -0,0 +1,45 @@
+package com.stadvdb.group22.mco2.service;
+
+import com.stadvdb.group22.mco2.config.DBConfig;
+import com.stadvdb.group22.mco2.model.Node;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NodeHealthTest {
+
+	@Test
+	void circuitOpensAtTheFailureThreshold() {
+		NodeHealth health = new NodeHealth(Node.NODE2);
+		for (int i = 1; i < DBConfig.HEALTH_FAILURE_THRESHOLD; i++) {
+			assertFalse(health.recordFailure(i * 1000L));
+			assertTrue(health.isAvailable());
+			assertEquals(i * 1000L + DBConfig.HEALTH_PROBE_INTERVAL, health.getNextProbeTime());
+		}
+		assertTrue(health.recordFailure(10000));
+		assertFalse(health.isAvailable());
+		assertEquals(10000 + DBConfig.HEALTH_MIN_BACKOFF, health.getNextProbeTime());
+	}
+
+	@Test
+	void backoffDoublesUntilASuccessfulProbe() {
+		NodeHealth health = new NodeHealth(Node.NODE3);
+		for (int i = 0; i < DBConfig.HEALTH_FAILURE_THRESHOLD; i++) {
+			health.recordFailure(0);
+		}
+		health.halfOpen();
+		assertEquals(NodeHealth.Circuit.HALF_OPEN, health.getCircuit());
+		assertFalse(health.recordFailure(0));
+		assertEquals(Math.min(DBConfig.HEALTH_MIN_BACKOFF * 2, DBConfig.HEALTH_MAX_BACKOFF), health.getNextProbeTime());
+
+		// a success closes the circuit and resets the failures and the backoff
+		assertTrue(health.recordSuccess(5, 100));
+		assertTrue(health.isAvailable());
+		assertEquals(0, health.getConsecutiveFailures());
+		assertFalse(health.recordFailure(200));
+		assertTrue(health.isAvailable());
+	}
+
+}
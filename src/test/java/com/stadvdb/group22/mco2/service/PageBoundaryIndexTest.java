@@ -0,0 +1,24 @@
+package com.stadvdb.group22.mco2.service;
+
+import com.stadvdb.group22.mco2.model.MovieKey;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PageBoundaryIndexTest {
+
+	@Test
+	void boundaryReadBeforeAClearIsDropped() {
+		PageBoundaryIndex index = new PageBoundaryIndex();
+		long generation = index.generation();
+		// a write commits while the page is read
+		index.clear();
+		index.record(generation, 10, 3, new MovieKey(1979, "a"));
+		assertNull(index.floor(10, 3));
+
+		index.record(index.generation(), 10, 3, new MovieKey(1979, "a"));
+		assertEquals(3, (int) index.floor(10, 5).getKey());
+	}
+
+}
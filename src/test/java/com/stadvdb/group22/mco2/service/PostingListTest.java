@@ -0,0 +1,105 @@
+package com.stadvdb.group22.mco2.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PostingListTest {
+
+	private static PostingList listOf(int... rowIds) {
+		PostingList list = new PostingList();
+		for (int rowId : rowIds) {
+			list.add(rowId);
+		}
+		return list;
+	}
+
+	// row ids 0, step, 2 * step, ... (count ids)
+	private static int[] steps(int count, int step) {
+		int[] rowIds = new int[count];
+		for (int i = 0; i < count; i++) {
+			rowIds[i] = i * step;
+		}
+		return rowIds;
+	}
+
+	@Test
+	void gapsOfEveryVarIntLength() {
+		// gaps of 1 to 5 bytes
+		int[] rowIds = {0, 1, 128, 16512, 2113664, 270549120, Integer.MAX_VALUE};
+		PostingList.Cursor cursor = listOf(rowIds).cursor();
+		for (int rowId : rowIds) {
+			assertEquals(rowId, cursor.next());
+		}
+		assertEquals(-1, cursor.next());
+		assertEquals(-1, cursor.advanceTo(0));
+	}
+
+	@Test
+	void rowIdsMustIncrease() {
+		PostingList list = listOf(5);
+		assertThrows(IllegalArgumentException.class, () -> list.add(5));
+		assertThrows(IllegalArgumentException.class, () -> list.add(4));
+	}
+
+	@Test
+	void advanceToSkipsWholeBlocks() {
+		// 300 ids 0, 3, 6, ..., skip blocks start at the 64th, 128th, 192nd and 256th id
+		int[] rowIds = steps(300, 3);
+		PostingList list = listOf(rowIds);
+		assertEquals(300, list.size());
+
+		PostingList.Cursor cursor = list.cursor();
+		assertEquals(30, cursor.advanceTo(29));
+		// last id of the first block, then first id of the second block
+		assertEquals(189, cursor.advanceTo(189));
+		assertEquals(192, cursor.advanceTo(190));
+		// first id of the third block and beyond, over a whole block at once
+		assertEquals(384, cursor.advanceTo(384));
+		assertEquals(768, cursor.advanceTo(767));
+		assertEquals(771, cursor.next());
+		// target before the current id returns the current id
+		assertEquals(771, cursor.advanceTo(10));
+		assertEquals(897, cursor.advanceTo(897));
+		assertEquals(-1, cursor.advanceTo(898));
+		assertEquals(-1, cursor.next());
+	}
+
+	@Test
+	void advanceToAtBlockBoundaries() {
+		for (int count : new int[] {63, 64, 65, 127, 128, 129}) {
+			int[] rowIds = steps(count, 2);
+			for (int i = 0; i < count; i++) {
+				PostingList.Cursor cursor = listOf(rowIds).cursor();
+				assertEquals(rowIds[i], cursor.advanceTo(rowIds[i]), count + " ids, exact target " + i);
+				assertEquals(i + 1 < count ? rowIds[i + 1] : -1, cursor.next(), count + " ids, next after " + i);
+
+				cursor = listOf(rowIds).cursor();
+				assertEquals(rowIds[i], cursor.advanceTo(rowIds[i] - 1), count + " ids, target before " + i);
+			}
+			assertEquals(-1, listOf(rowIds).cursor().advanceTo(rowIds[count - 1] + 1));
+		}
+	}
+
+	@Test
+	void intersectionOfTwoLists() {
+		// multiples of 2 and of 3, so the intersection is the multiples of 6
+		PostingList.Cursor twos = listOf(steps(500, 2)).cursor();
+		PostingList.Cursor threes = listOf(steps(400, 3)).cursor();
+		int expected = 0;
+		for (int rowId = threes.next(); rowId != -1; rowId = threes.next()) {
+			int match = twos.advanceTo(rowId);
+			if (match == -1) {
+				break;
+			}
+			if (match == rowId) {
+				assertEquals(expected, rowId);
+				expected += 6;
+			}
+		}
+		// the last multiple of 6 that is in both lists is 996
+		assertEquals(1002, expected);
+	}
+
+}
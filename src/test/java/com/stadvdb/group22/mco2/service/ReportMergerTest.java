@@ -0,0 +1,70 @@
+package com.stadvdb.group22.mco2.service;
+
+import com.stadvdb.group22.mco2.model.Report;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReportMergerTest {
+
+	// "label:count" of each report, in order
+	private static List<String> labels(List<Report> reports) {
+		List<String> labels = new ArrayList<>();
+		for (Report report : reports) {
+			labels.add(report.getLabel() + ":" + report.getCount());
+		}
+		return labels;
+	}
+
+	@Test
+	void labelsMergedIgnoringCase() {
+		ReportMerger merger = new ReportMerger()
+				.add(Arrays.asList(new Report("Drama", 3), new Report("comedy", 2)))
+				.add(Arrays.asList(new Report("DRAMA", 4), new Report("Comedy", 1), new Report("Horror", 5)));
+		assertEquals(3, merger.size());
+		// the first label seen for a key is the one shown
+		assertEquals(Arrays.asList("comedy:3", "Drama:7", "Horror:5"), labels(merger.sorted(ReportMerger.BY_LABEL)));
+	}
+
+	@Test
+	void labelsMergedIgnoringAccentsAndTrailingSpaces() {
+		ReportMerger merger = new ReportMerger()
+				.add(Arrays.asList(new Report("Am\u00e9lie", 2), new Report("Drama ", 1)))
+				.add(Arrays.asList(new Report("AMELIE", 1), new Report("Drama", 2), new Report(" Drama", 4)));
+		// a leading space is kept, as by the collation
+		assertEquals(Arrays.asList(" Drama:4", "Am\u00e9lie:3", "Drama :3"), labels(merger.sorted(ReportMerger.BY_LABEL)));
+	}
+
+	@Test
+	void nullLabelsAndCounts() {
+		ReportMerger merger = new ReportMerger()
+				.add(Arrays.asList(new Report(null, 2), new Report("Drama", null)))
+				.add(Arrays.asList(new Report(null, 1), new Report("drama", 1)));
+		assertEquals(Arrays.asList("null:3", "Drama:1"), labels(merger.sorted(ReportMerger.BY_LABEL)));
+	}
+
+	@Test
+	void sortedByCountThenLabel() {
+		ReportMerger merger = new ReportMerger()
+				.add(Arrays.asList(new Report("b", 2), new Report("A", 2), new Report("c", 1)))
+				.add(Arrays.asList(new Report("C", 4)));
+		assertEquals(Arrays.asList("c:5", "A:2", "b:2"), labels(merger.sorted(ReportMerger.BY_COUNT_DESC)));
+	}
+
+	@Test
+	void pagesOfMergedReports() {
+		ReportMerger merger = new ReportMerger()
+				.add(Arrays.asList(new Report("a", 1), new Report("B", 1), new Report("c", 1)))
+				.add(Arrays.asList(new Report("b", 1), new Report("D", 1), new Report("e", 1)));
+		Page<Report> page = merger.page(1, 2, ReportMerger.BY_LABEL);
+		assertEquals(Arrays.asList("c:1", "D:1"), labels(page.getContent()));
+		assertEquals(5, page.getTotalElements());
+		assertEquals(0, merger.page(3, 2, ReportMerger.BY_LABEL).getContent().size());
+	}
+
+}
@@ -0,0 +1,131 @@
+package com.stadvdb.group22.mco2.service;
+
+import com.stadvdb.group22.mco2.model.Movie;
+import com.stadvdb.group22.mco2.model.SearchCriteria;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SearchIndexTest {
+
+	private SearchIndex.Index index;
+
+	// 200 movies: even ones are "Star Wars", odd ones "Star Trek", years 1950 to 1999
+	@BeforeEach
+	void setUp() {
+		index = new SearchIndex.Index();
+		for (int i = 0; i < 200; i++) {
+			String title = (i % 2 == 0 ? "Star Wars " : "Star Trek ") + i;
+			index.add(new Movie(title, 1950 + i % 50, "Sci-Fi", "Director " + i, "Actor " + i, null, uuid(i)));
+		}
+	}
+
+	private static String uuid(int i) {
+		return String.format("m%03d", i);
+	}
+
+	// uuids of the movies with the given numbers, ordered by year then uuid
+	private static List<String> ordered(List<Integer> numbers) {
+		List<Integer> sorted = new ArrayList<>(numbers);
+		sorted.sort((a, b) -> a % 50 != b % 50 ? Integer.compare(a % 50, b % 50) : uuid(a).compareTo(uuid(b)));
+		List<String> uuids = new ArrayList<>();
+		for (int number : sorted) {
+			uuids.add(uuid(number));
+		}
+		return uuids;
+	}
+
+	private static List<Integer> numbers(int from, int step) {
+		List<Integer> numbers = new ArrayList<>();
+		for (int i = from; i < 200; i += step) {
+			numbers.add(i);
+		}
+		return numbers;
+	}
+
+	private SearchIndex.Result search(SearchCriteria criteria, long offset, int limit, String... words) {
+		List<PostingList> terms = new ArrayList<>();
+		for (String word : words) {
+			terms.add(index.postings(SearchIndex.Field.TITLE, word));
+		}
+		return index.search(terms, new ArrayList<>(), criteria, offset, limit);
+	}
+
+	@Test
+	void intersectsPostingListsAcrossSkipBlocks() {
+		// "star" has 200 rows and "wars" 100, so the intersection jumps over skip blocks of "star"
+		SearchIndex.Result result = search(new SearchCriteria(), 0, 200, "star", "wars");
+		assertEquals(100, result.getTotal());
+		assertEquals(ordered(numbers(0, 2)), result.getUuids());
+	}
+
+	@Test
+	void pageOfMatchesInYearOrder() {
+		SearchIndex.Result result = search(new SearchCriteria(), 10, 5, "wars", "star");
+		assertEquals(100, result.getTotal());
+		assertEquals(ordered(numbers(0, 2)).subList(10, 15), result.getUuids());
+		assertEquals(Arrays.asList(1954, 1954, 1956, 1956, 1956), result.getYears());
+	}
+
+	@Test
+	void yearsNarrowTheMatches() {
+		SearchCriteria criteria = new SearchCriteria();
+		criteria.setYearFrom(1980);
+		SearchIndex.Result result = search(criteria, 0, 200, "trek");
+		List<Integer> expected = new ArrayList<>();
+		for (int i : numbers(1, 2)) {
+			if (1950 + i % 50 >= 1980) {
+				expected.add(i);
+			}
+		}
+		assertEquals(expected.size(), result.getTotal());
+		assertEquals(ordered(expected), result.getUuids());
+	}
+
+	@Test
+	void prefixMatchesEveryWordStartingWithIt() {
+		BitSet matches = index.prefixMatches(SearchIndex.Field.TITLE, "tre");
+		assertEquals(100, matches.cardinality());
+		SearchIndex.Result result = index.search(new ArrayList<>(), Collections.singletonList(matches), new SearchCriteria(), 0, 3);
+		assertEquals(100, result.getTotal());
+		assertEquals(ordered(numbers(1, 2)).subList(0, 3), result.getUuids());
+	}
+
+	@Test
+	void removedAndUpdatedMoviesAreNotMatched() {
+		index.remove(uuid(0));
+		// an updated movie gets a new row, its old row no longer matches
+		index.add(new Movie("Star Trek 2", 1952, "Sci-Fi", "Director 2", "Actor 2", null, uuid(2)));
+
+		SearchIndex.Result result = search(new SearchCriteria(), 0, 200, "star", "wars");
+		assertEquals(98, result.getTotal());
+		assertFalse(result.getUuids().contains(uuid(0)));
+		assertFalse(result.getUuids().contains(uuid(2)));
+		assertEquals(101, search(new SearchCriteria(), 0, 200, "trek").getTotal());
+		assertNull(index.postings(SearchIndex.Field.TITLE, "wookiee"));
+	}
+
+	@Test
+	void searchWords() {
+		assertTrue(SearchCriteria.searchWords("  ").isEmpty());
+		// a value without words is compared as a whole
+		assertTrue(SearchCriteria.searchWords("!!!").isEmpty());
+		assertEquals(Arrays.asList("star", "wars", "episode", "iv"), SearchCriteria.searchWords("Star Wars: Episode IV"));
+		assertEquals(Collections.singletonList("amelie"), SearchCriteria.searchWords("Am\u00e9lie"));
+		// only a * after the last word asks for the words starting with it
+		assertEquals(Arrays.asList("star", "wa*"), SearchCriteria.searchWords("Star Wa*"));
+		assertEquals(Arrays.asList("st", "wars"), SearchCriteria.searchWords("st* Wars"));
+		assertEquals(Arrays.asList("star", "wars"), SearchCriteria.searchWords("Star Wars *"));
+	}
+
+}
@@ -0,0 +1,121 @@
+package com.stadvdb.group22.mco2.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SuggestionTrieTest {
+
+	private static SuggestionIndex.Trie trieOf(String... values) {
+		SuggestionIndex.Trie trie = new SuggestionIndex.Trie();
+		for (String value : values) {
+			trie.add(value);
+		}
+		return trie;
+	}
+
+	// "value:count" of each completion, in order
+	private static List<String> complete(SuggestionIndex.Trie trie, String prefix, int limit) {
+		List<String> completions = new ArrayList<>();
+		for (SuggestionIndex.Suggestion suggestion : trie.complete(SuggestionIndex.normalize(prefix), limit)) {
+			completions.add(suggestion.getValue() + ":" + suggestion.getCount());
+		}
+		return completions;
+	}
+
+	@Test
+	void removeAfterEdgeSplits() {
+		// "star wars" is split at "star " by "star trek", then at "star" by "stargate"
+		SuggestionIndex.Trie trie = trieOf("Star Wars", "Star Wars", "Star Trek", "Stargate", "Stargate", "Stargate");
+		assertEquals(Arrays.asList("Stargate:3", "Star Wars:2", "Star Trek:1"), complete(trie, "star", 10));
+
+		trie.remove("Star Trek");
+		assertTrue(complete(trie, "star t", 10).isEmpty());
+		assertEquals(Arrays.asList("Stargate:3", "Star Wars:2"), complete(trie, "star", 10));
+		assertEquals(Arrays.asList("Star Wars:2"), complete(trie, "star w", 10));
+
+		trie.remove("Stargate");
+		trie.remove("Stargate");
+		assertEquals(Arrays.asList("Star Wars:2", "Stargate:1"), complete(trie, "sta", 10));
+
+		// the merged edge is split again when the value is added again
+		trie.add("Star Trek");
+		assertEquals(Arrays.asList("Star Trek:1"), complete(trie, "star t", 10));
+	}
+
+	@Test
+	void removedValuesLeaveNoNodesBehind() {
+		SuggestionIndex.Trie trie = trieOf("Star Wars", "Star Trek", "Stargate", "Dr", "Drama");
+		// root, "star", " ", "wars", "trek", "gate", "dr", "ama"
+		assertEquals(8, trie.size());
+
+		// " " is left with one child, and merged into its edge (" wars")
+		trie.remove("Star Trek");
+		assertEquals(6, trie.size());
+		assertEquals(Arrays.asList("Star Wars:1"), complete(trie, "star w", 10));
+
+		// "dr" is left without a value and with one child ("drama")
+		trie.remove("Dr");
+		assertEquals(5, trie.size());
+		assertEquals(Arrays.asList("Drama:1"), complete(trie, "dr", 10));
+
+		for (String value : new String[] {"Star Wars", "Stargate", "Drama"}) {
+			trie.remove(value);
+		}
+		assertEquals(1, trie.size());
+
+		// values churned through the trie do not make it grow
+		for (int i = 0; i < 100; i++) {
+			trie.add("Star Wars " + i);
+			trie.add("Star Trek " + i);
+		}
+		for (int i = 0; i < 100; i++) {
+			trie.remove("Star Wars " + i);
+			trie.remove("Star Trek " + i);
+		}
+		assertEquals(1, trie.size());
+		assertTrue(complete(trie, "s", 10).isEmpty());
+	}
+
+	@Test
+	void valueEndingOnASplitNode() {
+		SuggestionIndex.Trie trie = trieOf("Drama", "Drama", "Drama", "Dr", "Dr", "Documentary");
+		assertEquals(Arrays.asList("Drama:3", "Dr:2", "Documentary:1"), complete(trie, "d", 10));
+		assertEquals(Arrays.asList("Drama:3"), complete(trie, "d", 1));
+
+		// removing the value of the split node keeps the values below it
+		trie.remove("Dr");
+		trie.remove("Dr");
+		assertEquals(Arrays.asList("Drama:3"), complete(trie, "dr", 10));
+		trie.remove("Drama");
+		trie.remove("Drama");
+		trie.remove("Drama");
+		assertEquals(Arrays.asList("Documentary:1"), complete(trie, "d", 10));
+		assertTrue(complete(trie, "dr", 10).isEmpty());
+	}
+
+	@Test
+	void removeOfMissingValuesIsIgnored() {
+		SuggestionIndex.Trie trie = trieOf("Star Wars");
+		// ends in the middle of an edge, on a node without a value, or leaves the trie
+		trie.remove("Star");
+		trie.remove("Star Wars Episode");
+		trie.remove("Alien");
+		trie.remove("");
+		assertEquals(Arrays.asList("Star Wars:1"), complete(trie, "s", 10));
+	}
+
+	@Test
+	void valuesIgnoreCaseAndAccents() {
+		SuggestionIndex.Trie trie = trieOf("Am\u00e9lie", "amelie", "  AMELIE ");
+		// the value is kept as first seen
+		assertEquals(Arrays.asList("Am\u00e9lie:3"), complete(trie, "AME", 10));
+		assertTrue(complete(trie, "amelia", 10).isEmpty());
+	}
+
+}
@@ -0,0 +1,135 @@
+package com.stadvdb.group22.mco2.service;
+
+import com.stadvdb.group22.mco2.exception.ServerMaintenanceException;
+import com.stadvdb.group22.mco2.model.Node;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WriteFenceTest {
+
+	// waits until the thread is blocked on a fence
+	private static void awaitBlocked(Thread thread) throws InterruptedException {
+		while (thread.getState() != Thread.State.TIMED_WAITING && thread.isAlive()) {
+			Thread.sleep(1);
+		}
+	}
+
+	@Test
+	void fencesTakenInNodeOrderDoNotDeadlock() throws InterruptedException {
+		WriteFence fence = new WriteFence();
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		AtomicBoolean allClosed = new AtomicBoolean(true);
+
+		// nodes given in opposite orders, a lock order that followed the arguments would deadlock
+		Thread writes = new Thread(() -> {
+			try {
+				for (int i = 0; i < 2000; i++) {
+					fence.enter(Node.NODE3, Node.NODE1);
+					fence.exit(Node.NODE1, Node.NODE3);
+				}
+			} catch (Throwable throwable) {
+				failure.set(throwable);
+			}
+		});
+		Thread resync = new Thread(() -> {
+			for (int i = 0; i < 2000; i++) {
+				if (!fence.close(Node.NODE3, Node.NODE1)) {
+					allClosed.set(false);
+					return;
+				}
+				fence.open(Node.NODE1, Node.NODE3);
+			}
+		});
+		writes.start();
+		resync.start();
+		writes.join(20000);
+		resync.join(20000);
+
+		assertFalse(writes.isAlive());
+		assertFalse(resync.isAlive());
+		assertNull(failure.get());
+		assertTrue(allClosed.get());
+	}
+
+	@Test
+	void repeatedNodesAreEnteredOnce() {
+		WriteFence fence = new WriteFence();
+		assertTrue(fence.close(Node.NODE2, Node.NODE2));
+		fence.open(Node.NODE2);
+		assertTrue(fence.close(Node.NODE1, Node.NODE2, Node.NODE3));
+		fence.open(Node.NODE3, Node.NODE1, Node.NODE2);
+	}
+
+	@Test
+	void writeWaitsForTheFenceToOpen() throws InterruptedException {
+		WriteFence fence = new WriteFence();
+		AtomicBoolean written = new AtomicBoolean(false);
+		assertTrue(fence.close(Node.NODE2));
+
+		Thread write = new Thread(() -> {
+			try {
+				fence.enter(Node.NODE1, Node.NODE2);
+				written.set(true);
+				fence.exit(Node.NODE1, Node.NODE2);
+			} catch (ServerMaintenanceException exception) {
+				// left as not written
+			}
+		});
+		write.start();
+		awaitBlocked(write);
+		assertFalse(written.get());
+
+		fence.open(Node.NODE2);
+		write.join(5000);
+		assertTrue(written.get());
+	}
+
+	@Test
+	void failedEnterReleasesTheFencesItTook() throws InterruptedException {
+		WriteFence fence = new WriteFence();
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		assertTrue(fence.close(Node.NODE3));
+
+		// takes node 1, then gives up while waiting for node 3
+		Thread write = new Thread(() -> {
+			try {
+				fence.enter(Node.NODE1, Node.NODE3);
+			} catch (Throwable throwable) {
+				failure.set(throwable);
+			}
+		});
+		write.start();
+		awaitBlocked(write);
+		write.interrupt();
+		write.join(5000);
+
+		assertTrue(failure.get() instanceof ServerMaintenanceException);
+		assertTrue(fence.close(Node.NODE1));
+		fence.open(Node.NODE1, Node.NODE3);
+	}
+
+	@Test
+	void failedCloseReleasesTheFencesItTook() throws Exception {
+		WriteFence fence = new WriteFence();
+		AtomicBoolean closed = new AtomicBoolean(true);
+		fence.enter(Node.NODE2);
+
+		// closes node 1, then gives up while waiting for the write to node 2
+		Thread resync = new Thread(() -> closed.set(fence.close(Node.NODE1, Node.NODE2)));
+		resync.start();
+		awaitBlocked(resync);
+		resync.interrupt();
+		resync.join(5000);
+
+		assertFalse(closed.get());
+		fence.enter(Node.NODE1);
+		fence.exit(Node.NODE1, Node.NODE2);
+	}
+
+}